@@ -2,6 +2,7 @@ package predefined_results;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -14,8 +15,15 @@ public class PredefinedResultList extends ArrayList<PredefinedResult> {
 	
 	private static final long serialVersionUID = -6372192676663884532L;
 	
+	// marks a wildcard field in the index, it cannot be a real value
+	private static final String ANY = "\u0000";
+	private static final char SEPARATOR = '\u0001';
+	
 	private static PredefinedResultList predefinedResultsCache;
 	
+	private transient HashMap<String, Integer> index;
+	private transient int indexModCount;
+	
 	/**
 	 * Get a predefined result using the record type and the samp an asses fields
 	 * @param recordType
@@ -24,47 +32,99 @@ public class PredefinedResultList extends ArrayList<PredefinedResult> {
 	 */
 	public PredefinedResult get(String recordType, String source, boolean confirmatoryTested, String sampEventAsses) {
 		
-		for (PredefinedResult prh : this) {
-			
-			String thisRecordType = prh.get(PredefinedResultHeader.RECORD_TYPE);
-			String thisSource = prh.get(PredefinedResultHeader.SOURCE);
-			String thisSampEventAsses = prh.get(PredefinedResultHeader.SAMP_EVENT_ASSES);
-			String thisConfTested = prh.get(PredefinedResultHeader.CONFIRMATORY_EXECUTED);
-			
-			boolean confCheck = (BooleanValue.isTrue(thisConfTested) && confirmatoryTested)
-					|| (BooleanValue.isFalse(thisConfTested) && !confirmatoryTested);
-
-			if (isFieldEqual(thisRecordType, recordType)
-					&& isFieldEqual(thisSource, source)
-					&& isFieldEqual(thisSampEventAsses, sampEventAsses)
-					&& confCheck) {
-				return prh;
+		HashMap<String, Integer> positions = getIndex();
+		
+		String conf = String.valueOf(confirmatoryTested);
+		
+		// the first row of the list which matches the values, 
+		// trying each field both as value and as wildcard
+		int first = -1;
+		for (String rt : new String[] {recordType, ANY}) {
+			for (String src : new String[] {source, ANY}) {
+				for (String asses : new String[] {sampEventAsses, ANY}) {
+					
+					// no match for null values
+					if (rt == null || src == null || asses == null)
+						continue;
+					
+					Integer position = positions.get(getKey(rt, src, conf, asses));
+					
+					if (position != null && (first == -1 || position < first))
+						first = position;
+				}
 			}
 		}
 		
-		return null;
+		return first == -1 ? null : get(first);
 	}
 	
 	/**
-	 * Check if field a is equal to field b or not
-	 * @param a
-	 * @param b
+	 * Get the index of the list, built again if the list was changed.
+	 * The index maps the record type, source, confirmatory executed and
+	 * samp event asses of a row (empty fields are wildcards) to the 
+	 * position of the first row with these values
 	 * @return
 	 */
-	private static boolean isFieldEqual(String predefResValue, String rowValue) {
+	private synchronized HashMap<String, Integer> getIndex() {
 		
-		// always match an empty field in the configuration
-		if(predefResValue == null || predefResValue.isEmpty() || predefResValue.equals("null")) {
-			return true;
+		if (index != null && indexModCount == modCount)
+			return index;
+		
+		HashMap<String, Integer> newIndex = new HashMap<>();
+		
+		for (int i = 0; i < size(); ++i) {
+			
+			PredefinedResult prh = get(i);
+			
+			String thisConfTested = prh.get(PredefinedResultHeader.CONFIRMATORY_EXECUTED);
+			
+			// rows without a valid confirmatory executed never match
+			String conf;
+			if (BooleanValue.isTrue(thisConfTested))
+				conf = String.valueOf(true);
+			else if (BooleanValue.isFalse(thisConfTested))
+				conf = String.valueOf(false);
+			else
+				continue;
+			
+			String key = getKey(toIndexValue(prh.get(PredefinedResultHeader.RECORD_TYPE)), 
+					toIndexValue(prh.get(PredefinedResultHeader.SOURCE)), 
+					conf, 
+					toIndexValue(prh.get(PredefinedResultHeader.SAMP_EVENT_ASSES)));
+			
+			// keep the first row, as the linear search did
+			if (!newIndex.containsKey(key))
+				newIndex.put(key, i);
 		}
 		
-		// no match if our value is null
-		if (rowValue == null)
-			return false;
+		this.index = newIndex;
+		this.indexModCount = modCount;
 		
-		return rowValue.equals(predefResValue);
+		return newIndex;
 	}
-
+	
+	/**
+	 * Get the value used in the index for a configuration field
+	 * @param predefResValue
+	 * @return
+	 */
+	private static String toIndexValue(String predefResValue) {
+		
+		// an empty field in the configuration matches everything
+		if (isWildcard(predefResValue))
+			return ANY;
+		
+		return predefResValue;
+	}
+	
+	private static String getKey(String recordType, String source, String confirmatoryTested, String sampEventAsses) {
+		return recordType + SEPARATOR + source + SEPARATOR + confirmatoryTested + SEPARATOR + sampEventAsses;
+	}
+	
+	private static boolean isWildcard(String predefResValue) {
+		return predefResValue == null || predefResValue.isEmpty() || predefResValue.equals("null");
+	}
+	
 	/**
 	 * Get all the predefined results
 	 * @author shahaal
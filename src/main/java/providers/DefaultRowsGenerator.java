@@ -0,0 +1,280 @@
+package providers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import report.Report;
+import report_downloader.ImportTransaction;
+import table_relations.Relation;
+import table_skeleton.TableCell;
+import table_skeleton.TableRow;
+import table_skeleton.TableRowList;
+import tse_case_report.CaseReport;
+import tse_config.CustomStrings;
+import tse_summarized_information.SummarizedInfo;
+
+/**
+ * Create the default cases of a summarized information and, if required, the
+ * predefined results of the cases. All the rows are created in a single
+ * transaction, if something goes wrong no row is left in the database.
+ * 
+ * @author shahaal
+ *
+ */
+public class DefaultRowsGenerator {
+
+	private static final Logger LOGGER = LogManager.getLogger(DefaultRowsGenerator.class);
+
+	private ITableDaoService daoService;
+	private IFormulaService formulaService;
+
+	public DefaultRowsGenerator(ITableDaoService daoService, IFormulaService formulaService) {
+		this.daoService = daoService;
+		this.formulaService = formulaService;
+	}
+
+	/**
+	 * Get the number of default cases which are created for the summarized
+	 * information
+	 * 
+	 * @param summInfo
+	 * @return
+	 */
+	public static int getDefaultCasesCount(SummarizedInfo summInfo) {
+
+		// one blood sample for rgt
+		if (summInfo.isRGT())
+			return 1;
+
+		int positive = summInfo.getNumLabel(CustomStrings.TOT_SAMPLE_POSITIVE_COL);
+		int inconclusive = summInfo.getNumLabel(CustomStrings.TOT_SAMPLE_INCONCLUSIVE_COL);
+
+		// for cervids we need double rows
+		int repeats = isCervid(summInfo) ? 2 : 1;
+
+		return (positive + inconclusive) * repeats;
+	}
+
+	/**
+	 * Create the default cases of the summarized information
+	 * 
+	 * @param report
+	 * @param summInfo
+	 * @param listener can be null
+	 * @return the created cases
+	 */
+	public Collection<CaseReport> createCases(Report report, SummarizedInfo summInfo,
+			GenerationProgressListener listener) {
+
+		int total = getDefaultCasesCount(summInfo);
+
+		ImportTransaction transaction = new ImportTransaction(daoService);
+
+		Collection<CaseReport> cases;
+		boolean completed = false;
+		try {
+			cases = addCases(report, summInfo, transaction, listener, total);
+			transaction.commit();
+			completed = true;
+		} catch (RuntimeException e) {
+			LOGGER.error("Cannot create default cases in summarized info with progId=" + summInfo.getProgId(), e);
+			throw e;
+		} finally {
+
+			// also errors which are not exceptions must not leave rows
+			if (!completed)
+				rollback(transaction, summInfo);
+		}
+
+		return cases;
+	}
+
+	/**
+	 * Create the default cases of the summarized information together with the
+	 * predefined results of the cases whose results can already be determined
+	 * (rgt cases and cases with an assessment)
+	 * 
+	 * @param report
+	 * @param summInfo
+	 * @param listener can be null
+	 * @return the created cases
+	 * @throws IOException if the predefined results cannot be read
+	 */
+	public Collection<CaseReport> createCasesAndResults(Report report, SummarizedInfo summInfo,
+			GenerationProgressListener listener) throws IOException {
+
+		// each case is created and then completed with its results
+		int total = getDefaultCasesCount(summInfo) * 2;
+
+		// the preferences are read once for all the results
+		TableRow prefs = GlobalParentCache.get(CustomStrings.PREFERENCES_SHEET, daoService);
+		PredefinedResultService resultService = new PredefinedResultService(daoService, formulaService, prefs);
+
+		ImportTransaction transaction = new ImportTransaction(daoService);
+
+		Collection<CaseReport> cases;
+		boolean completed = false;
+		try {
+
+			cases = addCases(report, summInfo, transaction, listener, total);
+
+			int done = cases.size();
+			for (CaseReport caseReport : cases) {
+
+				if (summInfo.isRGT() || !caseReport.getCode(CustomStrings.SAMP_EVENT_ASSES_COL).isEmpty()) {
+					addResults(resultService, report, summInfo, caseReport, transaction);
+				}
+
+				notify(listener, ++done, total);
+			}
+
+			transaction.commit();
+			completed = true;
+
+		} catch (IOException | RuntimeException e) {
+			LOGGER.error("Cannot create default cases and results in summarized info with progId="
+					+ summInfo.getProgId(), e);
+			throw e;
+		} finally {
+
+			// also errors which are not exceptions must not leave rows
+			if (!completed)
+				rollback(transaction, summInfo);
+		}
+
+		LOGGER.info("Created " + cases.size() + " default cases with results in summarized info with progId="
+				+ summInfo.getProgId());
+
+		return cases;
+	}
+
+	/**
+	 * Remove the rows created in the transaction
+	 * 
+	 * @param transaction
+	 * @param summInfo
+	 */
+	private void rollback(ImportTransaction transaction, SummarizedInfo summInfo) {
+
+		int failed = transaction.rollback();
+
+		if (failed > 0)
+			LOGGER.error(failed + " default rows were left in summarized info with progId=" + summInfo.getProgId());
+	}
+
+	/**
+	 * Insert the default cases using the transaction
+	 * 
+	 * @return the inserted cases
+	 */
+	private Collection<CaseReport> addCases(Report report, SummarizedInfo summInfo, ImportTransaction transaction,
+			GenerationProgressListener listener, int total) {
+
+		Collection<CaseReport> cases = new ArrayList<>();
+
+		if (summInfo.isRGT()) {
+
+			CaseReport caseReport = prepareCase(report, summInfo);
+			caseReport.put(CustomStrings.PART_COL, CustomStrings.BLOOD_CODE);
+			transaction.add(caseReport);
+			cases.add(caseReport);
+
+			notify(listener, cases.size(), total);
+
+			return cases;
+		}
+
+		int positive = summInfo.getNumLabel(CustomStrings.TOT_SAMPLE_POSITIVE_COL);
+		int inconclusive = summInfo.getNumLabel(CustomStrings.TOT_SAMPLE_INCONCLUSIVE_COL);
+
+		boolean isCervid = isCervid(summInfo);
+
+		// for cervids we need double rows
+		int repeats = isCervid ? 2 : 1;
+
+		// first the inconclusive and then the positive cases
+		for (int i = 0; i < inconclusive + positive; ++i) {
+
+			for (int j = 0; j < repeats; ++j) {
+
+				CaseReport caseReport = prepareCase(report, summInfo);
+
+				if (i < inconclusive) {
+
+					// set assessment as inconclusive
+					TableCell value = new TableCell();
+					value.setCode(CustomStrings.DEFAULT_ASSESS_INC_CASE_CODE);
+					value.setLabel(CustomStrings.DEFAULT_ASSESS_INC_CASE_LABEL);
+					caseReport.put(CustomStrings.SAMP_EVENT_ASSES_COL, value);
+				}
+
+				// default always obex, the second cervid row is for the lymph nodes
+				if (isCervid && j == 1)
+					caseReport.put(CustomStrings.PART_COL, CustomStrings.RETROPHARYNGEAL_CODE);
+				else
+					caseReport.put(CustomStrings.PART_COL, CustomStrings.OBEX_CODE);
+
+				// no case field depends on the row id, insert it once
+				transaction.add(caseReport);
+				cases.add(caseReport);
+
+				notify(listener, cases.size(), total);
+			}
+		}
+
+		return cases;
+	}
+
+	/**
+	 * Create a case with the parents and the default values
+	 * 
+	 * @param report
+	 * @param summInfo
+	 * @return
+	 */
+	private CaseReport prepareCase(Report report, SummarizedInfo summInfo) {
+
+		CaseReport caseReport = new CaseReport();
+
+		// inject the parents to the case
+		Relation.injectParent(report, caseReport);
+		Relation.injectParent(summInfo, caseReport);
+
+		formulaService.Initialise(caseReport);
+
+		return caseReport;
+	}
+
+	/**
+	 * Insert the predefined results of the case using the transaction
+	 * 
+	 * @throws IOException
+	 */
+	private void addResults(PredefinedResultService resultService, Report report, SummarizedInfo summInfo,
+			CaseReport caseReport, ImportTransaction transaction) throws IOException {
+
+		TableRowList results = resultService.prepareDefaultResults(report, summInfo, caseReport);
+
+		for (TableRow result : results) {
+
+			transaction.add(result);
+
+			// the resId depends on the row id
+			formulaService.Initialise(result, CustomStrings.RES_ID_COL);
+			daoService.update(result);
+		}
+	}
+
+	private static boolean isCervid(SummarizedInfo summInfo) {
+		return CustomStrings.SUMMARIZED_INFO_CWD_TYPE.equals(summInfo.getType());
+	}
+
+	private static void notify(GenerationProgressListener listener, int done, int total) {
+		if (listener != null)
+			listener.progress(done, total);
+	}
+}
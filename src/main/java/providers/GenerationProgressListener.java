@@ -0,0 +1,19 @@
+package providers;
+
+/**
+ * Listener called while the default rows of a summarized information are
+ * created
+ * 
+ * @author shahaal
+ *
+ */
+public interface GenerationProgressListener {
+
+	/**
+	 * Called from the generating thread
+	 * 
+	 * @param done  number of steps completed (a case or the results of a case)
+	 * @param total total number of steps
+	 */
+	public void progress(int done, int total);
+}
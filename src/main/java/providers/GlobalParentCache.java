@@ -0,0 +1,146 @@
+package providers;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import table_relations.Relation;
+import table_skeleton.TableRow;
+
+/**
+ * Cache of the global parents (settings and preferences), which are single
+ * rows changed only by the options dialogs. The rows are read once and kept
+ * until the options are saved again, when the cache of the sheet must be
+ * invalidated. The rows are cached for each dao service, which is weakly
+ * referenced so that the rows of a discarded dao are released with it.
+ * 
+ * @author shahaal
+ *
+ */
+public class GlobalParentCache {
+
+	private static final Logger LOGGER = LogManager.getLogger(GlobalParentCache.class);
+
+	// the null key is used for the default dao
+	private static final Map<ITableDaoService, Map<String, TableRow>> CACHE = Collections
+			.synchronizedMap(new WeakHashMap<ITableDaoService, Map<String, TableRow>>());
+
+	/**
+	 * Get the global parent of the sheet using the dao service. A copy of the
+	 * cached row is returned, so that the caller can change it freely.
+	 * 
+	 * @param sheetName  sheet of the global parent
+	 * @param daoService
+	 * @return the global parent or null if it was not found
+	 * @throws IOException
+	 */
+	public static TableRow get(String sheetName, ITableDaoService daoService) throws IOException {
+
+		Map<String, TableRow> parents = getParents(daoService);
+
+		TableRow parent = parents.get(sheetName);
+
+		if (parent == null) {
+
+			parent = daoService == null ? Relation.getGlobalParent(sheetName)
+					: Relation.getGlobalParent(sheetName, daoService);
+
+			if (parent == null)
+				return null;
+
+			parents.put(sheetName, parent);
+		}
+
+		return new TableRow(parent);
+	}
+
+	/**
+	 * Get the cached rows of the dao service
+	 * 
+	 * @param daoService
+	 * @return
+	 */
+	private static Map<String, TableRow> getParents(ITableDaoService daoService) {
+
+		synchronized (CACHE) {
+
+			Map<String, TableRow> parents = CACHE.get(daoService);
+
+			if (parents == null) {
+				parents = new ConcurrentHashMap<>();
+				CACHE.put(daoService, parents);
+			}
+
+			return parents;
+		}
+	}
+
+	/**
+	 * Get the global parent of the sheet using the default dao
+	 * 
+	 * @param sheetName
+	 * @return
+	 * @throws IOException
+	 */
+	public static TableRow get(String sheetName) throws IOException {
+		return get(sheetName, null);
+	}
+
+	/**
+	 * Inject the global parent of the sheet into the row
+	 * 
+	 * @param row
+	 * @param sheetName
+	 * @param daoService
+	 * @throws IOException
+	 */
+	public static void inject(TableRow row, String sheetName, ITableDaoService daoService) throws IOException {
+
+		TableRow parent = get(sheetName, daoService);
+
+		if (parent == null)
+			throw new IOException("No global parent found for sheet=" + sheetName);
+
+		Relation.injectParent(parent, row);
+	}
+
+	/**
+	 * Inject the global parent of the sheet into the row using the default dao
+	 * 
+	 * @param row
+	 * @param sheetName
+	 * @throws IOException
+	 */
+	public static void inject(TableRow row, String sheetName) throws IOException {
+		inject(row, sheetName, null);
+	}
+
+	/**
+	 * Remove the cached global parent of the sheet, it must be called every time
+	 * the row is saved
+	 * 
+	 * @param sheetName
+	 */
+	public static void invalidate(String sheetName) {
+
+		LOGGER.debug("Invalidating global parent cache for sheet=" + sheetName);
+
+		synchronized (CACHE) {
+			for (Map<String, TableRow> parents : CACHE.values())
+				parents.remove(sheetName);
+		}
+	}
+
+	/**
+	 * Remove all the cached global parents
+	 */
+	public static void invalidateAll() {
+		CACHE.clear();
+	}
+
+}
@@ -30,12 +30,26 @@ public class PredefinedResultService {
 	
 	private ITableDaoService daoService;
 	private IFormulaService formulaService;
+	private TableRow preferences;
 	
 	public PredefinedResultService(ITableDaoService daoService, IFormulaService formulaService) {
 		this.daoService = daoService;
 		this.formulaService = formulaService;
 	}
 	
+	/**
+	 * Create the service using a snapshot of the preferences, which is used
+	 * for all the results instead of reading the preferences table each time
+	 * @param daoService
+	 * @param formulaService
+	 * @param preferences
+	 */
+	public PredefinedResultService(ITableDaoService daoService, IFormulaService formulaService, 
+			TableRow preferences) {
+		this(daoService, formulaService);
+		this.preferences = preferences;
+	}
+	
 	/**
 	 * Create the default results for a case
 	 * @param report
@@ -46,28 +60,58 @@ public class PredefinedResultService {
 	public TableRowList createDefaultResults(Report report, 
 			SummarizedInfo summInfo, CaseReport caseReport) throws IOException {
 
+		TableRowList results = prepareDefaultResults(report, summInfo, caseReport);
+		
+		for (TableRow resultRow : results) {
+			
+			daoService.add(resultRow);
+			
+			// the resId is the only field which depends on the row id,
+			// therefore it is the only one solved again after the insert
+			formulaService.Initialise(resultRow, CustomStrings.RES_ID_COL);
+			daoService.update(resultRow);
+		}
+		
+		return results;
+	}
+	
+	/**
+	 * Prepare the default results for a case, without saving them.
+	 * The resId of the results must be solved after the insert.
+	 * @param report
+	 * @param summInfo
+	 * @param caseReport
+	 * @throws IOException
+	 */
+	public TableRowList prepareDefaultResults(Report report, 
+			SummarizedInfo summInfo, CaseReport caseReport) throws IOException {
+
 		TableRowList results = new TableRowList();
 		
-		AnalyticalResult r = createDefaultResult(report, summInfo, caseReport, 
+		// read the preferences and the predefined result once for all the tests
+		TableRow prefs = getPreferences(summInfo.getCode(CustomStrings.SUMMARIZED_INFO_TYPE));
+		PredefinedResult defaultResult = getPredefinedResult(prefs, summInfo, caseReport);
+		
+		AnalyticalResult r = prepareDefaultResult(prefs, defaultResult, report, summInfo, caseReport, 
 				PredefinedResultHeader.SCREENING,
 				CustomStrings.SCREENING_TEST_CODE);
 		if (r != null)
 			results.add(r);
 		
-		r = createDefaultResult(report, summInfo, caseReport, 
+		r = prepareDefaultResult(prefs, defaultResult, report, summInfo, caseReport, 
 				PredefinedResultHeader.CONFIRMATORY, 
 				CustomStrings.CONFIRMATORY_TEST_CODE);
 		if (r != null)
 			results.add(r);
 		
 		
-		r = createDefaultResult(report, summInfo, caseReport, 
+		r = prepareDefaultResult(prefs, defaultResult, report, summInfo, caseReport, 
 				PredefinedResultHeader.DISCRIMINATORY,
 				CustomStrings.DISCRIMINATORY_TEST_CODE);
 		if (r != null)
 			results.add(r);
 		
-		r = createDefaultResult(report, summInfo, caseReport, 
+		r = prepareDefaultResult(prefs, defaultResult, report, summInfo, caseReport, 
 				PredefinedResultHeader.GENOTYPING_BASE_TERM,
 				CustomStrings.MOLECULAR_TEST_CODE);
 		if (r != null)
@@ -76,6 +120,25 @@ public class PredefinedResultService {
 		return results;
 	}
 	
+	/**
+	 * Get the preferences used for the default results of the record type.
+	 * If a snapshot was given to the service it is used, otherwise they are read.
+	 * @param recordType
+	 * @return the preferences or null if the record type has no preferred test
+	 * @throws IOException
+	 */
+	private TableRow getPreferences(String recordType) throws IOException {
+		
+		// no need to read the preferences
+		if (getPreferenceColumn(recordType, CustomStrings.CONFIRMATORY_TEST_CODE) == null)
+			return null;
+		
+		if (preferences != null)
+			return preferences;
+		
+		return GlobalParentCache.get(CustomStrings.PREFERENCES_SHEET, daoService);
+	}
+	
 	/**
 	 * Check if the preference for the confirmatory test was set for
 	 * the selected type of animal
@@ -84,54 +147,74 @@ public class PredefinedResultService {
 	 * @throws IOException
 	 */
 	public boolean isConfirmatoryTested(String type) throws IOException {
-
-		String confirmatory = "";
+		return isConfirmatoryTested(getPreferences(type), type);
+	}
+	
+	private static boolean isConfirmatoryTested(TableRow prefs, String type) {
 		
-		switch(type) {
-		case CustomStrings.SUMMARIZED_INFO_BSE_TYPE:
-			confirmatory = Relation.getGlobalParent(CustomStrings.PREFERENCES_SHEET, daoService)
-					.getCode(CustomStrings.PREFERENCES_CONFIRMATORY_BSE);
-			break;
-		case CustomStrings.SUMMARIZED_INFO_SCRAPIE_TYPE:
-			confirmatory = Relation.getGlobalParent(CustomStrings.PREFERENCES_SHEET, daoService)
-			.getCode(CustomStrings.PREFERENCES_CONFIRMATORY_SCRAPIE);
-			break;
-		case CustomStrings.SUMMARIZED_INFO_CWD_TYPE:
-			confirmatory = Relation.getGlobalParent(CustomStrings.PREFERENCES_SHEET, daoService)
-			.getCode(CustomStrings.PREFERENCES_CONFIRMATORY_CWD);
-			break;
-		default:
-			break;
-		}
+		String column = getPreferenceColumn(type, CustomStrings.CONFIRMATORY_TEST_CODE);
 		
-		return !confirmatory.isEmpty();
+		if (column == null)
+			return false;
+		
+		return !prefs.getCode(column).isEmpty();
 	}
 	
 	public static String getPreferredTestType(String testType) throws IOException {
 		
-		return Relation.getGlobalParent(CustomStrings.PREFERENCES_SHEET)
+		return GlobalParentCache.get(CustomStrings.PREFERENCES_SHEET)
 				.getCode(testType);
 	}
 
 	public static String getPreferredTestType(String recordType, String testType) 
 			throws IOException {
 		
-		String preferredTestType = null;
+		if (CustomStrings.MOLECULAR_TEST_CODE.equals(testType))
+			return CustomStrings.AN_METH_CODE_GENOTYPING;
+		
+		String column = getPreferenceColumn(recordType, testType);
+		
+		if (column == null)
+			return null;
+		
+		return getPreferredTestType(column);
+	}
+	
+	private static String getPreferredTestType(TableRow prefs, String recordType, String testType) {
+		
+		if (CustomStrings.MOLECULAR_TEST_CODE.equals(testType))
+			return CustomStrings.AN_METH_CODE_GENOTYPING;
+		
+		String column = getPreferenceColumn(recordType, testType);
+		
+		if (column == null)
+			return null;
+		
+		return prefs.getCode(column);
+	}
+	
+	/**
+	 * Get the preferences column which contains the preferred
+	 * test of the selected type for the record type
+	 * @param recordType
+	 * @param testType
+	 * @return the column id or null if there is no preference
+	 */
+	private static String getPreferenceColumn(String recordType, String testType) {
+		
+		String column = null;
 		
 		switch(testType) {
 		case CustomStrings.SCREENING_TEST_CODE:
 			switch(recordType) {
 			case CustomStrings.SUMMARIZED_INFO_BSE_TYPE:
-				preferredTestType = getPreferredTestType( 
-						CustomStrings.PREFERENCES_SCREENING_BSE);
+				column = CustomStrings.PREFERENCES_SCREENING_BSE;
 				break;
 			case CustomStrings.SUMMARIZED_INFO_SCRAPIE_TYPE:
-				preferredTestType = getPreferredTestType( 
-						CustomStrings.PREFERENCES_SCREENING_SCRAPIE);
+				column = CustomStrings.PREFERENCES_SCREENING_SCRAPIE;
 				break;
 			case CustomStrings.SUMMARIZED_INFO_CWD_TYPE:
-				preferredTestType = getPreferredTestType( 
-						CustomStrings.PREFERENCES_SCREENING_CWD);
+				column = CustomStrings.PREFERENCES_SCREENING_CWD;
 				break;
 			default:
 				break;
@@ -140,16 +223,13 @@ public class PredefinedResultService {
 		case CustomStrings.CONFIRMATORY_TEST_CODE:
 			switch(recordType) {
 			case CustomStrings.SUMMARIZED_INFO_BSE_TYPE:
-				preferredTestType = getPreferredTestType( 
-						CustomStrings.PREFERENCES_CONFIRMATORY_BSE);
+				column = CustomStrings.PREFERENCES_CONFIRMATORY_BSE;
 				break;
 			case CustomStrings.SUMMARIZED_INFO_SCRAPIE_TYPE:
-				preferredTestType = getPreferredTestType( 
-						CustomStrings.PREFERENCES_CONFIRMATORY_SCRAPIE);
+				column = CustomStrings.PREFERENCES_CONFIRMATORY_SCRAPIE;
 				break;
 			case CustomStrings.SUMMARIZED_INFO_CWD_TYPE:
-				preferredTestType = getPreferredTestType( 
-						CustomStrings.PREFERENCES_CONFIRMATORY_CWD);
+				column = CustomStrings.PREFERENCES_CONFIRMATORY_CWD;
 				break;
 			default:
 				break;
@@ -158,33 +238,43 @@ public class PredefinedResultService {
 		case CustomStrings.DISCRIMINATORY_TEST_CODE:
 			switch(recordType) {
 			case CustomStrings.SUMMARIZED_INFO_BSE_TYPE:
-				preferredTestType = getPreferredTestType( 
-						CustomStrings.PREFERENCES_DISCRIMINATORY_BSE);
+				column = CustomStrings.PREFERENCES_DISCRIMINATORY_BSE;
 				break;
 			case CustomStrings.SUMMARIZED_INFO_SCRAPIE_TYPE:
-				preferredTestType = getPreferredTestType( 
-						CustomStrings.PREFERENCES_DISCRIMINATORY_SCRAPIE);
+				column = CustomStrings.PREFERENCES_DISCRIMINATORY_SCRAPIE;
 				break;
 			case CustomStrings.SUMMARIZED_INFO_CWD_TYPE:
-				preferredTestType = getPreferredTestType( 
-						CustomStrings.PREFERENCES_DISCRIMINATORY_CWD);
+				column = CustomStrings.PREFERENCES_DISCRIMINATORY_CWD;
 				break;
 			default:
 				break;
 			}
 			break;
-		case CustomStrings.MOLECULAR_TEST_CODE:
-			preferredTestType = CustomStrings.AN_METH_CODE_GENOTYPING;
-			break;
 		default:
 			break;
 		}
 		
-		return preferredTestType;
+		return column;
 	}
 	
 	public PredefinedResult getPredefinedResult(SummarizedInfo summInfo, TableRow caseReport) throws IOException {
 		
+		String recordType = summInfo.getCode(CustomStrings.SUMMARIZED_INFO_TYPE);
+		
+		return getPredefinedResult(getPreferences(recordType), summInfo, caseReport);
+	}
+	
+	private static PredefinedResult getPredefinedResult(TableRow prefs, SummarizedInfo summInfo, 
+			TableRow caseReport) {
+		
+		String recordType = summInfo.getCode(CustomStrings.SUMMARIZED_INFO_TYPE);
+		
+		return getPredefinedResult(summInfo, caseReport, isConfirmatoryTested(prefs, recordType));
+	}
+	
+	private static PredefinedResult getPredefinedResult(SummarizedInfo summInfo, TableRow caseReport, 
+			boolean confirmatoryTested) {
+		
 		// put the predefined value for the param code and the result
 		PredefinedResultList predResList = PredefinedResultList.getAll();
 
@@ -192,7 +282,6 @@ public class PredefinedResultService {
 		String recordType = summInfo.getCode(CustomStrings.SUMMARIZED_INFO_TYPE);
 		String source = summInfo.getCode(CustomStrings.SOURCE_COL);
 		String sampEventAsses = caseReport.getCode(CustomStrings.SAMP_EVENT_ASSES_COL);
-		boolean confirmatoryTested = isConfirmatoryTested(recordType);
 
 		// get the default value
 		PredefinedResult defaultResult = predResList.get(recordType, source, confirmatoryTested, sampEventAsses);
@@ -201,18 +290,19 @@ public class PredefinedResultService {
 	}
 	
 	/**
-	 * Create a default result for the selected test
+	 * Prepare a default result for the selected test, without saving it
+	 * @param prefs
+	 * @param defaultResult
 	 * @param report
 	 * @param summInfo
 	 * @param caseReport
 	 * @param codeCol
 	 * @param testTypeCode
-	 * @throws IOException
 	 */
-	private AnalyticalResult createDefaultResult(Report report, 
-			SummarizedInfo summInfo, TableRow caseReport, 
+	private AnalyticalResult prepareDefaultResult(TableRow prefs, PredefinedResult defaultResult, 
+			Report report, SummarizedInfo summInfo, TableRow caseReport, 
 			PredefinedResultHeader test, 
-			String testTypeCode) throws IOException {
+			String testTypeCode) {
 		
 		AnalyticalResult resultRow = new AnalyticalResult();
 		
@@ -220,18 +310,13 @@ public class PredefinedResultService {
 		Relation.injectParent(report, resultRow);
 		Relation.injectParent(summInfo, resultRow);
 		Relation.injectParent(caseReport, resultRow);
-
-		// get the default value
-		PredefinedResult defaultResult = getPredefinedResult(summInfo, caseReport);
 		
 		// add the param base term and the related default result
 		boolean added = addParamAndResult(resultRow, defaultResult, test);
 		
 		if (added) {
 			
-			// code crack to save the row id for the resId field
-			// otherwise its default value will be corrupted
-			daoService.add(resultRow);
+			// solve the default values once, before the insert
 			formulaService.Initialise(resultRow);
 			
 			resultRow.put(CustomStrings.AN_METH_TYPE_COL, testTypeCode);
@@ -240,7 +325,7 @@ public class PredefinedResultService {
 			String recordType = summInfo.getCode(CustomStrings.SUMMARIZED_INFO_TYPE);
 			
 			// add also the preferred test type
-			String prefTest = getPreferredTestType(recordType, testTypeCode);
+			String prefTest = getPreferredTestType(prefs, recordType, testTypeCode);
 			
 			if (prefTest != null)
 				resultRow.put(CustomStrings.AN_METH_CODE_COL, prefTest);
@@ -250,7 +335,6 @@ public class PredefinedResultService {
 			addParamAndResult(resultRow, defaultResult, test);
 			
 			formulaService.updateFormulas(resultRow);
-			daoService.update(resultRow);
 			
 			return resultRow;
 		}
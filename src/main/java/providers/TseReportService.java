@@ -1,12 +1,14 @@
 package providers;
 
+import java.io.File;
 import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.Stack;
+import java.util.List;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -20,7 +22,10 @@ import formula.FormulaException;
 import formula.FormulaSolver;
 import message.MessageConfigBuilder;
 import report.Report;
+import report_downloader.DecompositionCache;
+import report_downloader.ImportTransaction;
 import report_downloader.TSEFormulaDecomposer;
+import soap.DetailedSOAPException;
 import soap_interface.IGetAck;
 import soap_interface.IGetDataset;
 import soap_interface.IGetDatasetsList;
@@ -33,6 +38,9 @@ import table_skeleton.TableVersion;
 import tse_analytical_result.AnalyticalResult;
 import tse_case_report.CaseReport;
 import tse_config.CustomStrings;
+import tse_database.CopiedLevel;
+import tse_database.DerbyLevelCopier;
+import tse_database.IConnectionProvider;
 import tse_report.TseReport;
 import tse_summarized_information.SummarizedInfo;
 import tse_validator.CaseReportValidator;
@@ -55,12 +63,69 @@ public class TseReportService extends ReportService {
 	private static final Logger LOGGER = LogManager.getLogger(TseReportService.class);
 
 	private IFormulaService formulaService1;
+	private IConnectionProvider connections;
+	private IGetAck getAck1;
+	private IGetDatasetsList<IDataset> getDatasetsList1;
+	private ISendMessage sendMessage1;
+	private IGetDataset getDataset1;
 
 	public TseReportService(IGetAck getAck, IGetDatasetsList<IDataset> getDatasetsList, ISendMessage sendMessage,
 			IGetDataset getDataset, ITableDaoService daoService, IFormulaService formulaService) {
 		super(getAck, getDatasetsList, sendMessage, getDataset, daoService, formulaService);
 
 		this.formulaService1 = formulaService;
+		this.getAck1 = getAck;
+		this.getDatasetsList1 = getDatasetsList;
+		this.sendMessage1 = sendMessage;
+		this.getDataset1 = getDataset;
+	}
+
+	/**
+	 * Create a copy of the service which solves the formulas with its own
+	 * {@link FormulaService}. Formula services are not thread safe, so each
+	 * thread which solves formulas in parallel needs its own copy.
+	 * 
+	 * @return
+	 */
+	public TseReportService copyWithOwnFormulas() {
+		return copyWithOwnFormulas(getDaoService());
+	}
+
+	/**
+	 * Create a copy of the service which uses another dao and solves the formulas
+	 * with its own {@link FormulaService} on that dao
+	 * 
+	 * @param daoService
+	 * @return
+	 */
+	public TseReportService copyWithOwnFormulas(ITableDaoService daoService) {
+
+		TseReportService copy = new TseReportService(getAck1, getDatasetsList1, sendMessage1, getDataset1,
+				daoService, new FormulaService(daoService));
+		copy.setConnectionProvider(connections);
+
+		return copy;
+	}
+
+	/**
+	 * Set the connections to the database used to copy the rows of a report inside
+	 * the database, see {@link #amend(TseReport)}
+	 * 
+	 * @param connections
+	 */
+	public void setConnectionProvider(IConnectionProvider connections) {
+		this.connections = connections;
+	}
+
+	/**
+	 * Download the GDE2 file of a dataset without parsing its rows
+	 * 
+	 * @param datasetId id of the dataset in dcf
+	 * @return the file or null if the dataset has no attachment
+	 * @throws DetailedSOAPException
+	 */
+	public File getDatasetFile(String datasetId) throws DetailedSOAPException {
+		return getDataset1.getDatasetFile(datasetId);
 	}
 
 	/**
@@ -79,8 +144,6 @@ public class TseReportService extends ReportService {
 
 		ArrayList<Formula> formulas = solver.solveAll(XlsxHeader.LABEL_FORMULA.getHeaderName());
 
-		System.out.println(Arrays.asList(formulas));
-
 		for (Formula f : formulas) {
 			if (f.getColumn().getId().equals(CustomStrings.SAMPLE_ID_COL))
 				return f.getSolvedFormula();
@@ -148,8 +211,8 @@ public class TseReportService extends ReportService {
 	 */
 	public static String getOrigSampIdFrom(TableRow result) throws ParseException, FormulaException {
 
-		// decompose param code
-		TSEFormulaDecomposer decomposer = new TSEFormulaDecomposer();
+		// decompose samp info, the same values are repeated for many results
+		TSEFormulaDecomposer decomposer = new TSEFormulaDecomposer(DecompositionCache.getShared());
 
 		HashMap<String, TableCell> rowValues = decomposer.decompose(CustomStrings.SAMP_INFO_COL,
 				result.getCode(CustomStrings.SAMP_INFO_COL));
@@ -271,7 +334,7 @@ public class TseReportService extends ReportService {
 		// add the settings data
 		try {
 
-			TableRow settings = Relation.getGlobalParent(CustomStrings.SETTINGS_SHEET, getDaoService());
+			TableRow settings = GlobalParentCache.get(CustomStrings.SETTINGS_SHEET, getDaoService());
 
 			messageParents.add(settings);
 		} catch (IOException e) {
@@ -293,7 +356,7 @@ public class TseReportService extends ReportService {
 		// add the settings data
 		try {
 
-			TableRow settings = Relation.getGlobalParent(CustomStrings.SETTINGS_SHEET, getDaoService());
+			TableRow settings = GlobalParentCache.get(CustomStrings.SETTINGS_SHEET, getDaoService());
 
 			messageParents.add(settings);
 		} catch (IOException e) {
@@ -307,7 +370,13 @@ public class TseReportService extends ReportService {
 
 	/**
 	 * Create a new version of the report and save it into the database. The version
-	 * is automatically increased
+	 * is automatically increased. The report is copied one level at a time
+	 * (summarized information, cases, results), remapping the foreign keys to the
+	 * copied parents. If a connection provider was set, each level is copied
+	 * inside the database with a single query and all the levels in one
+	 * transaction, otherwise each level is read with a single query and its rows
+	 * are added with the dao. If the copy fails, the new version is removed and
+	 * an {@link IllegalStateException} is thrown.
 	 * 
 	 * @return
 	 */
@@ -316,83 +385,162 @@ public class TseReportService extends ReportService {
 		TseReport amendedReport = new TseReport();
 		amendedReport.copyValues(report);
 
-		Stack<TableRow> elements = new Stack<>();
-		elements.add(amendedReport);
-
-		SummarizedInfo summInfo = null;
-		CaseReport caseReport = null;
-		AnalyticalResult result = null;
-		while (!elements.isEmpty()) {
-
-			TableRow currentElement = elements.pop();
-
-			boolean isReport = currentElement.getSchema().equals(TableSchemaList.getByName(CustomStrings.REPORT_SHEET));
-			boolean isSumm = currentElement.getSchema()
-					.equals(TableSchemaList.getByName(CustomStrings.SUMMARIZED_INFO_SHEET));
-			boolean isCase = currentElement.getSchema()
-					.equals(TableSchemaList.getByName(CustomStrings.CASE_INFO_SHEET));
-			boolean isResult = currentElement.getSchema().equals(TableSchemaList.getByName(CustomStrings.RESULT_SHEET));
-
-			TableSchema childSchema = null;
-			if (isReport) {
-				childSchema = TableSchemaList.getByName(CustomStrings.SUMMARIZED_INFO_SHEET);
-			} else if (isSumm) {
-				childSchema = TableSchemaList.getByName(CustomStrings.CASE_INFO_SHEET);
-			} else if (isCase) {
-				childSchema = TableSchemaList.getByName(CustomStrings.RESULT_SHEET);
-			}
+		// increase version starting from the current
+		String newVersion = TableVersion.createNewVersion(report.getVersion());
 
-			// get the element children (before changing its id)
-			Collection<TableRow> children = null;
+		amendedReport.setVersion(newVersion);
 
-			if (!isResult) {
-				children = getDaoService().getByParentId(childSchema, currentElement.getSchema().getSheetName(),
-						currentElement.getDatabaseId(), true);
-			}
+		// new version is in draft
+		amendedReport.setStatus(RCLDatasetStatus.DRAFT);
 
-			if (isReport) {
-				// get current version
-				String currentVersion = report.getVersion();
+		amendedReport.setId("");
+		amendedReport.setMessageId("");
 
-				// increase version starting from the current
-				String newVersion = TableVersion.createNewVersion(currentVersion);
+		if (connections != null) {
+			amendInDatabase(report, amendedReport);
+			return amendedReport;
+		}
+
+		TableSchema summSchema = TableSchemaList.getByName(CustomStrings.SUMMARIZED_INFO_SHEET);
+		TableSchema caseSchema = TableSchemaList.getByName(CustomStrings.CASE_INFO_SHEET);
+		TableSchema resultSchema = TableSchemaList.getByName(CustomStrings.RESULT_SHEET);
+
+		String summForeignKey = Relation.foreignKeyFromParent(CustomStrings.SUMMARIZED_INFO_SHEET);
+		String caseForeignKey = Relation.foreignKeyFromParent(CustomStrings.CASE_INFO_SHEET);
 
-				amendedReport.setVersion(newVersion);
+		// read all the levels before creating the new version
+		int reportId = report.getDatabaseId();
+		Collection<TableRow> summInfos = getDaoService().getByParentId(summSchema, CustomStrings.REPORT_SHEET,
+				reportId, true);
+		Collection<TableRow> cases = getDaoService().getByParentId(caseSchema, CustomStrings.REPORT_SHEET, reportId,
+				true);
+		Collection<TableRow> results = getDaoService().getByParentId(resultSchema, CustomStrings.REPORT_SHEET,
+				reportId, true);
+
+		ImportTransaction transaction = new ImportTransaction(getDaoService());
+
+		try {
 
-				// new version is in draft
-				amendedReport.setStatus(RCLDatasetStatus.DRAFT);
+			transaction.add(amendedReport);
 
-				amendedReport.setId("");
-				amendedReport.setMessageId("");
-				getDaoService().add(amendedReport);
-			} else if (isSumm) {
-				summInfo = new SummarizedInfo();
-				summInfo.copyValues(currentElement);
+			// old summ info id, new summ info
+			HashMap<Integer, SummarizedInfo> newSummInfos = new HashMap<>();
+
+			for (TableRow row : summInfos) {
+
+				SummarizedInfo summInfo = new SummarizedInfo();
+				summInfo.copyValues(row);
 				Relation.injectParent(amendedReport, summInfo);
-				getDaoService().add(summInfo);
-			} else if (isCase) {
-				caseReport = new CaseReport();
-				caseReport.copyValues(currentElement);
+				transaction.add(summInfo);
+
+				newSummInfos.put(row.getDatabaseId(), summInfo);
+			}
+
+			// old case id, new case
+			HashMap<Integer, CaseReport> newCases = new HashMap<>();
+
+			// old case id, new summ info of the case
+			HashMap<Integer, SummarizedInfo> newCaseSummInfos = new HashMap<>();
+
+			for (TableRow row : cases) {
+
+				SummarizedInfo summInfo = newSummInfos.get(row.getNumCode(summForeignKey));
+
+				if (summInfo == null) {
+					LOGGER.warn("Case with database id=" + row.getDatabaseId()
+							+ " has no summarized information, it is not copied");
+					continue;
+				}
+
+				CaseReport caseReport = new CaseReport();
+				caseReport.copyValues(row);
 				Relation.injectParent(amendedReport, caseReport);
 				Relation.injectParent(summInfo, caseReport);
-				getDaoService().add(caseReport);
-			} else if (isResult) {
-				result = new AnalyticalResult();
-				result.copyValues(currentElement);
+				transaction.add(caseReport);
+
+				newCases.put(row.getDatabaseId(), caseReport);
+				newCaseSummInfos.put(row.getDatabaseId(), summInfo);
+			}
+
+			for (TableRow row : results) {
+
+				CaseReport caseReport = newCases.get(row.getNumCode(caseForeignKey));
+
+				if (caseReport == null) {
+					LOGGER.warn(
+							"Result with database id=" + row.getDatabaseId() + " has no case, it is not copied");
+					continue;
+				}
+
+				// the summarized information is the one of the case (the
+				// foreign key of the new case already refers to the new one)
+				SummarizedInfo summInfo = newCaseSummInfos.get(row.getNumCode(caseForeignKey));
+
+				AnalyticalResult result = new AnalyticalResult();
+				result.copyValues(row);
 				Relation.injectParent(amendedReport, result);
 				Relation.injectParent(summInfo, result);
 				Relation.injectParent(caseReport, result);
-				getDaoService().add(result);
+				transaction.add(result);
 			}
 
-			// add the children
-			if (!isResult)
-				elements.addAll(children);
+		} catch (RuntimeException e) {
+			LOGGER.error("Cannot amend the report " + report.getSenderId() + ", removing the new version", e);
+			transaction.rollback();
+			throw e;
 		}
 
+		transaction.commit();
+
+		LOGGER.info("Report " + report.getSenderId() + " amended to version " + newVersion + "; aggregated data="
+				+ summInfos.size() + ", cases=" + cases.size() + ", results=" + results.size());
+
 		return amendedReport;
 	}
 
+	/**
+	 * Copy the summarized information, cases and results of the report under its
+	 * new version inside the database
+	 * 
+	 * @param report        the current version
+	 * @param amendedReport the new version, not saved yet
+	 */
+	private void amendInDatabase(TseReport report, TseReport amendedReport) {
+
+		String reportKey = Relation.foreignKeyFromParent(CustomStrings.REPORT_SHEET);
+		String summKey = Relation.foreignKeyFromParent(CustomStrings.SUMMARIZED_INFO_SHEET);
+		String caseKey = Relation.foreignKeyFromParent(CustomStrings.CASE_INFO_SHEET);
+
+		List<CopiedLevel> levels = new ArrayList<>();
+		levels.add(new CopiedLevel(CustomStrings.SUMMARIZED_INFO_SHEET).addParent(reportKey,
+				CustomStrings.REPORT_SHEET));
+		levels.add(new CopiedLevel(CustomStrings.CASE_INFO_SHEET).addParent(reportKey, CustomStrings.REPORT_SHEET)
+				.addParent(summKey, CustomStrings.SUMMARIZED_INFO_SHEET));
+		levels.add(new CopiedLevel(CustomStrings.RESULT_SHEET).addParent(reportKey, CustomStrings.REPORT_SHEET)
+				.addParent(summKey, CustomStrings.SUMMARIZED_INFO_SHEET)
+				.addParent(caseKey, CustomStrings.CASE_INFO_SHEET));
+
+		// the report is saved by the dao, the levels are copied in one transaction
+		ImportTransaction transaction = new ImportTransaction(getDaoService());
+		transaction.add(amendedReport);
+
+		int[] copied;
+		try (Connection con = connections.getConnection();) {
+			copied = new DerbyLevelCopier(con).copy(CustomStrings.REPORT_SHEET, report.getDatabaseId(),
+					amendedReport.getDatabaseId(), levels);
+		} catch (IOException | SQLException e) {
+			e.printStackTrace();
+			LOGGER.error("Cannot amend the report " + report.getSenderId() + ", removing the new version", e);
+			transaction.rollback();
+			throw new IllegalStateException("Cannot amend the report " + report.getSenderId(), e);
+		}
+
+		transaction.commit();
+
+		LOGGER.info("Report " + report.getSenderId() + " amended to version " + amendedReport.getVersion()
+				+ "; aggregated data=" + copied[0] + ", cases=" + copied[1] + ", results=" + copied[2]);
+	}
+
 	/**
 	 * Create a report from a dataset
 	 * 
@@ -457,7 +605,7 @@ public class TseReportService extends ReportService {
 
 		// add the preferences
 		try {
-			Relation.injectGlobalParent(report, CustomStrings.PREFERENCES_SHEET, getDaoService());
+			GlobalParentCache.inject(report, CustomStrings.PREFERENCES_SHEET, getDaoService());
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -487,23 +635,8 @@ public class TseReportService extends ReportService {
 
 	public void createDefaultRGTCase(Report report, TableRow summInfo) {
 
-		TableSchema caseSchema = TableSchemaList.getByName(CustomStrings.CASE_INFO_SHEET);
-		TableRow resultRow = new TableRow(caseSchema);
-
-		// inject the case parent to the result
-		Relation.injectParent(report, resultRow);
-		Relation.injectParent(summInfo, resultRow);
-
-		formulaService1.Initialise(resultRow);
-
-		// add get the id and update the fields
-		daoService.add(resultRow);
-
-		formulaService1.Initialise(resultRow);
-
-		resultRow.put(CustomStrings.PART_COL, CustomStrings.BLOOD_CODE);
-
-		daoService.update(resultRow);
+		DefaultRowsGenerator generator = new DefaultRowsGenerator(daoService, formulaService1);
+		generator.createCases(report, new SummarizedInfo(summInfo), null);
 	}
 
 	/**
@@ -516,86 +649,37 @@ public class TseReportService extends ReportService {
 	 * @throws IOException
 	 */
 	public void createDefaultCases(Report report, TableRow summInfo) throws IOException {
+		createDefaultCases(report, new SummarizedInfo(summInfo), null);
+	}
 
-		// check cases number
-		int positive = summInfo.getNumLabel(CustomStrings.TOT_SAMPLE_POSITIVE_COL);
-		int inconclusive = summInfo.getNumLabel(CustomStrings.TOT_SAMPLE_INCONCLUSIVE_COL);
-
-		TableSchema resultSchema = TableSchemaList.getByName(CustomStrings.CASE_INFO_SHEET);
-
-		boolean isCervid = summInfo.getCode(CustomStrings.SUMMARIZED_INFO_TYPE)
-				.equals(CustomStrings.SUMMARIZED_INFO_CWD_TYPE);
-
-		// for cervids we need double rows
-		int repeats = isCervid ? 2 : 1;
-
-		// for each inconclusive
-		for (int i = 0; i < inconclusive; ++i) {
-
-			for (int j = 0; j < repeats; ++j) {
-
-				TableRow resultRow = new TableRow(resultSchema);
-
-				// inject the case parent to the result
-				Relation.injectParent(report, resultRow);
-				Relation.injectParent(summInfo, resultRow);
-				formulaService1.Initialise(resultRow);
-
-				// add result
-				daoService.add(resultRow);
-
-				formulaService1.Initialise(resultRow);
-
-				// set assessment as inconclusive
-				TableCell value = new TableCell();
-				value.setCode(CustomStrings.DEFAULT_ASSESS_INC_CASE_CODE);
-				value.setLabel(CustomStrings.DEFAULT_ASSESS_INC_CASE_LABEL);
-				resultRow.put(CustomStrings.SAMP_EVENT_ASSES_COL, value);
-
-				// default always obex
-				resultRow.put(CustomStrings.PART_COL, CustomStrings.OBEX_CODE);
-
-				if (isCervid) {
-					if (j == 0) {
-						resultRow.put(CustomStrings.PART_COL, CustomStrings.OBEX_CODE);
-					} else if (j == 1) {
-						resultRow.put(CustomStrings.PART_COL, CustomStrings.RETROPHARYNGEAL_CODE);
-					}
-				}
-
-				daoService.update(resultRow);
-			}
-		}
-
-		// for each positive
-		for (int i = 0; i < positive; ++i) {
-
-			for (int j = 0; j < repeats; ++j) {
-
-				TableRow resultRow = new TableRow(resultSchema);
-
-				// inject the case parent to the result
-				Relation.injectParent(report, resultRow);
-				Relation.injectParent(summInfo, resultRow);
-				formulaService1.Initialise(resultRow);
-
-				// add get the id and update the fields
-				daoService.add(resultRow);
+	/**
+	 * Create the default cases of the summ info in a single transaction, without
+	 * results
+	 * 
+	 * @param report
+	 * @param summInfo
+	 * @param listener progress listener, can be null
+	 */
+	public void createDefaultCases(Report report, SummarizedInfo summInfo, GenerationProgressListener listener) {
 
-				// default always obex
-				resultRow.put(CustomStrings.PART_COL, CustomStrings.OBEX_CODE);
+		DefaultRowsGenerator generator = new DefaultRowsGenerator(daoService, formulaService1);
+		generator.createCases(report, summInfo, listener);
+	}
 
-				if (isCervid) {
-					if (j == 0) {
-						resultRow.put(CustomStrings.PART_COL, CustomStrings.OBEX_CODE);
-					} else if (j == 1) {
-						resultRow.put(CustomStrings.PART_COL, CustomStrings.RETROPHARYNGEAL_CODE);
-					}
-				}
+	/**
+	 * Create the default cases of the summ info and the predefined results of
+	 * the cases in a single transaction
+	 * 
+	 * @param report
+	 * @param summInfo
+	 * @param listener progress listener, can be null
+	 * @throws IOException
+	 */
+	public void createDefaultCasesAndResults(Report report, SummarizedInfo summInfo,
+			GenerationProgressListener listener) throws IOException {
 
-				daoService.update(resultRow);
-			}
-		}
+		DefaultRowsGenerator generator = new DefaultRowsGenerator(daoService, formulaService1);
+		generator.createCasesAndResults(report, summInfo, listener);
 	}
 
 	public TableRowList createDefaultResults(Report report, SummarizedInfo summInfo, CaseReport caseInfo)
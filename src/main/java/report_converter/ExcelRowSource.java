@@ -0,0 +1,163 @@
+package report_converter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.SAXException;
+
+import report_downloader.DatasetRowSource;
+import table_skeleton.TableRow;
+import tse_config.CustomStrings;
+import xlsx_reader.TableSchema;
+import xlsx_reader.TableSchemaList;
+
+/**
+ * Read the rows of an Excel report directly as dataset rows, without
+ * converting it to xml. Each sheet which contains the param type column is
+ * imported, the other sheets (as the lookup tables) are skipped.
+ * 
+ * @author shahaal
+ *
+ */
+public class ExcelRowSource implements DatasetRowSource {
+
+	private static final Logger LOGGER = LogManager.getLogger(ExcelRowSource.class);
+
+	private File excelFile;
+	private volatile int estimatedRows;
+
+	public ExcelRowSource(File excelFile) {
+		this.excelFile = excelFile;
+		this.estimatedRows = -1;
+	}
+
+	@Override
+	public void read(Handler handler) throws IOException, XMLStreamException, InterruptedException {
+
+		try (OPCPackage pkg = OPCPackage.open(excelFile, PackageAccess.READ)) {
+
+			XSSFReader reader = new XSSFReader(pkg);
+			ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+
+			this.estimatedRows = countRows(reader);
+
+			TableSchema schema = TableSchemaList.getByName(CustomStrings.RESULT_SHEET);
+
+			XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+			while (sheets.hasNext()) {
+
+				try (InputStream sheet = sheets.next()) {
+					ExcelSheetHandler.parse(sheet, strings, new RowReader(sheets.getSheetName(), schema, handler));
+				} catch (SkippedSheetException e) {
+					LOGGER.info("Sheet " + sheets.getSheetName() + " skipped, no " + CustomStrings.PARAM_TYPE_COL
+							+ " column found");
+				}
+			}
+
+		} catch (SAXException e) {
+
+			// interruption of the handler
+			if (e.getException() instanceof InterruptedException)
+				throw (InterruptedException) e.getException();
+
+			throw new IOException(e);
+
+		} catch (OpenXML4JException | ParserConfigurationException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Count the rows declared by all the sheets, headers excluded
+	 * 
+	 * @param reader
+	 * @return the number of rows or -1 if a sheet does not declare them
+	 * @throws IOException
+	 * @throws OpenXML4JException
+	 * @throws XMLStreamException
+	 */
+	private static int countRows(XSSFReader reader) throws IOException, OpenXML4JException, XMLStreamException {
+
+		int count = 0;
+
+		XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+		while (sheets.hasNext()) {
+
+			try (InputStream sheet = sheets.next()) {
+
+				int rows = ExcelSheetHandler.getDeclaredRows(sheet);
+
+				if (rows == -1)
+					return -1;
+
+				count += Math.max(0, rows - 1);
+			}
+		}
+
+		return count;
+	}
+
+	@Override
+	public int getEstimatedRows() {
+		return estimatedRows;
+	}
+
+	/**
+	 * Signal that a sheet does not contain dataset rows
+	 */
+	private static class SkippedSheetException extends SAXException {
+		private static final long serialVersionUID = 1L;
+	}
+
+	/**
+	 * Convert the cells of each row into a dataset row
+	 */
+	private static class RowReader implements ExcelSheetHandler.RowListener {
+
+		private String sheetName;
+		private TableSchema schema;
+		private Handler handler;
+
+		public RowReader(String sheetName, TableSchema schema, Handler handler) {
+			this.sheetName = sheetName;
+			this.schema = schema;
+			this.handler = handler;
+		}
+
+		@Override
+		public void header(List<String> columns) throws SAXException {
+
+			if (!columns.contains(CustomStrings.PARAM_TYPE_COL))
+				throw new SkippedSheetException();
+
+			LOGGER.debug("Importing sheet " + sheetName + " with columns " + columns);
+		}
+
+		@Override
+		public void row(List<String[]> cells) throws SAXException {
+
+			TableRow row = new TableRow(schema);
+
+			for (String[] cell : cells)
+				row.put(cell[0], cell[1]);
+
+			try {
+				handler.handle(row);
+			} catch (InterruptedException e) {
+				throw new SAXException(e);
+			}
+		}
+	}
+}
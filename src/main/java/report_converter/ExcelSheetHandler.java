@@ -0,0 +1,313 @@
+package report_converter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Read the rows of an Excel sheet as a stream of SAX events. The first row
+ * contains the names of the columns, which are resolved only once for the
+ * whole sheet. As in the workbook model, only string, numeric and boolean
+ * cells are read, formulas, errors and blank cells are skipped.
+ * 
+ * @author shahaal
+ *
+ */
+public class ExcelSheetHandler extends DefaultHandler {
+
+	/**
+	 * Receive the rows of the sheet
+	 */
+	public interface RowListener {
+
+		/**
+		 * Called once with the names of the columns
+		 * 
+		 * @param columns names by column index (null if the column has no name)
+		 * @throws SAXException
+		 */
+		public void header(List<String> columns) throws SAXException;
+
+		/**
+		 * Called for each row after the header
+		 * 
+		 * @param cells column name and value of each cell
+		 * @throws SAXException
+		 */
+		public void row(List<String[]> cells) throws SAXException;
+	}
+
+	private ReadOnlySharedStringsTable strings;
+	private RowListener listener;
+
+	private List<String> header;
+	private List<String[]> cells;
+
+	private int rowIndex;
+	private int columnIndex;
+	private String cellType;
+	private boolean formula;
+	private boolean inValue;
+	private StringBuilder value;
+
+	public ExcelSheetHandler(ReadOnlySharedStringsTable strings, RowListener listener) {
+		this.strings = strings;
+		this.listener = listener;
+		this.header = new ArrayList<>();
+		this.cells = new ArrayList<>();
+		this.rowIndex = -1;
+		this.value = new StringBuilder();
+	}
+
+	/**
+	 * Read all the rows of a sheet
+	 * 
+	 * @param sheet    xml stream of the sheet
+	 * @param strings  shared strings of the workbook
+	 * @param listener receives the rows
+	 * @throws IOException
+	 * @throws SAXException
+	 * @throws ParserConfigurationException
+	 */
+	public static void parse(InputStream sheet, ReadOnlySharedStringsTable strings, RowListener listener)
+			throws IOException, SAXException, ParserConfigurationException {
+
+		SAXParserFactory factory = SAXParserFactory.newInstance();
+		factory.setNamespaceAware(true);
+
+		XMLReader sheetParser = factory.newSAXParser().getXMLReader();
+		sheetParser.setContentHandler(new ExcelSheetHandler(strings, listener));
+		sheetParser.parse(new InputSource(sheet));
+	}
+
+	/**
+	 * Get the number of rows declared in the dimension of a sheet (header
+	 * included). Only the beginning of the sheet is read.
+	 * 
+	 * @param sheet xml stream of the sheet
+	 * @return the number of rows or -1 if the dimension is not declared
+	 * @throws XMLStreamException
+	 */
+	public static int getDeclaredRows(InputStream sheet) throws XMLStreamException {
+
+		XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(sheet);
+
+		try {
+			while (reader.hasNext()) {
+
+				if (reader.next() != XMLStreamConstants.START_ELEMENT)
+					continue;
+
+				String name = reader.getLocalName();
+
+				// the dimension is always before the data
+				if (name.equals("sheetData"))
+					return -1;
+
+				if (name.equals("dimension")) {
+
+					String ref = reader.getAttributeValue(null, "ref");
+					int separator = ref == null ? -1 : ref.indexOf(':');
+
+					if (separator == -1)
+						return -1;
+
+					return getRowIndex(ref.substring(separator + 1)) - getRowIndex(ref.substring(0, separator)) + 1;
+				}
+			}
+		} finally {
+			reader.close();
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Get the 0-based column index from a cell reference (e.g. AB12)
+	 * 
+	 * @param ref
+	 * @return
+	 */
+	private static int getColumnIndex(String ref) {
+
+		int column = 0;
+
+		for (int i = 0; i < ref.length(); i++) {
+
+			char c = ref.charAt(i);
+
+			if (c < 'A' || c > 'Z')
+				break;
+
+			column = column * 26 + (c - 'A' + 1);
+		}
+
+		return column - 1;
+	}
+
+	/**
+	 * Get the 0-based row index from a cell reference (e.g. AB12)
+	 * 
+	 * @param ref
+	 * @return
+	 */
+	private static int getRowIndex(String ref) {
+
+		int row = 0;
+
+		for (int i = 0; i < ref.length(); i++) {
+
+			char c = ref.charAt(i);
+
+			if (c >= '0' && c <= '9')
+				row = row * 10 + (c - '0');
+		}
+
+		return row - 1;
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes attributes) {
+
+		switch (localName) {
+		case "row":
+			String r = attributes.getValue("r");
+			rowIndex = r == null ? rowIndex + 1 : Integer.parseInt(r) - 1;
+			columnIndex = -1;
+			cells.clear();
+			break;
+		case "c":
+			String ref = attributes.getValue("r");
+			columnIndex = ref == null ? columnIndex + 1 : getColumnIndex(ref);
+			cellType = attributes.getValue("t");
+			formula = false;
+			value.setLength(0);
+			break;
+		case "f":
+			formula = true;
+			break;
+		case "v":
+		case "t":
+			inValue = true;
+			break;
+		default:
+			break;
+		}
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) {
+		if (inValue)
+			value.append(ch, start, length);
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+
+		switch (localName) {
+		case "v":
+		case "t":
+			inValue = false;
+			break;
+		case "c":
+			endCell();
+			break;
+		case "row":
+			endRow();
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Get the value of the current cell as done by the workbook model
+	 * 
+	 * @return the value or null if the cell is skipped
+	 */
+	private String getCellValue() {
+
+		if (formula)
+			return null;
+
+		String type = cellType == null ? "n" : cellType;
+
+		switch (type) {
+		case "s":
+			if (value.length() == 0)
+				return null;
+			return strings.getItemAt(Integer.parseInt(value.toString())).getString();
+		case "inlineStr":
+		case "str":
+			return value.toString();
+		case "b":
+			if (value.length() == 0)
+				return null;
+			return String.valueOf("1".equals(value.toString()));
+		case "n":
+			if (value.length() == 0)
+				return null;
+			return String.valueOf(Double.parseDouble(value.toString()));
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Save the value of the current cell
+	 * 
+	 * @throws SAXException
+	 */
+	private void endCell() throws SAXException {
+
+		String cellValue = getCellValue();
+
+		if (cellValue == null)
+			return;
+
+		// take the header
+		if (rowIndex == 0) {
+
+			while (header.size() <= columnIndex)
+				header.add(null);
+
+			header.set(columnIndex, cellValue);
+			return;
+		}
+
+		String column = columnIndex < header.size() ? header.get(columnIndex) : null;
+
+		if (column == null)
+			throw new SAXException("No header found for column " + columnIndex + " of row " + rowIndex);
+
+		cells.add(new String[] { column, cellValue });
+	}
+
+	/**
+	 * Pass the current row to the listener
+	 * 
+	 * @throws SAXException
+	 */
+	private void endRow() throws SAXException {
+
+		if (rowIndex == 0)
+			listener.header(header);
+		else
+			listener.row(cells);
+	}
+}
@@ -1,190 +1,169 @@
 package report_converter;
 
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import java.io.*;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.SAXException;
 
 /**
- * Class that parse Excel Spreadsheet to XML.
+ * Class that parse Excel Spreadsheet to XML. The sheets are read as a stream of
+ * SAX events and the xml is written directly into the file, therefore the
+ * memory used does not depend on the number of rows.
  *
  * @author shahaal
  */
 
 public class ExcelXmlConverter {
 
+	private static final Logger LOGGER = LogManager.getLogger(ExcelXmlConverter.class);
+
+	private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>";
+
 	/**
 	 * the method convert an excel file into xml format and save it
 	 * 
 	 * @param excelFile
-	 * @return {@link Boolean}
-	 * @throws ParserConfigurationException
+	 * @return the xml file or null if the excel file does not exist
 	 * @throws IOException
-	 * @throws TransformerException
+	 * @throws OpenXML4JException
+	 * @throws SAXException
+	 * @throws ParserConfigurationException
+	 * @throws XMLStreamException
 	 */
 	public static File convertXExcelToXml(File excelFile)
-			throws ParserConfigurationException, IOException, TransformerException {
+			throws IOException, OpenXML4JException, SAXException, ParserConfigurationException, XMLStreamException {
 
 		// check if the file exists
-		if (excelFile.exists() && excelFile.isFile()) {
-
-			// solve memory leak
-			try (FileInputStream inputStream = new FileInputStream(excelFile);
-					Workbook workbook = new XSSFWorkbook(inputStream)) {
-
-				// create the document instance which will have the xml elements
-				DocumentBuilderFactory documentFactory = DocumentBuilderFactory.newInstance();
-				DocumentBuilder documentBuilder = documentFactory.newDocumentBuilder();
-				Document document = documentBuilder.newDocument();
-
-				// create the root of for the xml message
-				Element root = document.createElement("message");
-				document.appendChild(root);
-
-				// create a sub root for header
-				// Element header = document.createElement("header");
-				// root.appendChild(header);
-				// create sub root for payload
-				Element payload = document.createElement("payload");
-				root.appendChild(payload);
-
-				// create dataset node (which contains the sheet info)
-				Element dataset = document.createElement("dataset");
-				payload.appendChild(dataset);
-
-				/*
-				 * sheet 0 -> AggregatedData sheet 1 -> SampleCases sheet 2 -> AnalyticalResults
-				 * sheet 3 -> LookUp table (?)
-				 */
-
-				// get the total number of sheets
-				int sheetNo = workbook.getNumberOfSheets();
-
-				// iterate for each sheet
-				for (int i = 0; i < sheetNo; i++) {
-
-					// get the sheet at index i
-					Sheet sheet = workbook.getSheetAt(i);
-
-					// create the root of the form based on the sheet's name
-					// Element result = document.createElement(sheet.getSheetName());
-					// dataset.appendChild(result);
-
-					// take the header
-					Row headerRow = sheet.getRow(0);
-
-					int firstRow = sheet.getFirstRowNum() + 1;
-					int lastRow = sheet.getLastRowNum();
-
-					// iterate each row (skip the header
-					for (int j = firstRow; j <= lastRow; j++) {
-
-						// create a sub root for each row
-						Element rowElement = document.createElement("result");
-						dataset.appendChild(rowElement);
-
-						// set the attribute to the rowElement based on the row position
-						// rowElement.setAttribute("id", String.valueOf(j));
-
-						// iterate trough cell in the row
-						for (Cell cell : sheet.getRow(j)) {
-
-							Element el;
-							int cellIndex = cell.getColumnIndex();
-
-							switch (cell.getCellType()) {
-
-							case STRING:
-								// create header element
-								el = document.createElement(headerRow.getCell(cellIndex).getStringCellValue());
-								// append the cell value
-								el.appendChild(document.createTextNode(cell.getStringCellValue()));
-								// append to the parent
-								rowElement.appendChild(el);
-								break;
-
-							case BOOLEAN:
-								// create header elements
-								el = document.createElement(headerRow.getCell(cellIndex).getStringCellValue());
-								// append the cell value
-								el.appendChild(document.createTextNode(String.valueOf(cell.getBooleanCellValue())));
-								// append to the parent
-								rowElement.appendChild(el);
-								break;
-
-							case NUMERIC:
-								// create header elements
-								el = document.createElement(headerRow.getCell(cellIndex).getStringCellValue());
-								// append the cell value
-								el.appendChild(document.createTextNode(String.valueOf(cell.getNumericCellValue())));
-								// append to the parent
-								rowElement.appendChild(el);
-								break;
-
-							default:
-								break;
-							}
-						}
-					}
+		if (!excelFile.exists() || !excelFile.isFile())
+			return null;
 
-				}
+		File xmlFile = new File(excelFile.getAbsolutePath().replace(".xlsx", ".xml"));
+
+		boolean completed = false;
+
+		try (OPCPackage pkg = OPCPackage.open(excelFile, PackageAccess.READ);
+				Writer out = new BufferedWriter(
+						new OutputStreamWriter(new FileOutputStream(xmlFile), StandardCharsets.UTF_8))) {
+
+			XSSFReader reader = new XSSFReader(pkg);
+			ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+
+			// same declaration written by the dom transformer
+			out.write(XML_DECLARATION);
+
+			XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
 
-				// close the buffers
-				workbook.close();
-				inputStream.close();
+			// create the root of for the xml message
+			writer.writeStartElement("message");
 
-				// write the xml to output target file
-				TransformerFactory transformerFactory = TransformerFactory.newInstance();
-				Transformer transformer = transformerFactory.newTransformer();
-				DOMSource domSource = new DOMSource(document);
+			// create sub root for payload
+			writer.writeStartElement("payload");
 
-				// for debugging
-				// StreamResult streamResult = new StreamResult(System.out);
+			// create dataset node (which contains the sheet info)
+			writer.writeStartElement("dataset");
 
-				String xmlPath = excelFile.getAbsolutePath().replace(".xlsx", ".xml");
+			/*
+			 * sheet 0 -> AggregatedData sheet 1 -> SampleCases sheet 2 -> AnalyticalResults
+			 * sheet 3 -> LookUp table (?)
+			 */
 
-				// write to file
-				StreamResult streamResult = new StreamResult(new File(xmlPath));
+			// iterate for each sheet
+			XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+			while (sheets.hasNext()) {
 
-				transformer.transform(domSource, streamResult);
+				try (InputStream sheet = sheets.next()) {
 
-				System.out.println("\nConvertion from xlsx to xml completed!");
+					LOGGER.debug("Converting sheet " + sheets.getSheetName());
 
-				return new File(xmlPath);
+					ExcelSheetHandler.parse(sheet, strings, new ResultWriter(writer));
+				}
 			}
+
+			writer.writeEndElement();
+			writer.writeEndElement();
+			writer.writeEndElement();
+			writer.flush();
+			writer.close();
+
+			completed = true;
+
+		} finally {
+
+			// do not leave half converted files
+			if (!completed && xmlFile.exists() && !xmlFile.delete())
+				LOGGER.error("Cannot delete the partial xml file=" + xmlFile);
 		}
 
-		return null;
+		LOGGER.info("Conversion from xlsx to xml completed: " + xmlFile);
+
+		return xmlFile;
 	}
-	/*
-	 * public static void main(String[] args) {
-	 * 
-	 * // input excel file File excelFile = new File("D:/PortableApps/test.xlsx");
-	 * 
-	 * ExcelXmlConverter converter = new ExcelXmlConverter();
-	 * 
-	 * try {
-	 * 
-	 * if(converter.convertXExcelToXml(excelFile)!=null)
-	 * System.out.println("Excel convertet with success."); else
-	 * System.out.println("Error during Excel conversion. Try again!");
-	 * 
-	 * } catch (ParserConfigurationException | IOException | TransformerException e)
-	 * { // TODO Auto-generated catch block e.printStackTrace(); }
-	 * 
-	 * }
+
+	/**
+	 * Write each row as a result node
 	 */
+	private static class ResultWriter implements ExcelSheetHandler.RowListener {
+
+		private XMLStreamWriter writer;
+
+		public ResultWriter(XMLStreamWriter writer) {
+			this.writer = writer;
+		}
+
+		@Override
+		public void header(List<String> columns) {
+			// the header is used for the names of the nodes
+		}
+
+		@Override
+		public void row(List<String[]> cells) throws SAXException {
+
+			try {
+
+				if (cells.isEmpty()) {
+					writer.writeEmptyElement("result");
+					return;
+				}
+
+				// create a sub root for each row
+				writer.writeStartElement("result");
+
+				for (String[] cell : cells) {
+
+					if (cell[1].isEmpty()) {
+						writer.writeEmptyElement(cell[0]);
+						continue;
+					}
+
+					writer.writeStartElement(cell[0]);
+					writer.writeCharacters(cell[1]);
+					writer.writeEndElement();
+				}
+
+				writer.writeEndElement();
+
+			} catch (XMLStreamException e) {
+				throw new SAXException(e);
+			}
+		}
+	}
 }
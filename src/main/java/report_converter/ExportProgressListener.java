@@ -0,0 +1,19 @@
+package report_converter;
+
+/**
+ * Listener called while a report is exported
+ * 
+ * @author shahaal
+ *
+ */
+public interface ExportProgressListener {
+
+	/**
+	 * Called from the exporting thread
+	 * 
+	 * @param exported number of summarized information exported (with their
+	 *                 cases and results)
+	 * @param total    number of summarized information of the report
+	 */
+	public void progress(int exported, int total);
+}
@@ -0,0 +1,166 @@
+package report_converter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import providers.ITableDaoService;
+import table_skeleton.TableColumn;
+import table_skeleton.TableRow;
+import tse_config.CustomStrings;
+import tse_report.TseReport;
+import xlsx_reader.TableSchema;
+import xlsx_reader.TableSchemaList;
+
+/**
+ * Export a whole report (summarized information, cases and analytical results)
+ * into an Excel file, one sheet for each level. Rows are written with a
+ * streaming workbook which keeps in memory only the last rows of each sheet,
+ * and they are read from the database one summarized information at a time.
+ * The dao of the library has no paged query, so the memory used depends on the
+ * number of summarized information of the report and on the cases and results
+ * of the largest one, not on the size of the whole report.
+ * 
+ * @author shahaal
+ *
+ */
+public class ReportExcelExporter {
+
+	private static final Logger LOGGER = LogManager.getLogger(ReportExcelExporter.class);
+
+	private static final int ROW_WINDOW = 100;
+
+	private ITableDaoService daoService;
+	private TseReport report;
+
+	public ReportExcelExporter(ITableDaoService daoService, TseReport report) {
+		this.daoService = daoService;
+		this.report = report;
+	}
+
+	/**
+	 * Export the report into the file
+	 * 
+	 * @param exportFile
+	 * @param listener   listener of the progress, can be null
+	 * @throws IOException
+	 */
+	public void export(File exportFile, ExportProgressListener listener) throws IOException {
+
+		TableSchema summSchema = TableSchemaList.getByName(CustomStrings.SUMMARIZED_INFO_SHEET);
+		TableSchema caseSchema = TableSchemaList.getByName(CustomStrings.CASE_INFO_SHEET);
+		TableSchema resultSchema = TableSchemaList.getByName(CustomStrings.RESULT_SHEET);
+
+		SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+		workbook.setCompressTempFiles(true);
+
+		try {
+
+			SheetWriter summSheet = new SheetWriter(workbook.createSheet("AggregatedData"));
+			SheetWriter caseSheet = new SheetWriter(workbook.createSheet("SampleCases"));
+			SheetWriter resultSheet = new SheetWriter(workbook.createSheet("AnalyticalResults"));
+
+			Collection<TableRow> summInfos = daoService.getByParentId(summSchema, CustomStrings.REPORT_SHEET,
+					report.getDatabaseId(), true, "desc");
+
+			int exported = 0;
+
+			for (TableRow summInfo : summInfos) {
+
+				summSheet.write(summInfo);
+
+				// read the children of one summarized information at a time
+				for (TableRow caseInfo : daoService.getByParentId(caseSchema, CustomStrings.SUMMARIZED_INFO_SHEET,
+						summInfo.getDatabaseId(), true)) {
+					caseSheet.write(caseInfo);
+				}
+
+				for (TableRow result : daoService.getByParentId(resultSchema, CustomStrings.SUMMARIZED_INFO_SHEET,
+						summInfo.getDatabaseId(), true)) {
+					resultSheet.write(result);
+				}
+
+				exported++;
+
+				if (listener != null)
+					listener.progress(exported, summInfos.size());
+			}
+
+			try (OutputStream out = new FileOutputStream(exportFile)) {
+				workbook.write(out);
+			}
+
+			LOGGER.info("Report " + report.getSenderId() + " exported in " + exportFile + "; aggregated data="
+					+ summSheet.getRowsCount() + ", cases=" + caseSheet.getRowsCount() + ", results="
+					+ resultSheet.getRowsCount());
+
+		} finally {
+
+			// remove the temporary files of the streaming workbook
+			workbook.dispose();
+			workbook.close();
+		}
+	}
+
+	/**
+	 * Write the rows of a level in a sheet. The header is created with the visible
+	 * columns of the first row.
+	 */
+	private static class SheetWriter {
+
+		private Sheet sheet;
+		private List<TableColumn> columns;
+		private int rowsCount;
+
+		public SheetWriter(Sheet sheet) {
+			this.sheet = sheet;
+		}
+
+		/**
+		 * Write the row in the next line of the sheet
+		 * 
+		 * @param row
+		 */
+		public void write(TableRow row) {
+
+			if (columns == null) {
+
+				columns = new ArrayList<>(row.getVisibleColumns());
+
+				Row header = sheet.createRow(0);
+				for (int i = 0; i < columns.size(); i++) {
+					header.createCell(i).setCellValue(columns.get(i).getLabel());
+				}
+			}
+
+			Row excelRow = sheet.createRow(++rowsCount);
+
+			for (int i = 0; i < columns.size(); i++) {
+
+				String id = columns.get(i).getId();
+				String value = row.getLabel(id);
+
+				// use the code if no label is present
+				if (value == null || value.isEmpty())
+					value = row.getCode(id);
+
+				if (value != null && !value.isEmpty())
+					excelRow.createCell(i).setCellValue(value);
+			}
+		}
+
+		public int getRowsCount() {
+			return rowsCount;
+		}
+	}
+}
@@ -0,0 +1,245 @@
+package report_downloader;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import formula.FormulaException;
+import table_skeleton.TableRow;
+
+/**
+ * Pipeline used to import a dataset without keeping all its rows in memory. A
+ * reader thread reads the rows from the source and submits them to a pool of
+ * workers, which decode them. The decoded rows are returned by {@link #next()}
+ * in the same order of the file, so that a single thread can save them in the
+ * database while the next rows are still being read and decoded. The queue of
+ * rows in progress is bounded, so the reader waits if the writer is slower.
+ * 
+ * @author shahaal
+ *
+ * @param <T> type of the decoded rows
+ */
+public class DatasetImportPipeline<T> implements Closeable {
+
+	private static final Logger LOGGER = LogManager.getLogger(DatasetImportPipeline.class);
+
+	private static final int QUEUE_CAPACITY = 64;
+
+	/**
+	 * Decode a row of the dataset. It is called by the worker threads, therefore
+	 * it should not access the database.
+	 */
+	public interface Decoder<T> {
+		public T decode(TableRow row) throws FormulaException, ParseException;
+	}
+
+	private DatasetRowSource source;
+	private Decoder<T> decoder;
+	private ExecutorService workers;
+	private BlockingQueue<Future<T>> decoded;
+	private Thread readerThread;
+
+	/**
+	 * Start reading and decoding the rows of the dataset file
+	 * 
+	 * @param datasetFile GDE2 xml file
+	 * @param decoder     decoder of the rows
+	 */
+	public DatasetImportPipeline(File datasetFile, Decoder<T> decoder) {
+		this(getXmlSource(datasetFile), decoder);
+	}
+
+	/**
+	 * Start reading and decoding the rows of the source
+	 * 
+	 * @param source  source of the rows
+	 * @param decoder decoder of the rows
+	 */
+	public DatasetImportPipeline(DatasetRowSource source, Decoder<T> decoder) {
+		this(source, decoder, Math.max(1, Runtime.getRuntime().availableProcessors() - 1), QUEUE_CAPACITY);
+	}
+
+	/**
+	 * Start reading and decoding the rows of the source
+	 * 
+	 * @param source     source of the rows
+	 * @param decoder    decoder of the rows
+	 * @param workersNum number of threads which decode the rows
+	 * @param capacity   maximum number of rows in progress
+	 */
+	public DatasetImportPipeline(DatasetRowSource source, Decoder<T> decoder, int workersNum, int capacity) {
+
+		this.source = source;
+		this.decoder = decoder;
+		this.decoded = new ArrayBlockingQueue<>(capacity);
+
+		this.workers = Executors.newFixedThreadPool(workersNum, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "dataset-decoder");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		this.readerThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				read();
+			}
+		}, "dataset-reader");
+
+		this.readerThread.setDaemon(true);
+		this.readerThread.start();
+	}
+
+	/**
+	 * Get the source of the rows of a GDE2 xml file
+	 * 
+	 * @param datasetFile
+	 * @return
+	 */
+	public static DatasetRowSource getXmlSource(final File datasetFile) {
+
+		return new DatasetRowSource() {
+
+			@Override
+			public void read(Handler handler) throws IOException, XMLStreamException, InterruptedException {
+
+				try (DatasetRowReader reader = new DatasetRowReader(datasetFile)) {
+
+					TableRow row;
+					while ((row = reader.next()) != null) {
+						handler.handle(row);
+					}
+				}
+			}
+
+			@Override
+			public int getEstimatedRows() {
+				return -1;
+			}
+		};
+	}
+
+	/**
+	 * Read all the rows of the source and submit them to the workers
+	 */
+	private void read() {
+
+		try {
+
+			source.read(new DatasetRowSource.Handler() {
+
+				@Override
+				public void handle(TableRow row) throws InterruptedException {
+
+					if (Thread.currentThread().isInterrupted())
+						throw new InterruptedException();
+
+					decoded.put(workers.submit(new DecodeTask(row)));
+				}
+			});
+
+			// null marks the end of the dataset
+			decoded.put(CompletableFuture.completedFuture((T) null));
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException | XMLStreamException | RuntimeException e) {
+
+			LOGGER.error("Cannot read the dataset rows", e);
+
+			// forward the error to the writer
+			CompletableFuture<T> failed = new CompletableFuture<>();
+			failed.completeExceptionally(e);
+
+			try {
+				decoded.put(failed);
+			} catch (InterruptedException e1) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Get the next decoded row, waiting if it is not ready yet
+	 * 
+	 * @return the decoded row or null if all the rows were returned
+	 * @throws FormulaException
+	 * @throws ParseException
+	 * @throws XMLStreamException
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public T next() throws FormulaException, ParseException, XMLStreamException, IOException, InterruptedException {
+
+		Future<T> future = decoded.take();
+
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+
+			Throwable cause = e.getCause();
+
+			if (cause instanceof FormulaException)
+				throw (FormulaException) cause;
+			if (cause instanceof ParseException)
+				throw (ParseException) cause;
+			if (cause instanceof XMLStreamException)
+				throw (XMLStreamException) cause;
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Stop reading and decoding the rows
+	 */
+	@Override
+	public void close() {
+
+		readerThread.interrupt();
+
+		// unblock the reader if it is waiting for space
+		decoded.clear();
+
+		workers.shutdownNow();
+	}
+
+	/**
+	 * Decode a single row in a worker thread
+	 */
+	private class DecodeTask implements Callable<T> {
+
+		private TableRow row;
+
+		public DecodeTask(TableRow row) {
+			this.row = row;
+		}
+
+		@Override
+		public T call() throws FormulaException, ParseException {
+			return decoder.decode(row);
+		}
+	}
+}
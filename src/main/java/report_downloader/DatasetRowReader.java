@@ -0,0 +1,143 @@
+package report_downloader;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import table_skeleton.TableRow;
+import tse_config.CustomStrings;
+import xlsx_reader.TableSchema;
+import xlsx_reader.TableSchemaList;
+
+/**
+ * Read the rows of a dataset from a GDE2 xml file one at a time, without
+ * loading the whole file in memory. Each {@code result} node is converted into
+ * a row of the analytical results schema, using the name of its children as
+ * column ids.
+ * 
+ * @author shahaal
+ *
+ */
+public class DatasetRowReader implements Closeable {
+
+	private static final String RESULT_NODE = "result";
+	private static final String SENDER_DATASET_ID_NODE = "senderDatasetId";
+
+	private InputStream input;
+	private XMLStreamReader reader;
+	private TableSchema schema;
+
+	/**
+	 * Open the dataset file
+	 * 
+	 * @param datasetFile GDE2 xml file
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 */
+	public DatasetRowReader(File datasetFile) throws IOException, XMLStreamException {
+
+		this.input = new BufferedInputStream(new FileInputStream(datasetFile));
+
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+		try {
+			this.reader = factory.createXMLStreamReader(input);
+		} catch (XMLStreamException e) {
+			input.close();
+			throw e;
+		}
+
+		this.schema = TableSchemaList.getByName(CustomStrings.RESULT_SHEET);
+	}
+
+	/**
+	 * Read the next row of the dataset
+	 * 
+	 * @return the row or null if there are no more rows
+	 * @throws XMLStreamException
+	 */
+	public TableRow next() throws XMLStreamException {
+
+		while (reader.hasNext()) {
+
+			if (reader.next() == XMLStreamConstants.START_ELEMENT && RESULT_NODE.equals(reader.getLocalName()))
+				return readRow();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Read the sender dataset id of the operation of the file, stopping at the
+	 * first row of the dataset
+	 * 
+	 * @return the sender dataset id or null if it is not declared before the rows
+	 * @throws XMLStreamException
+	 */
+	public String readSenderDatasetId() throws XMLStreamException {
+
+		while (reader.hasNext()) {
+
+			if (reader.next() != XMLStreamConstants.START_ELEMENT)
+				continue;
+
+			if (SENDER_DATASET_ID_NODE.equals(reader.getLocalName()))
+				return reader.getElementText().trim();
+
+			if (RESULT_NODE.equals(reader.getLocalName()))
+				return null;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Read the fields of the current result node
+	 * 
+	 * @return
+	 * @throws XMLStreamException
+	 */
+	private TableRow readRow() throws XMLStreamException {
+
+		TableRow row = new TableRow(schema);
+
+		while (reader.hasNext()) {
+
+			int event = reader.next();
+
+			if (event == XMLStreamConstants.START_ELEMENT) {
+
+				// the cursor is moved to the end of the field
+				String field = reader.getLocalName();
+				row.put(field, reader.getElementText());
+
+			} else if (event == XMLStreamConstants.END_ELEMENT && RESULT_NODE.equals(reader.getLocalName())) {
+				break;
+			}
+		}
+
+		return row;
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		try {
+			reader.close();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		} finally {
+			input.close();
+		}
+	}
+}
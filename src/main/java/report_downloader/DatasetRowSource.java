@@ -0,0 +1,42 @@
+package report_downloader;
+
+import java.io.IOException;
+
+import javax.xml.stream.XMLStreamException;
+
+import table_skeleton.TableRow;
+
+/**
+ * Source of the rows of a dataset which are imported by the
+ * {@link DatasetImportPipeline}. Rows are passed one at a time to the handler,
+ * in the order in which they are read.
+ * 
+ * @author shahaal
+ *
+ */
+public interface DatasetRowSource {
+
+	/**
+	 * Receive the rows read by the source
+	 */
+	public interface Handler {
+		public void handle(TableRow row) throws InterruptedException;
+	}
+
+	/**
+	 * Read all the rows of the source
+	 * 
+	 * @param handler receives the rows
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 * @throws InterruptedException
+	 */
+	public void read(Handler handler) throws IOException, XMLStreamException, InterruptedException;
+
+	/**
+	 * Get the expected number of rows, used to report the progress
+	 * 
+	 * @return the number of rows or -1 if not known
+	 */
+	public int getEstimatedRows();
+}
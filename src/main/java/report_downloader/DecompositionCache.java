@@ -0,0 +1,192 @@
+package report_downloader;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import table_skeleton.TableCell;
+
+/**
+ * Bounded cache of the decomposed compound values, with least recently used
+ * eviction. In a dataset the same compound values (as the sampMatCode of a
+ * context or the alleles of the param code) are repeated for many rows, so
+ * they are parsed only once. The cached values are immutable: each time they
+ * are requested new cells are created, since cells are owned by the rows.
+ * 
+ * @author shahaal
+ *
+ */
+public class DecompositionCache {
+
+	private static final int DEFAULT_CAPACITY = 4096;
+
+	private static DecompositionCache shared;
+
+	private final LinkedHashMap<Key, Values> entries;
+	private long hits;
+	private long misses;
+
+	/**
+	 * Create a cache which keeps at most the given number of values
+	 * 
+	 * @param capacity
+	 */
+	public DecompositionCache(final int capacity) {
+		this.entries = new LinkedHashMap<Key, Values>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Values> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Get the cache shared by the import and the report service
+	 * 
+	 * @return
+	 */
+	public static synchronized DecompositionCache getShared() {
+
+		if (shared == null)
+			shared = new DecompositionCache(DEFAULT_CAPACITY);
+
+		return shared;
+	}
+
+	/**
+	 * Get the decomposed values of a compound value
+	 * 
+	 * @param plan  plan used to decompose the value
+	 * @param value the raw value
+	 * @return the values or null if not cached
+	 */
+	public synchronized Values get(DecompositionPlan plan, String value) {
+
+		Values values = entries.get(new Key(plan, value));
+
+		if (values == null)
+			misses++;
+		else
+			hits++;
+
+		return values;
+	}
+
+	/**
+	 * Save the decomposed values of a compound value
+	 * 
+	 * @param plan   plan used to decompose the value
+	 * @param value  the raw value
+	 * @param values the decomposed cells, which are copied
+	 * @return the cached values
+	 */
+	public synchronized Values put(DecompositionPlan plan, String value, Map<String, TableCell> values) {
+
+		Values cached = new Values(values);
+
+		entries.put(new Key(plan, value), cached);
+
+		return cached;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Remove all the values and reset the statistics
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		hits = 0;
+		misses = 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "DecompositionCache [size=" + entries.size() + ", hits=" + hits + ", misses=" + misses + "]";
+	}
+
+	/**
+	 * Immutable decomposed values of a compound value
+	 */
+	public static class Values {
+
+		private final String[] columns;
+		private final String[] codes;
+		private final String[] labels;
+
+		private Values(Map<String, TableCell> values) {
+
+			this.columns = new String[values.size()];
+			this.codes = new String[values.size()];
+			this.labels = new String[values.size()];
+
+			int i = 0;
+			for (Map.Entry<String, TableCell> entry : values.entrySet()) {
+				columns[i] = entry.getKey();
+				codes[i] = entry.getValue().getCode();
+				labels[i] = entry.getValue().getLabel();
+				i++;
+			}
+		}
+
+		/**
+		 * Put new cells with the decomposed values in the target
+		 * 
+		 * @param target
+		 */
+		public void copyTo(Map<String, TableCell> target) {
+
+			for (int i = 0; i < columns.length; i++) {
+
+				TableCell colVal = new TableCell();
+				colVal.setCode(codes[i]);
+
+				if (labels[i] != null)
+					colVal.setLabel(labels[i]);
+
+				target.put(columns[i], colVal);
+			}
+		}
+	}
+
+	/**
+	 * Key of the cache, plans are compared by identity since they are created once
+	 */
+	private static class Key {
+
+		private final DecompositionPlan plan;
+		private final String value;
+
+		public Key(DecompositionPlan plan, String value) {
+			this.plan = plan;
+			this.value = value;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+
+			if (!(obj instanceof Key))
+				return false;
+
+			Key other = (Key) obj;
+
+			return plan == other.plan && value.equals(other.value);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(plan) + value.hashCode();
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package report_downloader;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Describe how the value of a compound column is decomposed into the columns
+ * of a row: the format of the value and the additional columns in which some
+ * attributes are copied. Plans are immutable and can be shared among threads,
+ * therefore they are created once and reused for all the rows.
+ * 
+ * @author shahaal
+ *
+ */
+public class DecompositionPlan {
+
+	/**
+	 * Format of the compound value
+	 */
+	public enum Format {
+		NAME_VALUE, // attr1=value1$attr2=value2
+		FOODEX_HEADERS, // base#F01.value1$F02.value2
+		ALLELES, // base#allele=value1$allele=value2
+		NONE // not decomposed
+	}
+
+	private final Format format;
+	private final Map<String, String> aliases; // attribute id, additional column
+
+	public DecompositionPlan(Format format) {
+		this(format, Collections.<String, String>emptyMap());
+	}
+
+	private DecompositionPlan(Format format, Map<String, String> aliases) {
+		this.format = format;
+		this.aliases = aliases;
+	}
+
+	/**
+	 * Get a new plan which copies also the value of an attribute into another
+	 * column
+	 * 
+	 * @param attributeId id of the attribute
+	 * @param columnId    id of the column which will contain also the attribute
+	 *                    value
+	 * @return the new plan
+	 */
+	public DecompositionPlan withAlias(String attributeId, String columnId) {
+
+		HashMap<String, String> newAliases = new HashMap<>(aliases);
+		newAliases.put(attributeId, columnId);
+
+		return new DecompositionPlan(format, Collections.unmodifiableMap(newAliases));
+	}
+
+	public Format getFormat() {
+		return format;
+	}
+
+	/**
+	 * Get the additional column of an attribute
+	 * 
+	 * @param attributeId
+	 * @return the column id or null if the attribute is not copied
+	 */
+	public String getAlias(String attributeId) {
+		return aliases.get(attributeId);
+	}
+}
@@ -0,0 +1,18 @@
+package report_downloader;
+
+/**
+ * Listener called while the rows of a dataset are imported
+ * 
+ * @author shahaal
+ *
+ */
+public interface ImportProgressListener {
+
+	/**
+	 * Called periodically from the importing thread
+	 * 
+	 * @param importedRows  number of rows saved in the database
+	 * @param estimatedRows expected number of rows, -1 if not known
+	 */
+	public void progress(int importedRows, int estimatedRows);
+}
@@ -0,0 +1,128 @@
+package report_downloader;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import providers.ITableDaoService;
+import table_skeleton.TableRow;
+import xlsx_reader.TableSchema;
+
+/**
+ * Keep track of the rows inserted in the database while importing a dataset
+ * version, in order to remove them if the import fails. Rows are removed in
+ * the reverse order of insertion, so children are always removed before their
+ * parents. Only the schema and the id of the rows are kept, in order to not
+ * keep in memory the whole dataset.
+ * 
+ * The rows are inserted through the dao service of the library, which opens
+ * and commits its own connection for each row and builds the insert from the
+ * table schema, so the inserts cannot join a caller transaction. Removing the
+ * inserted rows is the rollback available with that dao.
+ * 
+ * @author shahaal
+ *
+ */
+public class ImportTransaction {
+
+	private static final Logger LOGGER = LogManager.getLogger(ImportTransaction.class);
+
+	private ITableDaoService daoService;
+	private Deque<AddedRow> added;
+
+	public ImportTransaction(ITableDaoService daoService) {
+		this.daoService = daoService;
+		this.added = new ArrayDeque<>();
+	}
+
+	/**
+	 * Insert a row in the database as part of the transaction
+	 * 
+	 * @param row
+	 * @return the database id of the row
+	 * @throws IllegalStateException if the row could not be inserted
+	 */
+	public int add(TableRow row) {
+
+		int id = daoService.add(row);
+
+		// the dao does not throw if the insert fails
+		if (id == -1)
+			throw new IllegalStateException("Cannot insert the row in " + row.getSchema().getSheetName());
+
+		added.push(new AddedRow(row.getSchema(), id));
+
+		return id;
+	}
+
+	/**
+	 * Get a savepoint which can be used to undo only the rows inserted after it
+	 * 
+	 * @return
+	 */
+	public int savepoint() {
+		return added.size();
+	}
+
+	/**
+	 * Remove all the rows inserted after the savepoint. If a row cannot be
+	 * removed the others are removed anyway.
+	 * 
+	 * @param savepoint
+	 * @return the number of rows which could not be removed
+	 */
+	public int rollback(int savepoint) {
+
+		LOGGER.info("Rolling back " + (added.size() - savepoint) + " imported rows");
+
+		int failed = 0;
+
+		while (added.size() > savepoint) {
+
+			AddedRow row = added.pop();
+
+			try {
+				daoService.delete(row.schema, row.id);
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+				LOGGER.error("Cannot remove the row id=" + row.id + " of " + row.schema.getSheetName(), e);
+				failed++;
+			}
+		}
+
+		if (failed > 0)
+			LOGGER.error("Rollback incomplete, " + failed + " rows were not removed");
+
+		return failed;
+	}
+
+	/**
+	 * Remove all the rows inserted in the transaction
+	 */
+	public int rollback() {
+		return rollback(0);
+	}
+
+	/**
+	 * Confirm the inserted rows
+	 */
+	public void commit() {
+		added.clear();
+	}
+
+	/**
+	 * Reference to an inserted row
+	 */
+	private static class AddedRow {
+
+		private TableSchema schema;
+		private int id;
+
+		public AddedRow(TableSchema schema, int id) {
+			this.schema = schema;
+			this.id = id;
+		}
+	}
+}
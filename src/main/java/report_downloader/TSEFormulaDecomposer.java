@@ -1,137 +1,311 @@
 package report_downloader;
 
 import java.text.ParseException;
-import java.util.Collection;
 import java.util.HashMap;
+import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import formula.AttributeElement;
-import formula.FoodexElement;
 import formula.FormulaDecomposer;
+import report_downloader.DecompositionPlan.Format;
 import table_skeleton.TableCell;
 import tse_config.CustomStrings;
 
 public class TSEFormulaDecomposer extends FormulaDecomposer {
 
 	private static final Logger LOGGER = LogManager.getLogger(TSEFormulaDecomposer.class);
-	
+
+	private static final char BASE_TERM_SEPARATOR = '#';
+	private static final char ATTRIBUTE_SEPARATOR = '$';
+	private static final char NAME_VALUE_SEPARATOR = '=';
+	private static final char HEADER_VALUE_SEPARATOR = '.';
+	private static final String ALLELE_ATTRIBUTE = "allele";
+
+	private static final DecompositionPlan NOT_DECOMPOSED = new DecompositionPlan(Format.NONE);
+	private static final Map<String, DecompositionPlan> PLANS = createPlans();
+
+	private DecompositionCache cache;
+
+	public TSEFormulaDecomposer() {
+		this(null);
+	}
+
+	/**
+	 * Create a decomposer which reuses the values already decomposed
+	 * 
+	 * @param cache cache of the decomposed values, null to disable it
+	 */
+	public TSEFormulaDecomposer(DecompositionCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Create the decomposition plans of the compound columns
+	 * 
+	 * @return
+	 */
+	private static Map<String, DecompositionPlan> createPlans() {
+
+		HashMap<String, DecompositionPlan> plans = new HashMap<>();
+
+		plans.put(CustomStrings.SAMP_MAT_CODE_COL, new DecompositionPlan(Format.FOODEX_HEADERS));
+
+		DecompositionPlan simple = new DecompositionPlan(Format.NAME_VALUE);
+		for (String columnId : new String[] { CustomStrings.PROG_INFO_COL, CustomStrings.EVAL_INFO_COL,
+				CustomStrings.SAMP_UNIT_IDS_COL, CustomStrings.SAMP_EVENT_INFO_COL, CustomStrings.SAMP_MAT_INFO_COL,
+				CustomStrings.SAMP_INFO_COL }) {
+			plans.put(columnId, simple);
+		}
+
+		plans.put(CustomStrings.PARAM_CODE_COL, new DecompositionPlan(Format.ALLELES));
+
+		return plans;
+	}
+
+	/**
+	 * Get the decomposition plan of a column
+	 * 
+	 * @param columnId
+	 * @return the plan (with {@link Format#NONE} if the column is not compound)
+	 */
+	public static DecompositionPlan getPlan(String columnId) {
+		DecompositionPlan plan = PLANS.get(columnId);
+		return plan == null ? NOT_DECOMPOSED : plan;
+	}
+
+	/**
+	 * Decompose the value of a column
+	 * 
+	 * @param columnId
+	 * @param rowValue
+	 * @return the decomposed values
+	 * @throws ParseException
+	 */
 	public HashMap<String, TableCell> decompose(String columnId, String rowValue) throws ParseException {
 
 		HashMap<String, TableCell> values = new HashMap<>();
 
-		if (rowValue.isEmpty())
-			return values;
-		
-		switch(columnId) {
-		case CustomStrings.SAMP_MAT_CODE_COL:
-			values = splitFoodexWithHeaders(rowValue);
+		decompose(getPlan(columnId), rowValue, values);
+
+		return values;
+	}
+
+	/**
+	 * Decompose the value of a column and put the values in the target
+	 * 
+	 * @param columnId
+	 * @param rowValue
+	 * @param target   map which receives the decomposed values
+	 * @throws ParseException
+	 */
+	public void decompose(String columnId, String rowValue, Map<String, TableCell> target) throws ParseException {
+		decompose(getPlan(columnId), rowValue, target);
+	}
+
+	/**
+	 * Decompose a value following the plan and put the values in the target. The
+	 * value is scanned only once and no intermediate collection is created. If a
+	 * cache is used, the value is scanned only the first time.
+	 * 
+	 * @param plan
+	 * @param rowValue
+	 * @param target   map which receives the decomposed values
+	 * @throws ParseException
+	 */
+	public void decompose(DecompositionPlan plan, String rowValue, Map<String, TableCell> target)
+			throws ParseException {
+
+		if (rowValue.isEmpty() || plan.getFormat() == Format.NONE)
+			return;
+
+		if (cache == null) {
+			scan(plan, rowValue, target);
+			return;
+		}
+
+		DecompositionCache.Values values = cache.get(plan, rowValue);
+
+		if (values == null) {
+			HashMap<String, TableCell> scanned = new HashMap<>();
+			scan(plan, rowValue, scanned);
+			values = cache.put(plan, rowValue, scanned);
+		}
+
+		values.copyTo(target);
+	}
+
+	/**
+	 * Scan the value following the plan
+	 * 
+	 * @param plan
+	 * @param rowValue
+	 * @param target
+	 * @throws ParseException
+	 */
+	private static void scan(DecompositionPlan plan, String rowValue, Map<String, TableCell> target)
+			throws ParseException {
+
+		switch (plan.getFormat()) {
+		case NAME_VALUE:
+			scan(plan, rowValue, 0, NAME_VALUE_SEPARATOR, target);
 			break;
-		case CustomStrings.PROG_INFO_COL:
-		case CustomStrings.EVAL_INFO_COL:
-		case CustomStrings.SAMP_UNIT_IDS_COL:
-		case CustomStrings.SAMP_EVENT_INFO_COL:
-		case CustomStrings.SAMP_MAT_INFO_COL:
-		case CustomStrings.SAMP_INFO_COL:
-			values = splitSimple(rowValue);
+		case FOODEX_HEADERS:
+			scanFacets(plan, rowValue, HEADER_VALUE_SEPARATOR, target);
 			break;
-		case CustomStrings.PARAM_CODE_COL:
-			values = splitAlleles(rowValue);
+		case ALLELES:
+			scanFacets(plan, rowValue, NAME_VALUE_SEPARATOR, target);
 			break;
 		default:
 			break;
 		}
-		
-		return values;
 	}
-	
+
 	/**
-	 * Split a simple attribute field with names
+	 * Scan the facets of a foodex code, skipping its base term
+	 * 
+	 * @param plan
 	 * @param value
-	 * @return
-	 * @throws ParseException 
+	 * @param valueSeparator
+	 * @param target
+	 * @throws ParseException
 	 */
-	private HashMap<String, TableCell> splitSimple(String value) throws ParseException {
-	
-		HashMap<String, TableCell> rowValues = new HashMap<>();
-		
-		Collection<AttributeElement> list = this.split(value);
-
-		for (AttributeElement elem : list) {
-			
-			TableCell colVal = new TableCell();
-			colVal.setCode(elem.getValue());
-			colVal.setLabel(elem.getValue());
-			
-			rowValues.put(elem.getId(), colVal);
-		}
+	private static void scanFacets(DecompositionPlan plan, String value, char valueSeparator,
+			Map<String, TableCell> target) throws ParseException {
 
-		return rowValues;
-	}
-	
-	private HashMap<String, TableCell> splitAlleles(String value) throws ParseException {
-		
-		FoodexElement foodexCode = this.splitFoodex(value, 
-				AttributeIdentifier.NAME_VALUE);
-		
-		HashMap<String, TableCell> rowValues = new HashMap<>();
-		
-		int count = 0;
-		for (AttributeElement facet : foodexCode.getFacetList()) {
-			
-			if (facet.getId().equals("allele")) {
-				
-				TableCell colVal = new TableCell();
-				colVal.setCode(facet.getValue());
-				
-				String colId = count == 0 ? CustomStrings.ALLELE_1_COL : CustomStrings.ALLELE_2_COL;
-				
-				// save value with id the attribute id
-				rowValues.put(colId, colVal);
-				
-				count++;
-			}
-		}
-		
-		return rowValues;
+		int baseTermEnd = value.indexOf(BASE_TERM_SEPARATOR);
+
+		// no facets
+		if (baseTermEnd == -1)
+			return;
+
+		scan(plan, value, baseTermEnd + 1, valueSeparator, target);
 	}
-	
+
 	/**
-	 * Split a foodex code with headers and return the row values
-	 * related to them
+	 * Scan the attributes of the value starting from an offset
+	 * 
+	 * @param plan
 	 * @param value
-	 * @return
-	 * @throws ParseException 
+	 * @param offset         first char of the attributes
+	 * @param valueSeparator char between the attribute id and its value
+	 * @param target
+	 * @throws ParseException
 	 */
-	private HashMap<String, TableCell> splitFoodexWithHeaders(String value) throws ParseException {
-		
-		FoodexElement foodexCode = this.splitFoodex(value, 
-				AttributeIdentifier.FACET_HEADER);
-		
-		HashMap<String, TableCell> rowValues = new HashMap<>();
-		
-		for (AttributeElement facet : foodexCode.getFacetList()) {
-			
-			String facetHeader = facet.getId();
-			
-			String columnId = getColumnByHeader(facetHeader);
-			
-			if (columnId == null) {
-				LOGGER.error("Not supported facet header " + facetHeader);
+	private static void scan(DecompositionPlan plan, String value, int offset, char valueSeparator,
+			Map<String, TableCell> target) throws ParseException {
+
+		int length = value.length();
+		int start = offset;
+		int separator = -1;
+		int alleles = 0;
+
+		for (int i = offset; i <= length; i++) {
+
+			char c = i < length ? value.charAt(i) : ATTRIBUTE_SEPARATOR;
+
+			if (c == valueSeparator && separator == -1) {
+				separator = i;
 				continue;
 			}
-			
-			TableCell colVal = new TableCell();
-			colVal.setCode(facet.getId() + "." + facet.getValue());  // we want both header and value for code
-			
-			// save the mapping between the row column and the extracted value
-			rowValues.put(columnId, colVal);
+
+			if (c != ATTRIBUTE_SEPARATOR)
+				continue;
+
+			// skip empty attributes
+			if (i > start) {
+
+				if (separator == -1)
+					throw new ParseException("Wrong attribute format in " + value, start);
+
+				String id = value.substring(start, separator);
+
+				switch (plan.getFormat()) {
+				case FOODEX_HEADERS:
+					addFacetHeader(plan, id, value.substring(start, i), target);
+					break;
+				case ALLELES:
+					if (ALLELE_ATTRIBUTE.equals(id)) {
+						addAllele(alleles, value.substring(separator + 1, i), target);
+						alleles++;
+					}
+					break;
+				default:
+					addAttribute(plan, id, value.substring(separator + 1, i), target);
+					break;
+				}
+			}
+
+			start = i + 1;
+			separator = -1;
 		}
-		
-		return rowValues;
 	}
-	
+
+	/**
+	 * Add a simple attribute to the target
+	 * 
+	 * @param plan
+	 * @param id
+	 * @param attrValue
+	 * @param target
+	 */
+	private static void addAttribute(DecompositionPlan plan, String id, String attrValue,
+			Map<String, TableCell> target) {
+
+		TableCell colVal = new TableCell();
+		colVal.setCode(attrValue);
+		colVal.setLabel(attrValue);
+
+		target.put(id, colVal);
+
+		String alias = plan.getAlias(id);
+		if (alias != null)
+			target.put(alias, colVal);
+	}
+
+	/**
+	 * Add an allele to the target
+	 * 
+	 * @param count number of alleles already added
+	 * @param allele
+	 * @param target
+	 */
+	private static void addAllele(int count, String allele, Map<String, TableCell> target) {
+
+		TableCell colVal = new TableCell();
+		colVal.setCode(allele);
+
+		String colId = count == 0 ? CustomStrings.ALLELE_1_COL : CustomStrings.ALLELE_2_COL;
+
+		// save value with id the attribute id
+		target.put(colId, colVal);
+	}
+
+	/**
+	 * Add a facet to the column related to its header
+	 * 
+	 * @param plan
+	 * @param header
+	 * @param facet  the whole facet (header and value)
+	 * @param target
+	 */
+	private static void addFacetHeader(DecompositionPlan plan, String header, String facet,
+			Map<String, TableCell> target) {
+
+		String columnId = getColumnByHeader(header);
+
+		if (columnId == null) {
+			LOGGER.error("Not supported facet header " + header);
+			return;
+		}
+
+		TableCell colVal = new TableCell();
+		colVal.setCode(facet); // we want both header and value for code
+
+		// save the mapping between the row column and the extracted value
+		target.put(columnId, colVal);
+	}
+
 	/**
 	 * get the id of the column of the row schema which contains the
 	 * facet code related to the facet header
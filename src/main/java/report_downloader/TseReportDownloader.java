@@ -35,10 +35,9 @@ import report.ReportDownloaderDialog;
 import session_manager.TSERestoreableWindowDao;
 import soap.DetailedSOAPException;
 import tse_config.CustomStrings;
+import tse_config.PicklistIndex;
 import window_restorer.RestoreableWindow;
 import xml_catalog_reader.Selection;
-import xml_catalog_reader.XmlContents;
-import xml_catalog_reader.XmlLoader;
 
 /**
  * Download a report into the local database.
@@ -94,7 +93,7 @@ public class TseReportDownloader extends ReportDownloaderDialog {
 				String senderId = dataset.getSenderId();
 				String year = "20" + senderId.substring(2, 4);
 				
-				XmlContents contents = XmlLoader.getByPicklistKey(AppPaths.YEARS_LIST);
+				PicklistIndex contents = PicklistIndex.get(AppPaths.YEARS_LIST);
 				
 				if (contents == null) {
 					LOGGER.error("No " + AppPaths.YEARS_LIST + " was found in " + AppPaths.CONFIG_FOLDER);
@@ -129,7 +128,7 @@ public class TseReportDownloader extends ReportDownloaderDialog {
 					month = month.substring(1, 2);
 				}
 				
-				XmlContents contents = XmlLoader.getByPicklistKey(AppPaths.MONTHS_LIST);
+				PicklistIndex contents = PicklistIndex.get(AppPaths.MONTHS_LIST);
 				
 				if (contents == null) {
 					LOGGER.error("No " + AppPaths.MONTHS_LIST + " was found in " + AppPaths.CONFIG_FOLDER);
@@ -1,20 +1,31 @@
 package report_downloader;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 
+import javax.xml.stream.XMLStreamException;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import amend_manager.ReportImporter;
 import dataset.Dataset;
+import dataset.DatasetList;
+import dataset.NoAttachmentException;
+import dataset.Operation;
 import formula.FormulaException;
+import providers.GlobalParentCache;
 import providers.ITableDaoService;
 import providers.TseReportService;
+import report_converter.ExcelRowSource;
+import soap.DetailedSOAPException;
 import table_relations.Relation;
 import table_skeleton.TableCell;
 import table_skeleton.TableRow;
@@ -34,13 +45,27 @@ public class TseReportImporter extends ReportImporter {
 
 	private static final Logger LOGGER = LogManager.getLogger(TseReportImporter.class);
 
+	private static final int PROGRESS_STEP = 100;
+
+	// plans used to extract also the evalCom and the breed of the cases
+	private static final DecompositionPlan EVAL_INFO_PLAN = TSEFormulaDecomposer
+			.getPlan(CustomStrings.EVAL_INFO_COL)
+			.withAlias(CustomStrings.EVAL_COMMENT_BREED_ATTRIBUTE_NAME, CustomStrings.EVAL_COMMENT_COL);
+	private static final DecompositionPlan SAMP_MAT_INFO_PLAN = TSEFormulaDecomposer
+			.getPlan(CustomStrings.SAMP_MAT_INFO_COL)
+			.withAlias(CustomStrings.EVAL_COMMENT_BREED_ATTRIBUTE_NAME, CustomStrings.BREED_COL);
+
 	private TseReportService reportService;
 	private ITableDaoService daoService;
 
 	// temporary variables
 	private TseReport mainReport;
-	private Collection<SummarizedInfo> summInfos;
-	private HashMap<String, TableRow> cases; // caseId, case
+	private ImportTransaction transaction;
+	private HashMap<String, SummarizedInfo> summInfos; // sampId, summInfo
+	private HashMap<String, Integer> caseIds; // sampId, database id of the case
+	private HashMap<String, List<DecodedRow>> pending; // origSampId, rows waiting for their summInfo
+	private ImportProgressListener progressListener;
+	private DatasetList datasetVersions;
 
 	/**
 	 * Download and import a dataset, managing also all the amendments
@@ -53,8 +78,8 @@ public class TseReportImporter extends ReportImporter {
 
 		this.reportService = reportService;
 		this.daoService = daoService;
-		this.summInfos = new ArrayList<>();
-		this.cases = new HashMap<>();
+		this.summInfos = new LinkedHashMap<>();
+		this.caseIds = new HashMap<>();
 	}
 
 	/**
@@ -86,7 +111,7 @@ public class TseReportImporter extends ReportImporter {
 			// import it
 			if (isSummarizedInfo(row)) {
 
-				SummarizedInfo summInfo = new SummarizedInfo();
+				SummarizedInfo summInfo;
 
 				// if random genotyping, create the summarized information
 				if (TseReportService.isRGTResult(row)) {
@@ -94,11 +119,11 @@ public class TseReportImporter extends ReportImporter {
 					summInfo = extractSummarizedInfo(report1, row, true);
 
 					// create the summarized information
-					daoService.add(summInfo);
+					transaction.add(summInfo);
 
 					// add in the cache in order to avoid to save the same summInfo
 					// for the different results
-					summInfos.add(summInfo);
+					addToCache(summInfo);
 
 					LOGGER.info("Created fake RGT summarized information");
 				} else {
@@ -106,12 +131,12 @@ public class TseReportImporter extends ReportImporter {
 					SummarizedInfo si = extractSummarizedInfo(report1, row, false);
 
 					// save it in the database
-					daoService.add(si);
-
-					LOGGER.info("Imported summ info; sampId=" + reportService.getSampId(si));
+					transaction.add(si);
 
 					// save it in the cache
-					summInfos.add(si);
+					String sampId = addToCache(si);
+
+					LOGGER.info("Imported summ info; sampId=" + sampId);
 				}
 			}
 		}
@@ -158,7 +183,7 @@ public class TseReportImporter extends ReportImporter {
 					String origSampId = TseReportService.getOrigSampIdFrom(row);
 
 					String hashes = "";
-					for (SummarizedInfo si : summInfos) {
+					for (SummarizedInfo si : summInfos.values()) {
 						hashes += TseReportService.getOrigSampIdFrom(si) + "\n";
 					}
 
@@ -166,15 +191,15 @@ public class TseReportImporter extends ReportImporter {
 
 					throw new ParseException(
 							"No aggregated data was found related to sampOrigId=" + origSampId + " for individual case="
-									+ row + ". Available aggregated data are: " + summInfos + "with hashes" + hashes,
+									+ row + ". Available aggregated data are: " + summInfos.values() + "with hashes" + hashes,
 							0);
 				}
 
 				// import the case
-				TableRow caseInfo = importCase(report1, summInfo, row);
+				int caseId = importCase(report1, summInfo, row);
 
 				// import the result
-				TableRow result = importResult(report1, summInfo, caseInfo, row);
+				TableRow result = importResult(report1, summInfo, caseId, row);
 
 				LOGGER.info("Imported analytical result with database id=" + result.getDatabaseId());
 			}
@@ -182,41 +207,56 @@ public class TseReportImporter extends ReportImporter {
 	}
 
 	/**
-	 * Import the case if possible
+	 * Import the case of the row if it was not already imported
 	 * 
 	 * @param report1
 	 * @param row
-	 * @return
+	 * @return the database id of the case
 	 * @throws FormulaException
 	 * @throws ParseException
 	 */
-	private TableRow importCase(TseReport report1, SummarizedInfo summInfo, TableRow row)
+	private int importCase(TseReport report1, SummarizedInfo summInfo, TableRow row)
 			throws FormulaException, ParseException {
 
-		// extract the case from the row
-		TableRow currentCaseInfo = extractCase(report1, summInfo, row);
+		// set schema (required for next step), we are processing a result row,
+		// even if we are extracting the case information data!
+		row.setSchema(TableSchemaList.getByName(CustomStrings.RESULT_SHEET));
+
+		Integer caseId = getImportedCaseId(row);
 
-		// import the case info if not already imported
-		if (currentCaseInfo.getDatabaseId() == -1) {
+		// already added
+		if (caseId != null)
+			return caseId;
 
-			// import case in the db
-			daoService.add(currentCaseInfo);
+		// extract the case from the row
+		return importCase(createCase(report1, summInfo, decomposeCase(row)));
+	}
+
+	/**
+	 * Import an extracted case. Only its database id is kept in memory, since the
+	 * results only need it to be linked to the case.
+	 * 
+	 * @param currentCaseInfo
+	 * @return the database id of the case
+	 */
+	private int importCase(TableRow currentCaseInfo) {
 
-			String sampId = currentCaseInfo.getLabel(CustomStrings.SAMPLE_ID_COL);
+		// import case in the db
+		int caseId = transaction.add(currentCaseInfo);
 
-			LOGGER.info(
-					"Imported case/sample with database id=" + currentCaseInfo.getDatabaseId() + ", sampId=" + sampId);
+		String sampId = currentCaseInfo.getLabel(CustomStrings.SAMPLE_ID_COL);
 
-			if (sampId == null) {
-				LOGGER.error("No sample id was found for " + currentCaseInfo);
-				return currentCaseInfo;
-			}
+		LOGGER.info("Imported case/sample with database id=" + caseId + ", sampId=" + sampId);
 
-			// save the case in the cache by its sample id
-			cases.put(sampId, currentCaseInfo);
+		if (sampId == null) {
+			LOGGER.error("No sample id was found for " + currentCaseInfo);
+			return caseId;
 		}
 
-		return currentCaseInfo;
+		// save the case id in the cache by its sample id
+		caseIds.put(sampId, caseId);
+
+		return caseId;
 	}
 
 	/**
@@ -224,19 +264,19 @@ public class TseReportImporter extends ReportImporter {
 	 * 
 	 * @param report1
 	 * @param summInfo
-	 * @param caseInfo
+	 * @param caseId   database id of the case
 	 * @param row
 	 * @return
 	 * @throws ParseException
 	 */
-	private TableRow importResult(TseReport report1, SummarizedInfo summInfo, TableRow caseInfo, TableRow row)
+	private TableRow importResult(TseReport report1, SummarizedInfo summInfo, int caseId, TableRow row)
 			throws ParseException {
 
 		// then import the analytical result
-		TableRow result = extractAnalyticalResult(report1, summInfo, caseInfo, row);
+		TableRow result = extractAnalyticalResult(report1, summInfo, caseId, row);
 
 		// save the result into the db
-		daoService.add(result);
+		transaction.add(result);
 
 		return result;
 	}
@@ -252,27 +292,51 @@ public class TseReportImporter extends ReportImporter {
 	 */
 	private SummarizedInfo extractSummarizedInfo(TseReport report1, TableRow row, boolean isRGT)
 			throws FormulaException, ParseException {
+		return createSummarizedInfo(report1, row, decomposeSummarizedInfo(row, isRGT));
+	}
+
+	/**
+	 * Decompose the compound fields of a summarized information row. The database
+	 * is not accessed.
+	 * 
+	 * @param row
+	 * @param isRGT
+	 * @return the decomposed values
+	 * @throws ParseException
+	 */
+	private static HashMap<String, TableCell> decomposeSummarizedInfo(TableRow row, boolean isRGT)
+			throws ParseException {
 
 		// set the summarized information schema
 		row.setSchema(TableSchemaList.getByName(CustomStrings.SUMMARIZED_INFO_SHEET));
 
 		HashMap<String, TableCell> rowValues = new HashMap<>();
 
-		TSEFormulaDecomposer decomposer = new TSEFormulaDecomposer();
-		rowValues.putAll(
-				decomposer.decompose(CustomStrings.SAMP_MAT_CODE_COL, row.getCode(CustomStrings.SAMP_MAT_CODE_COL)));
+		TSEFormulaDecomposer decomposer = new TSEFormulaDecomposer(DecompositionCache.getShared());
+		decomposer.decompose(CustomStrings.SAMP_MAT_CODE_COL, row.getCode(CustomStrings.SAMP_MAT_CODE_COL), rowValues);
 
 		// extract psu id for cwd
-		rowValues.putAll(
-				decomposer.decompose(CustomStrings.SAMP_UNIT_IDS_COL, row.getCode(CustomStrings.SAMP_UNIT_IDS_COL)));
+		decomposer.decompose(CustomStrings.SAMP_UNIT_IDS_COL, row.getCode(CustomStrings.SAMP_UNIT_IDS_COL), rowValues);
 
 		// extract prog info
-		rowValues.putAll(decomposer.decompose(CustomStrings.PROG_INFO_COL, row.getCode(CustomStrings.PROG_INFO_COL)));
+		decomposer.decompose(CustomStrings.PROG_INFO_COL, row.getCode(CustomStrings.PROG_INFO_COL), rowValues);
 
 		// extract the allele if RGT
 		if (isRGT)
-			rowValues.putAll(
-					decomposer.decompose(CustomStrings.PARAM_CODE_COL, row.getCode(CustomStrings.PARAM_CODE_COL)));
+			decomposer.decompose(CustomStrings.PARAM_CODE_COL, row.getCode(CustomStrings.PARAM_CODE_COL), rowValues);
+
+		return rowValues;
+	}
+
+	/**
+	 * Create the summarized information from the row and its decomposed values
+	 * 
+	 * @param report1
+	 * @param row
+	 * @param rowValues
+	 * @return
+	 */
+	private SummarizedInfo createSummarizedInfo(TseReport report1, TableRow row, HashMap<String, TableCell> rowValues) {
 
 		// copy values into the summarized information
 		SummarizedInfo summInfo = new SummarizedInfo(row);
@@ -286,14 +350,14 @@ public class TseReportImporter extends ReportImporter {
 
 		// add pref and settings as information
 		try {
-			Relation.injectGlobalParent(summInfo, CustomStrings.PREFERENCES_SHEET, daoService);
+			GlobalParentCache.inject(summInfo, CustomStrings.PREFERENCES_SHEET, daoService);
 		} catch (IOException e) {
 			e.printStackTrace();
 			LOGGER.error("Cannot inject global parent=" + CustomStrings.PREFERENCES_SHEET, e);
 		}
 
 		try {
-			Relation.injectGlobalParent(summInfo, CustomStrings.SETTINGS_SHEET, daoService);
+			GlobalParentCache.inject(summInfo, CustomStrings.SETTINGS_SHEET, daoService);
 		} catch (IOException e) {
 			e.printStackTrace();
 			LOGGER.error("Cannot inject global parent=" + CustomStrings.SETTINGS_SHEET, e);
@@ -309,82 +373,89 @@ public class TseReportImporter extends ReportImporter {
 	}
 
 	/**
-	 * Extract the case row from the analytical result row
+	 * Get the case related to the analytical result row if it was already imported
 	 * 
-	 * @param report1
-	 * @param summInfo
 	 * @param row
-	 * @return
-	 * @throws FormulaException
+	 * @return the database id of the case or null if it was not imported yet
 	 * @throws ParseException
 	 */
-	private TableRow extractCase(TseReport report1, SummarizedInfo summInfo, TableRow row)
-			throws FormulaException, ParseException {
-
-		// set schema (required for next step), we are processing a result row,
-		// even if we are extracting the case information data!
-		row.setSchema(TableSchemaList.getByName(CustomStrings.RESULT_SHEET));
+	private Integer getImportedCaseId(TableRow row) throws ParseException {
 
 		TableCell sampId = row.get(CustomStrings.SAMPLE_ID_COL);
 
 		if (sampId == null)
 			throw new ParseException("Missing sampId", -1);
 
-		// create empty case report
-		TableRow caseReport;
+		return caseIds.get(sampId.getLabel());
+	}
 
-		// if not already added
-		if (cases.get(sampId.getLabel()) == null) {
+	/**
+	 * Decompose the case information contained in an analytical result row. The
+	 * database is not accessed.
+	 * 
+	 * @param row
+	 * @return the values of the case
+	 * @throws ParseException
+	 */
+	private static HashMap<String, TableCell> decomposeCase(TableRow row) throws ParseException {
 
-			// create the case info (we do not copy the data, since this row
-			// is actually an analytical result and we just need to
-			// extract the relevant information)
-			caseReport = new TableRow(TableSchemaList.getByName(CustomStrings.CASE_INFO_SHEET));
+		// we are processing a result row, even if we are extracting the case
+		// information data!
+		row.setSchema(TableSchemaList.getByName(CustomStrings.RESULT_SHEET));
 
-			HashMap<String, TableCell> rowValues = new HashMap<>();
+		TableCell sampId = row.get(CustomStrings.SAMPLE_ID_COL);
 
-			TSEFormulaDecomposer decomposer = new TSEFormulaDecomposer();
+		if (sampId == null)
+			throw new ParseException("Missing sampId", -1);
 
-			// get decomposed values
-			for (String id : new String[] { CustomStrings.EVAL_INFO_COL, CustomStrings.SAMP_UNIT_IDS_COL,
-					CustomStrings.SAMP_EVENT_INFO_COL, CustomStrings.SAMP_MAT_INFO_COL,
-					CustomStrings.SAMP_MAT_CODE_COL }) {
-				rowValues.putAll(decomposer.decompose(id, row.getCode(id)));
-			}
+		HashMap<String, TableCell> rowValues = new HashMap<>();
 
-			// manually convert eval info com into evalCom
-			TableCell evalCom = decomposer
-					.decompose(CustomStrings.EVAL_INFO_COL, row.getCode(CustomStrings.EVAL_INFO_COL))
-					.get(CustomStrings.EVAL_COMMENT_BREED_ATTRIBUTE_NAME);
-			rowValues.put(CustomStrings.EVAL_COMMENT_COL, evalCom);
+		TSEFormulaDecomposer decomposer = new TSEFormulaDecomposer(DecompositionCache.getShared());
 
-			// manually convert samp event info into breed
-			TableCell breed = decomposer
-					.decompose(CustomStrings.SAMP_MAT_INFO_COL, row.getCode(CustomStrings.SAMP_MAT_INFO_COL))
-					.get(CustomStrings.EVAL_COMMENT_BREED_ATTRIBUTE_NAME);
-			rowValues.put(CustomStrings.BREED_COL, breed);
+		// get decomposed values (eval info com is also copied into evalCom and
+		// samp mat info com into breed)
+		decomposer.decompose(EVAL_INFO_PLAN, row.getCode(CustomStrings.EVAL_INFO_COL), rowValues);
+		decomposer.decompose(CustomStrings.SAMP_UNIT_IDS_COL, row.getCode(CustomStrings.SAMP_UNIT_IDS_COL), rowValues);
+		decomposer.decompose(CustomStrings.SAMP_EVENT_INFO_COL, row.getCode(CustomStrings.SAMP_EVENT_INFO_COL),
+				rowValues);
+		decomposer.decompose(SAMP_MAT_INFO_PLAN, row.getCode(CustomStrings.SAMP_MAT_INFO_COL), rowValues);
+		decomposer.decompose(CustomStrings.SAMP_MAT_CODE_COL, row.getCode(CustomStrings.SAMP_MAT_CODE_COL), rowValues);
 
-			// save sample id
-			rowValues.put(CustomStrings.SAMPLE_ID_COL, sampId);
+		// save sample id
+		rowValues.put(CustomStrings.SAMPLE_ID_COL, sampId);
 
-			rowValues.put(CustomStrings.SAMP_AREA_COL, row.get(CustomStrings.SAMP_AREA_COL));
+		rowValues.put(CustomStrings.SAMP_AREA_COL, row.get(CustomStrings.SAMP_AREA_COL));
 
-			rowValues.put(CustomStrings.SAMP_DAY_COL, row.get(CustomStrings.SAMP_DAY_COL));
+		rowValues.put(CustomStrings.SAMP_DAY_COL, row.get(CustomStrings.SAMP_DAY_COL));
 
-			// store all the values into the case report
-			for (String key : rowValues.keySet()) {
-				caseReport.put(key, rowValues.get(key));
-			}
+		return rowValues;
+	}
 
-			// set the report/summ info as parent of case report
-			Relation.injectParent(report1, caseReport);
-			Relation.injectParent(summInfo, caseReport);
-		} else {
+	/**
+	 * Create the case report from its decomposed values
+	 * 
+	 * @param report1
+	 * @param summInfo
+	 * @param rowValues
+	 * @return
+	 */
+	private static TableRow createCase(TseReport report1, SummarizedInfo summInfo,
+			HashMap<String, TableCell> rowValues) {
+
+		// create the case info (we do not copy the data, since the row
+		// is actually an analytical result and we just need to
+		// extract the relevant information)
+		TableRow caseReport = new TableRow(TableSchemaList.getByName(CustomStrings.CASE_INFO_SHEET));
 
-			// else if already present, get it from the cache
-			caseReport = cases.get(sampId.getLabel());
+		// store all the values into the case report
+		for (String key : rowValues.keySet()) {
+			caseReport.put(key, rowValues.get(key));
 		}
 
+		// set the report/summ info as parent of case report
+		Relation.injectParent(report1, caseReport);
+		Relation.injectParent(summInfo, caseReport);
+
 		return caseReport;
 	}
 
@@ -393,24 +464,36 @@ public class TseReportImporter extends ReportImporter {
 	 * 
 	 * @param report
 	 * @param summInfo
-	 * @param caseInfo
+	 * @param caseId   database id of the case
 	 * @param row
 	 * @return
 	 * @throws ParseException
 	 */
-	private static TableRow extractAnalyticalResult(TseReport report, SummarizedInfo summInfo, TableRow caseInfo,
+	private static TableRow extractAnalyticalResult(TseReport report, SummarizedInfo summInfo, int caseId,
 			TableRow row) throws ParseException {
+		return createAnalyticalResult(report, summInfo, caseId, row, decomposeAnalyticalResult(row));
+	}
+
+	/**
+	 * Decompose the analytical result data of the row. The base term and the test
+	 * aim are saved in the row itself. The database is not accessed.
+	 * 
+	 * @param row
+	 * @return the decomposed values
+	 * @throws ParseException
+	 */
+	private static HashMap<String, TableCell> decomposeAnalyticalResult(TableRow row) throws ParseException {
 
 		// set the summarised information schema
 		row.setSchema(TableSchemaList.getByName(CustomStrings.RESULT_SHEET));
 
 		// decompose param code
-		TSEFormulaDecomposer decomposer = new TSEFormulaDecomposer();
+		TSEFormulaDecomposer decomposer = new TSEFormulaDecomposer(DecompositionCache.getShared());
 
-		HashMap<String, TableCell> rowValues = decomposer.decompose(CustomStrings.PARAM_CODE_COL,
-				row.getCode(CustomStrings.PARAM_CODE_COL));
+		HashMap<String, TableCell> rowValues = new HashMap<>();
 
-		rowValues.putAll(decomposer.decompose(CustomStrings.SAMP_INFO_COL, row.getCode(CustomStrings.SAMP_INFO_COL)));
+		decomposer.decompose(CustomStrings.PARAM_CODE_COL, row.getCode(CustomStrings.PARAM_CODE_COL), rowValues);
+		decomposer.decompose(CustomStrings.SAMP_INFO_COL, row.getCode(CustomStrings.SAMP_INFO_COL), rowValues);
 
 		// save also the test aim with base term and test result
 		String paramBaseTerm = decomposer.getBaseTerm(row.getCode(CustomStrings.PARAM_CODE_COL));
@@ -426,6 +509,22 @@ public class TseReportImporter extends ReportImporter {
 			row.put(CustomStrings.TEST_AIM_COL, testAim);
 		}
 
+		return rowValues;
+	}
+
+	/**
+	 * Create the analytical result from the row and its decomposed values
+	 * 
+	 * @param report
+	 * @param summInfo
+	 * @param caseId    database id of the case
+	 * @param row
+	 * @param rowValues
+	 * @return
+	 */
+	private static TableRow createAnalyticalResult(TseReport report, SummarizedInfo summInfo, int caseId,
+			TableRow row, HashMap<String, TableCell> rowValues) {
+
 		// copy values into the row
 		TableRow result = new TableRow(row);
 		for (String key : rowValues.keySet()) {
@@ -435,31 +534,40 @@ public class TseReportImporter extends ReportImporter {
 		// set the report as parent of the summ info
 		Relation.injectParent(report, result);
 		Relation.injectParent(summInfo, result);
-		Relation.injectParent(caseInfo, result);
+
+		// the case is not kept in memory, only its id is needed as parent
+		result.put(Relation.foreignKeyFromParent(CustomStrings.CASE_INFO_SHEET), caseId);
 
 		return result;
 	}
 
 	/**
-	 * Given a prog id of an analytical result, get the summarized information which
-	 * is related to it
+	 * Save an imported summarized information in the cache, indexed by its sample
+	 * id. The sample id is solved only once here. If more summarized information
+	 * have the same sample id, the first one is kept.
 	 * 
-	 * @param progId
-	 * @return
+	 * @param summInfo
+	 * @return the sample id of the summarized information
 	 * @throws FormulaException
 	 */
-	private SummarizedInfo getSummInfoByOrigSampId(String resultOrigSampId) throws FormulaException {
+	private String addToCache(SummarizedInfo summInfo) throws FormulaException {
 
-		for (SummarizedInfo info : summInfos) {
+		String sampId = reportService.getSampId(summInfo);
 
-			String sampId = reportService.getSampId(info);
+		summInfos.putIfAbsent(sampId, summInfo);
 
-			if (sampId.equals(resultOrigSampId)) {
-				return info;
-			}
-		}
+		return sampId;
+	}
 
-		return null;
+	/**
+	 * Given a prog id of an analytical result, get the summarized information which
+	 * is related to it
+	 * 
+	 * @param progId
+	 * @return
+	 */
+	private SummarizedInfo getSummInfoByOrigSampId(String resultOrigSampId) {
+		return summInfos.get(resultOrigSampId);
 	}
 
 	@Override
@@ -468,7 +576,10 @@ public class TseReportImporter extends ReportImporter {
 		// extract the information from the dataset
 		// and insert the report into the database
 		this.mainReport = reportService.reportFromDataset(dataset);
-		daoService.add(mainReport);
+
+		// the dataset version is removed if its rows cannot be imported
+		this.transaction = new ImportTransaction(daoService);
+		this.transaction.add(mainReport);
 
 		return this.mainReport;
 	}
@@ -476,19 +587,367 @@ public class TseReportImporter extends ReportImporter {
 	@Override
 	public void importDatasetRows(List<TableRow> rows) throws FormulaException, ParseException {
 
+		if (transaction == null)
+			transaction = new ImportTransaction(daoService);
+
 		LOGGER.info("Importing the summarized information");
 
 		// first import the summarized information
-		importSummarizedInformation(mainReport, rows);
+		try {
+			importSummarizedInformation(mainReport, rows);
+		} catch (FormulaException | ParseException | RuntimeException e) {
+			LOGGER.error("Cannot import the summarized information, removing the dataset version", e);
+			transaction.rollback();
+			transaction = null;
+			summInfos.clear();
+			caseIds.clear();
+			throw e;
+		}
 
 		LOGGER.info("Importing cases and results");
 
+		int savepoint = transaction.savepoint();
+
 		// catch the exception when importing old reports
 		try {
 			// then import cases and results
 			importCasesAndResults(mainReport, rows);
 		} catch (Exception e) {
 			e.printStackTrace();
+
+			// do not leave half imported cases
+			transaction.rollback(savepoint);
+			caseIds.clear();
+		}
+
+		transaction.commit();
+		transaction = null;
+
+		LOGGER.info("Dataset rows imported; " + DecompositionCache.getShared());
+	}
+
+	@Override
+	public void setDatasetVersions(DatasetList datasetVersions) {
+		super.setDatasetVersions(datasetVersions);
+		this.datasetVersions = datasetVersions;
+	}
+
+	/**
+	 * Import the report. A report with a single dataset version (no amendments
+	 * to merge) is streamed from the downloaded file through
+	 * {@link #importDatasetVersion(Dataset, File)}, the other reports are
+	 * imported by the library. If the streamed rows cannot be linked or decoded
+	 * (for example cases of old reports without aggregated data), the version
+	 * is already removed and it is imported again by the library, which skips
+	 * the cases which cannot be imported.
+	 */
+	@Override
+	public void importReport() throws DetailedSOAPException, XMLStreamException, IOException, FormulaException,
+			NoAttachmentException, ParseException {
+
+		if (datasetVersions == null || datasetVersions.size() != 1) {
+			super.importReport();
+			return;
+		}
+
+		Dataset dataset = datasetVersions.get(0);
+
+		File datasetFile = reportService.getDatasetFile(dataset.getId());
+
+		// the library reports the missing attachment
+		if (datasetFile == null) {
+			super.importReport();
+			return;
+		}
+
+		LOGGER.info("Streaming the import of dataset id=" + dataset.getId() + " from " + datasetFile);
+
+		try {
+			importDatasetVersion(dataset, datasetFile);
+		} catch (FormulaException | ParseException e) {
+			LOGGER.warn("Cannot stream the import of dataset id=" + dataset.getId() + ", using the library import", e);
+			super.importReport();
+		}
+	}
+
+	/**
+	 * Import a dataset version reading its rows directly from the GDE2 xml file,
+	 * without keeping all of them in memory. If the dataset has no operation
+	 * (it comes from the datasets list), the sender dataset id is read from the
+	 * file.
+	 * 
+	 * @param dataset     metadata of the dataset
+	 * @param datasetFile file containing the rows of the dataset
+	 * @return the imported report
+	 * @throws XMLStreamException
+	 * @throws IOException
+	 * @throws FormulaException
+	 * @throws ParseException
+	 */
+	public TableRow importDatasetVersion(Dataset dataset, File datasetFile)
+			throws XMLStreamException, IOException, FormulaException, ParseException {
+
+		if (dataset.getOperation() == null) {
+
+			String senderDatasetId;
+			try (DatasetRowReader reader = new DatasetRowReader(datasetFile)) {
+				senderDatasetId = reader.readSenderDatasetId();
+			}
+
+			if (senderDatasetId == null || senderDatasetId.isEmpty())
+				senderDatasetId = dataset.getSenderId();
+
+			dataset.setOperation(new Operation("", dataset.getId(), senderDatasetId, "", "", "", ""));
+		}
+
+		TableRow report = importDatasetMetadata(dataset);
+
+		importDatasetRows(datasetFile);
+
+		return report;
+	}
+
+	/**
+	 * Import the rows of the dataset contained in the GDE2 xml file. The rows are
+	 * read and decomposed by other threads while the previous ones are saved in
+	 * the database. Cases and results which come before their summarized
+	 * information are kept aside until it is imported. Differently from
+	 * {@link #importDatasetRows(List)}, any error (including cases without
+	 * summarized information) removes the whole dataset version.
+	 * 
+	 * @param datasetFile
+	 * @throws XMLStreamException
+	 * @throws IOException
+	 * @throws FormulaException
+	 * @throws ParseException
+	 */
+	public void importDatasetRows(File datasetFile)
+			throws XMLStreamException, IOException, FormulaException, ParseException {
+		importDatasetRows(DatasetImportPipeline.getXmlSource(datasetFile));
+	}
+
+	/**
+	 * Import the rows of an Excel report into an existing report, without
+	 * converting the file to xml. If the import fails, all the imported rows are
+	 * removed and the report is left as it was.
+	 * 
+	 * @param report    the report which will contain the rows
+	 * @param excelFile the Excel report
+	 * @param listener  listener of the progress of the import, can be null
+	 * @throws XMLStreamException
+	 * @throws IOException
+	 * @throws FormulaException
+	 * @throws ParseException
+	 */
+	public void importExcelRows(TseReport report, File excelFile, ImportProgressListener listener)
+			throws XMLStreamException, IOException, FormulaException, ParseException {
+
+		this.mainReport = report;
+		this.transaction = new ImportTransaction(daoService);
+		this.progressListener = listener;
+
+		try {
+			importDatasetRows(new ExcelRowSource(excelFile));
+		} finally {
+			this.progressListener = null;
+		}
+	}
+
+	/**
+	 * Import the rows of a dataset source in the report set by
+	 * {@link #importDatasetMetadata(Dataset)}
+	 * 
+	 * @param source
+	 * @throws XMLStreamException
+	 * @throws IOException
+	 * @throws FormulaException
+	 * @throws ParseException
+	 */
+	private void importDatasetRows(DatasetRowSource source)
+			throws XMLStreamException, IOException, FormulaException, ParseException {
+
+		if (transaction == null)
+			transaction = new ImportTransaction(daoService);
+
+		this.pending = new HashMap<>();
+
+		final int reportId = mainReport.getDatabaseId();
+
+		DatasetImportPipeline.Decoder<DecodedRow> decoder = new DatasetImportPipeline.Decoder<DecodedRow>() {
+			@Override
+			public DecodedRow decode(TableRow row) throws FormulaException, ParseException {
+				return TseReportImporter.decode(reportId, row);
+			}
+		};
+
+		try (DatasetImportPipeline<DecodedRow> pipeline = new DatasetImportPipeline<>(source, decoder)) {
+
+			int imported = 0;
+
+			DecodedRow decoded;
+			while ((decoded = pipeline.next()) != null) {
+
+				importDecodedRow(decoded);
+
+				imported++;
+
+				if (progressListener != null && imported % PROGRESS_STEP == 0)
+					progressListener.progress(imported, source.getEstimatedRows());
+			}
+
+			if (progressListener != null)
+				progressListener.progress(imported, imported);
+
+			if (!pending.isEmpty()) {
+				throw new ParseException("No aggregated data was found related to sampOrigId=" + pending.keySet(), 0);
+			}
+
+		} catch (XMLStreamException | IOException | FormulaException | ParseException | RuntimeException e) {
+			LOGGER.error("Cannot import the dataset rows, removing the dataset version", e);
+			abortImport();
+			throw e;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			abortImport();
+			throw new InterruptedIOException("Import of the dataset interrupted");
+		}
+
+		transaction.commit();
+		transaction = null;
+		pending = null;
+
+		LOGGER.info("Dataset rows imported; " + DecompositionCache.getShared());
+	}
+
+	/**
+	 * Remove all the rows imported in the current transaction
+	 */
+	private void abortImport() {
+		transaction.rollback();
+		transaction = null;
+		pending = null;
+		summInfos.clear();
+		caseIds.clear();
+	}
+
+	/**
+	 * Decompose a row of the dataset. It is called by the worker threads of the
+	 * import pipeline and does not access the database.
+	 * 
+	 * @param reportId database id of the imported report
+	 * @param row
+	 * @return
+	 * @throws FormulaException
+	 * @throws ParseException
+	 */
+	private static DecodedRow decode(int reportId, TableRow row) throws FormulaException, ParseException {
+
+		DecodedRow decoded = new DecodedRow(row);
+		decoded.rgt = TseReportService.isRGTResult(row);
+		decoded.summarizedInfo = isSummarizedInfo(row);
+
+		if (decoded.summarizedInfo) {
+			decoded.summInfoValues = decomposeSummarizedInfo(row, decoded.rgt);
+			return decoded;
+		}
+
+		if (!decoded.rgt) {
+			// report is needed for results formulas (sampId)
+			row.put(CustomStrings.REPORT_ID_COL, reportId);
+			decoded.origSampId = TseReportService.getOrigSampIdFrom(row);
+		}
+
+		decoded.caseValues = decomposeCase(row);
+		decoded.resultValues = decomposeAnalyticalResult(row);
+
+		return decoded;
+	}
+
+	/**
+	 * Save a decoded row in the database
+	 * 
+	 * @param decoded
+	 * @throws FormulaException
+	 * @throws ParseException
+	 */
+	private void importDecodedRow(DecodedRow decoded) throws FormulaException, ParseException {
+
+		if (decoded.summarizedInfo) {
+
+			SummarizedInfo summInfo = createSummarizedInfo(mainReport, decoded.row, decoded.summInfoValues);
+
+			transaction.add(summInfo);
+
+			String sampId = addToCache(summInfo);
+
+			LOGGER.info("Imported summ info; sampId=" + sampId + ", rgt=" + decoded.rgt);
+
+			// import the rows which were waiting for this summarized information
+			List<DecodedRow> waiting = pending.remove(sampId);
+			if (waiting != null) {
+				for (DecodedRow row : waiting)
+					importCaseAndResult(summInfos.get(sampId), row);
+			}
+
+			return;
+		}
+
+		// if random genotyping, the summarized information is not needed
+		SummarizedInfo summInfo = decoded.rgt ? new SummarizedInfo() : getSummInfoByOrigSampId(decoded.origSampId);
+
+		// summarized information not imported yet
+		if (summInfo == null) {
+
+			List<DecodedRow> waiting = pending.get(decoded.origSampId);
+			if (waiting == null) {
+				waiting = new ArrayList<>();
+				pending.put(decoded.origSampId, waiting);
+			}
+
+			waiting.add(decoded);
+			return;
+		}
+
+		importCaseAndResult(summInfo, decoded);
+	}
+
+	/**
+	 * Save the case (if not already imported) and the analytical result of a
+	 * decoded row
+	 * 
+	 * @param summInfo
+	 * @param decoded
+	 * @throws ParseException
+	 */
+	private void importCaseAndResult(SummarizedInfo summInfo, DecodedRow decoded) throws ParseException {
+
+		Integer caseId = getImportedCaseId(decoded.row);
+
+		if (caseId == null)
+			caseId = importCase(createCase(mainReport, summInfo, decoded.caseValues));
+
+		TableRow result = createAnalyticalResult(mainReport, summInfo, caseId, decoded.row, decoded.resultValues);
+
+		transaction.add(result);
+
+		LOGGER.info("Imported analytical result with database id=" + result.getDatabaseId());
+	}
+
+	/**
+	 * Row of the dataset with its decomposed values
+	 */
+	private static class DecodedRow {
+
+		private TableRow row;
+		private boolean summarizedInfo;
+		private boolean rgt;
+		private String origSampId;
+		private HashMap<String, TableCell> summInfoValues;
+		private HashMap<String, TableCell> caseValues;
+		private HashMap<String, TableCell> resultValues;
+
+		public DecodedRow(TableRow row) {
+			this.row = row;
 		}
 	}
 }
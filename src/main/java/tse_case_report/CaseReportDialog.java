@@ -2,6 +2,7 @@ package tse_case_report;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -11,19 +12,25 @@ import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Menu;
 import org.eclipse.swt.widgets.MenuItem;
 import org.eclipse.swt.widgets.Shell;
 
 import app_config.AppPaths;
+import app_config.PropertiesReader;
 import dataset.RCLDatasetStatus;
+import global_utils.Message;
 import global_utils.Warnings;
 import i18n_messages.TSEMessages;
+import providers.GenerationProgressListener;
 import providers.IFormulaService;
 import providers.ITableDaoService;
+import providers.TableDaoService;
 import providers.TseReportService;
 import report.Report;
 import session_manager.TSERestoreableWindowDao;
+import table_database.TableDao;
 import table_dialog.DialogBuilder;
 import table_dialog.EditorListener;
 import table_dialog.RowValidatorLabelProvider;
@@ -31,6 +38,7 @@ import table_relations.Relation;
 import table_skeleton.TableColumn;
 import table_skeleton.TableRow;
 import tse_analytical_result.ResultDialog;
+import tse_components.ProgressDialog;
 import tse_components.TableDialogWithMenu;
 import tse_config.CustomStrings;
 import tse_summarized_information.SummarizedInfo;
@@ -51,6 +59,8 @@ public class CaseReportDialog extends TableDialogWithMenu {
 
 	static final Logger LOGGER = LogManager.getLogger(CaseReportDialog.class);
 
+	private CaseReportValidator validator;
+
 	private RestoreableWindow window;
 	private static final String WINDOW_CODE = "CaseReport";
 
@@ -134,17 +144,97 @@ public class CaseReportDialog extends TableDialogWithMenu {
 				LOGGER.debug("End warn user");
 			}
 
-			if (hasExpectedCases) {
+			createDefaults();
+		}
+	}
+
+	/**
+	 * Create the default cases and, if the user agrees, their results in a
+	 * background thread, showing the progress. The user is asked once for all
+	 * the cases of the context (rgt results are created without asking, as
+	 * before). The ui events are dispatched until the creation is finished.
+	 */
+	private void createDefaults() {
+
+		final Display display = getDialog().getDisplay();
+
+		boolean askResults = !summInfo.isRGT();
+
+		final boolean withResults;
+		if (askResults) {
+			int val = Warnings.warnUser(getDialog(), TSEMessages.get("warning.title"),
+					TSEMessages.get("result.confirm.default"), SWT.YES | SWT.NO | SWT.ICON_QUESTION);
+
+			LOGGER.info("Add default results to the default cases? " + (val == SWT.YES));
+
+			withResults = val == SWT.YES;
+		} else {
+			withResults = true;
+		}
+
+		final ProgressDialog progressBar = new ProgressDialog(getDialog(), TSEMessages.get("case.default.progress"));
+		progressBar.open();
+
+		final AtomicBoolean finished = new AtomicBoolean(false);
+		final AtomicBoolean created = new AtomicBoolean(false);
+
+		// the ui keeps using the services of the dialog while the rows are
+		// created, the thread reads and solves the formulas with its own ones
+		final TseReportService service = reportService.copyWithOwnFormulas(new TableDaoService(new TableDao()));
+
+		Thread thread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+
+				GenerationProgressListener listener = new GenerationProgressListener() {
+
+					@Override
+					public void progress(int done, int total) {
+						progressBar.setProgress(done, total);
+					}
+				};
+
 				try {
-					reportService.createDefaultCases(report, summInfo);
-				} catch (IOException e) {
+
+					// without results they are created when the case is opened
+					if (withResults)
+						service.createDefaultCasesAndResults(report, summInfo, listener);
+					else
+						service.createDefaultCases(report, summInfo, listener);
+
+					created.set(true);
+
+				} catch (IOException | RuntimeException e) {
 					e.printStackTrace();
 					LOGGER.error("Cannot create default cases in summarized info with progId=" + summInfo.getProgId(),
 							e);
+				} finally {
+					finished.set(true);
+					display.wake();
 				}
-			} else if (isRGT) {
-				reportService.createDefaultRGTCase(report, summInfo);
 			}
+		}, "default-cases");
+
+		thread.start();
+
+		while (!finished.get()) {
+			if (!display.readAndDispatch())
+				display.sleep();
+		}
+
+		progressBar.close();
+
+		if (!created.get()) {
+			Message m = Warnings.createFatal(TSEMessages.get("case.default.error", PropertiesReader.getSupportEmail()));
+			m.open(getDialog());
+			return;
+		}
+
+		// same warning shown when the default results of a case are created
+		if (withResults && askResults) {
+			Warnings.warnUser(getDialog(), TSEMessages.get("warning.title"), TSEMessages.get("result.check.default"),
+					SWT.ICON_WARNING);
 		}
 	}
 
@@ -249,7 +339,11 @@ public class CaseReportDialog extends TableDialogWithMenu {
 
 	@Override
 	public RowValidatorLabelProvider getValidator() {
-		return new CaseReportValidator(daoService);
+
+		if (validator == null)
+			validator = new CaseReportValidator(daoService);
+
+		return validator;
 	}
 
 	@Override
@@ -328,6 +422,11 @@ public class CaseReportDialog extends TableDialogWithMenu {
 
 		// update children errors
 		reportService.updateChildrenErrors(caseReport);
+
+		// children changed, check the row again
+		if (validator != null)
+			validator.invalidate(caseReport);
+
 		replace(caseReport);
 		
 	}
@@ -0,0 +1,174 @@
+package tse_components;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.ProgressBar;
+import org.eclipse.swt.widgets.Shell;
+
+/**
+ * Modal dialog which shows the progress of a long operation running in a
+ * background thread. Differently from the IndeterminateProgressDialog of the
+ * library, it shows the number of processed elements. The progress can be
+ * updated from any thread: the updates are merged, so that at most one of them
+ * is waiting for the ui thread, and the widgets are accessed only by the ui
+ * thread.
+ * 
+ * @author shahaal
+ *
+ */
+public class ProgressDialog {
+
+	private Shell parent;
+	private String title;
+
+	private volatile Display display;
+	private Shell dialog;
+	private Label label;
+	private ProgressBar bar;
+
+	// last progress received, shown by the next update of the ui
+	private volatile int lastDone;
+	private volatile int lastTotal;
+	private final AtomicBoolean updateScheduled = new AtomicBoolean(false);
+
+	public ProgressDialog(Shell parent, String title) {
+		this.parent = parent;
+		this.title = title;
+	}
+
+	/**
+	 * Open the dialog, must be called from the ui thread
+	 */
+	public void open() {
+
+		this.display = parent.getDisplay();
+
+		this.dialog = new Shell(parent, SWT.TITLE | SWT.APPLICATION_MODAL);
+		this.dialog.setText(title);
+		this.dialog.setLayout(new GridLayout(1, false));
+
+		this.label = new Label(dialog, SWT.NONE);
+		this.label.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		this.label.setText(title);
+
+		this.bar = new ProgressBar(dialog, SWT.SMOOTH | SWT.INDETERMINATE);
+		GridData barData = new GridData(SWT.FILL, SWT.CENTER, true, false);
+		barData.widthHint = 350;
+		this.bar.setLayoutData(barData);
+
+		this.dialog.pack();
+
+		// center the dialog in the parent
+		this.dialog.setLocation(parent.getLocation().x + (parent.getSize().x - dialog.getSize().x) / 2,
+				parent.getLocation().y + (parent.getSize().y - dialog.getSize().y) / 2);
+
+		this.dialog.open();
+	}
+
+	/**
+	 * Update the progress
+	 * 
+	 * @param done  number of elements processed
+	 * @param total total number of elements, -1 if not known
+	 */
+	public void setProgress(int done, int total) {
+
+		this.lastDone = done;
+		this.lastTotal = total;
+
+		// an update is already waiting, it will show these values
+		if (!updateScheduled.compareAndSet(false, true))
+			return;
+
+		asyncExec(new Runnable() {
+
+			@Override
+			public void run() {
+
+				updateScheduled.set(false);
+
+				if (isDisposed())
+					return;
+
+				showProgress(lastDone, lastTotal);
+			}
+		});
+	}
+
+	/**
+	 * Show the progress, must be called from the ui thread
+	 * 
+	 * @param done
+	 * @param total
+	 */
+	private void showProgress(int done, int total) {
+
+		// the progress cannot be shown without the total
+		if (total <= 0) {
+			label.setText(title + " " + done);
+			return;
+		}
+
+		// replace the indeterminate bar with a smooth one
+		if ((bar.getStyle() & SWT.INDETERMINATE) != 0) {
+			Object layoutData = bar.getLayoutData();
+			bar.dispose();
+			bar = new ProgressBar(dialog, SWT.SMOOTH);
+			bar.setLayoutData(layoutData);
+			dialog.layout();
+		}
+
+		bar.setMaximum(total);
+		bar.setSelection(Math.min(done, total));
+		label.setText(title + " " + done + "/" + total);
+	}
+
+	/**
+	 * Close the dialog
+	 */
+	public void close() {
+
+		asyncExec(new Runnable() {
+
+			@Override
+			public void run() {
+				if (!isDisposed())
+					dialog.dispose();
+			}
+		});
+	}
+
+	/**
+	 * Run the code in the ui thread. The disposal of the widgets is checked
+	 * only by the code itself, in the ui thread.
+	 * 
+	 * @param runnable
+	 */
+	private void asyncExec(Runnable runnable) {
+
+		// not opened or application closed
+		if (display == null || display.isDisposed())
+			return;
+
+		try {
+			display.asyncExec(runnable);
+		} catch (SWTException e) {
+			// the display was disposed in the meanwhile, nothing to show
+		}
+	}
+
+	/**
+	 * Must be called from the ui thread
+	 * 
+	 * @return
+	 */
+	private boolean isDisposed() {
+		return dialog == null || dialog.isDisposed();
+	}
+}
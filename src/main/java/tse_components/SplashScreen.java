@@ -0,0 +1,62 @@
+package tse_components;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Rectangle;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.ProgressBar;
+import org.eclipse.swt.widgets.Shell;
+
+/**
+ * Window shown while the application is starting
+ * 
+ * @author shahaal
+ *
+ */
+public class SplashScreen {
+
+	private Display display;
+	private String text;
+	private Shell shell;
+
+	public SplashScreen(Display display, String text) {
+		this.display = display;
+		this.text = text;
+	}
+
+	/**
+	 * Open the splash screen in the center of the primary monitor
+	 */
+	public void open() {
+
+		this.shell = new Shell(display, SWT.NO_TRIM | SWT.ON_TOP);
+		this.shell.setLayout(new GridLayout(1, false));
+
+		Label label = new Label(shell, SWT.NONE);
+		label.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		label.setText(text);
+
+		ProgressBar bar = new ProgressBar(shell, SWT.SMOOTH | SWT.INDETERMINATE);
+		GridData barData = new GridData(SWT.FILL, SWT.CENTER, true, false);
+		barData.widthHint = 350;
+		bar.setLayoutData(barData);
+
+		shell.pack();
+
+		Rectangle area = display.getPrimaryMonitor().getBounds();
+		shell.setLocation(area.x + (area.width - shell.getSize().x) / 2,
+				area.y + (area.height - shell.getSize().y) / 2);
+
+		shell.open();
+	}
+
+	/**
+	 * Close the splash screen
+	 */
+	public void close() {
+		if (shell != null && !shell.isDisposed())
+			shell.dispose();
+	}
+}
@@ -6,6 +6,7 @@ public class CustomStrings {
 	
 	public static final String PREDEFINED_RESULTS_FILE = AppPaths.CONFIG_FOLDER + "predefinedResults.xlsx";
 	public static final String PREFERENCE_FOLDER = "preferences" + System.getProperty("file.separator");
+	public static final String PICKLISTS_FOLDER = "picklists" + System.getProperty("file.separator");
 
 	public static final String REPORT_ID_COL = "ReportId";
 	public static final String SI_ID_COL = "SummarizedInformationId";
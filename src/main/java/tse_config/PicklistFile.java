@@ -0,0 +1,129 @@
+package tse_config;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Main node and codes of the selections of a picklist xml file, read with a
+ * single pass on the file. The selections themselves are loaded by the
+ * library.
+ * 
+ * @author shahaal
+ *
+ */
+public class PicklistFile {
+
+	private static final String SELECTION_NODE = "selection";
+	private static final String CODE_ATTRIBUTE = "code";
+
+	private final String key;
+	private final Set<String> codes;
+
+	private PicklistFile(String key, Set<String> codes) {
+		this.key = key;
+		this.codes = codes;
+	}
+
+	/**
+	 * Get the picklist files contained in a folder
+	 * 
+	 * @param folder
+	 * @return the xml files of the folder, empty if the folder does not exist
+	 */
+	public static List<File> list(File folder) {
+
+		List<File> files = new ArrayList<>();
+
+		File[] children = folder.listFiles();
+
+		if (children == null)
+			return files;
+
+		for (File child : children) {
+			if (child.isFile() && child.getName().toLowerCase().endsWith(".xml"))
+				files.add(child);
+		}
+
+		return files;
+	}
+
+	/**
+	 * Read the main node and the codes of the selections of a picklist
+	 * 
+	 * @param file picklist xml file
+	 * @return
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 */
+	public static PicklistFile read(File file) throws IOException, XMLStreamException {
+
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+		try (InputStream input = new BufferedInputStream(new FileInputStream(file))) {
+
+			XMLStreamReader reader = factory.createXMLStreamReader(input);
+
+			try {
+
+				String key = null;
+				Set<String> codes = new LinkedHashSet<>();
+
+				while (reader.hasNext()) {
+
+					if (reader.next() != XMLStreamConstants.START_ELEMENT)
+						continue;
+
+					// the first node is the main node of the picklist
+					if (key == null) {
+						key = reader.getLocalName();
+						continue;
+					}
+
+					if (SELECTION_NODE.equals(reader.getLocalName())) {
+						String code = reader.getAttributeValue(null, CODE_ATTRIBUTE);
+						if (code != null)
+							codes.add(code);
+					}
+				}
+
+				return new PicklistFile(key, codes);
+
+			} finally {
+				reader.close();
+			}
+		}
+	}
+
+	/**
+	 * Get the main node of the picklist
+	 * 
+	 * @return
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * Get the codes of the selections, in the order of the file and without
+	 * duplicates
+	 * 
+	 * @return
+	 */
+	public Set<String> getCodes() {
+		return codes;
+	}
+}
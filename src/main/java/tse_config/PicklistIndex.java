@@ -0,0 +1,263 @@
+package tse_config;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import xml_catalog_reader.Selection;
+import xml_catalog_reader.XmlContents;
+import xml_catalog_reader.XmlLoader;
+
+/**
+ * Hash index over the elements of a picklist. Each code is resolved in the
+ * picklist only the first time, together with its numeric data, and then it
+ * is read from the index. The preloaded picklists are indexed eagerly with all
+ * the codes of their file.
+ * 
+ * @author shahaal
+ *
+ */
+public class PicklistIndex {
+
+	private static final Logger LOGGER = LogManager.getLogger(PicklistIndex.class);
+
+	public final static String GTE = "gte";
+	public final static String LT = "lt";
+	public final static String MIN = "min";
+	public final static String MAX = "max";
+
+	private static final ConcurrentHashMap<String, PicklistIndex> INDEXES = new ConcurrentHashMap<>();
+
+	// the xml loader of the library is not known to be thread safe
+	private static final Object LOADER_LOCK = new Object();
+
+	// marks a code which is not in the picklist
+	private static final Element MISSING = new Element(null);
+
+	private final XmlContents contents;
+	private final ConcurrentHashMap<String, Element> elements;
+
+	private PicklistIndex(XmlContents contents) {
+		this.contents = contents;
+		this.elements = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Get the index of a picklist
+	 * 
+	 * @param picklistKey main node of the picklist xml
+	 * @return the index or null if the picklist was not found
+	 */
+	public static PicklistIndex get(String picklistKey) {
+
+		PicklistIndex index = INDEXES.get(picklistKey);
+
+		if (index != null)
+			return index;
+
+		synchronized (LOADER_LOCK) {
+
+			index = INDEXES.get(picklistKey);
+
+			if (index != null)
+				return index;
+
+			XmlContents contents = XmlLoader.getByPicklistKey(picklistKey);
+
+			if (contents == null)
+				return null;
+
+			index = new PicklistIndex(contents);
+
+			INDEXES.put(picklistKey, index);
+
+			return index;
+		}
+	}
+
+	/**
+	 * Load all the picklists of the folder and index all their codes. The files
+	 * are read and indexed in parallel, while the library loads one picklist at
+	 * a time. The method returns when all the picklists are indexed.
+	 * 
+	 * @param folder folder of the picklist xml files
+	 * @return the number of preloaded picklists
+	 * @throws InterruptedException
+	 */
+	public static int preload(File folder) throws InterruptedException {
+
+		List<File> files = PicklistFile.list(folder);
+
+		if (files.isEmpty()) {
+			LOGGER.warn("Cannot preload the picklists, no picklist found in " + folder);
+			return 0;
+		}
+
+		List<Callable<Boolean>> tasks = new ArrayList<>();
+		for (final File file : files) {
+			tasks.add(new Callable<Boolean>() {
+
+				@Override
+				public Boolean call() throws IOException, XMLStreamException {
+					return preload(file.getName(), PicklistFile.read(file));
+				}
+			});
+		}
+
+		int threads = Math.min(files.size(), Runtime.getRuntime().availableProcessors());
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		int preloaded = 0;
+
+		try {
+
+			for (Future<Boolean> future : executor.invokeAll(tasks)) {
+				try {
+					if (future.get())
+						preloaded++;
+				} catch (ExecutionException e) {
+					e.printStackTrace();
+					LOGGER.error("Cannot preload a picklist", e.getCause());
+				}
+			}
+
+		} finally {
+			executor.shutdown();
+		}
+
+		LOGGER.info("Preloaded " + preloaded + " picklists of " + files.size());
+
+		return preloaded;
+	}
+
+	/**
+	 * Load a picklist and index all its codes
+	 * 
+	 * @param fileName name of the file, used for the logs
+	 * @param picklist main node and codes of the picklist
+	 * @return true if the picklist was indexed
+	 */
+	private static boolean preload(String fileName, PicklistFile picklist) {
+
+		PicklistIndex index = picklist.getKey() == null ? null : get(picklist.getKey());
+
+		if (index == null) {
+			LOGGER.warn("Cannot preload the picklist " + fileName + ", not found");
+			return false;
+		}
+
+		index.fill(picklist.getCodes());
+
+		return true;
+	}
+
+	/**
+	 * Index the elements of the codes, the codes which are not in the picklist
+	 * are indexed as missing
+	 * 
+	 * @param codes
+	 */
+	private void fill(Collection<String> codes) {
+		for (String code : codes) {
+			getElement(code);
+		}
+	}
+
+	/**
+	 * Get the element of the picklist with the code
+	 * 
+	 * @param code
+	 * @return the element or null if the code is not in the picklist
+	 */
+	public Element getElement(String code) {
+
+		if (code == null)
+			return null;
+
+		Element element = elements.get(code);
+
+		if (element == null) {
+
+			Selection selection = contents.getElementByCode(code);
+
+			element = selection == null ? MISSING : new Element(selection);
+
+			elements.putIfAbsent(code, element);
+		}
+
+		return element == MISSING ? null : element;
+	}
+
+	/**
+	 * Get the selection of the picklist with the code
+	 * 
+	 * @param code
+	 * @return the selection or null if the code is not in the picklist
+	 */
+	public Selection getElementByCode(String code) {
+
+		Element element = getElement(code);
+
+		return element == null ? null : element.getSelection();
+	}
+
+	/**
+	 * Element of the picklist with its numeric data already parsed
+	 */
+	public static class Element {
+
+		private final Selection selection;
+		private final Integer gte;
+		private final Integer lt;
+		private final Integer min;
+		private final Integer max;
+
+		private Element(Selection selection) {
+
+			this.selection = selection;
+
+			if (selection == null) {
+				this.gte = this.lt = this.min = this.max = null;
+				return;
+			}
+
+			this.gte = selection.getNumData(GTE);
+			this.lt = selection.getNumData(LT);
+			this.min = selection.getNumData(MIN);
+			this.max = selection.getNumData(MAX);
+		}
+
+		public Selection getSelection() {
+			return selection;
+		}
+
+		public Integer getGte() {
+			return gte;
+		}
+
+		public Integer getLt() {
+			return lt;
+		}
+
+		public Integer getMin() {
+			return min;
+		}
+
+		public Integer getMax() {
+			return max;
+		}
+	}
+}
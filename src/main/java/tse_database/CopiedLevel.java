@@ -0,0 +1,50 @@
+package tse_database;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Level of the tree of a report (as the cases) which is copied with a single
+ * query. The foreign keys of the level which refer to parents copied before
+ * are replaced with the ids of the copies.
+ * 
+ * @author shahaal
+ *
+ */
+public class CopiedLevel {
+
+	private String tableName;
+
+	// foreign key column, table of the parent
+	private LinkedHashMap<String, String> parents;
+
+	public CopiedLevel(String tableName) {
+		this.tableName = tableName;
+		this.parents = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Add a foreign key to a copied parent
+	 * 
+	 * @param foreignKey  column of the foreign key
+	 * @param parentTable table of the parent, copied before this level
+	 * @return the level itself
+	 */
+	public CopiedLevel addParent(String foreignKey, String parentTable) {
+		this.parents.put(foreignKey, parentTable);
+		return this;
+	}
+
+	public String getTableName() {
+		return tableName;
+	}
+
+	/**
+	 * Get the foreign keys to the copied parents
+	 * 
+	 * @return map of foreign key column and table of the parent
+	 */
+	public Map<String, String> getParents() {
+		return parents;
+	}
+}
@@ -0,0 +1,85 @@
+package tse_database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Index builder for the derby database. The names of the tables and of the
+ * columns are resolved with {@link DerbyNames}.
+ * 
+ * @author shahaal
+ *
+ */
+public class DerbyIndexBuilder implements IIndexBuilder {
+
+	private Connection con;
+
+	/**
+	 * Create the builder
+	 * 
+	 * @param con open connection to the database, which is not closed by the
+	 *            builder
+	 */
+	public DerbyIndexBuilder(Connection con) {
+		this.con = con;
+	}
+
+	@Override
+	public Collection<String> getIndexNames(String tableName) throws SQLException {
+
+		Collection<String> names = new ArrayList<>();
+
+		String[] table = DerbyNames.resolveTable(con, tableName);
+
+		if (table == null)
+			return names;
+
+		try (ResultSet rs = con.getMetaData().getIndexInfo(null, table[0], table[1], false, false);) {
+			while (rs.next()) {
+				String name = rs.getString("INDEX_NAME");
+				if (name != null && !names.contains(name))
+					names.add(name);
+			}
+		}
+
+		return names;
+	}
+
+	@Override
+	public void createIndex(TableIndex index) throws SQLException {
+
+		String[] table = DerbyNames.resolveTable(con, index.getTableName());
+
+		if (table == null)
+			throw new SQLException("Table " + index.getTableName() + " not found");
+
+		String column = DerbyNames.resolveColumn(con, table, index.getColumnName());
+
+		if (column == null)
+			throw new SQLException("Column " + index.getColumnName() + " not found in " + index.getTableName());
+
+		String query = "create index " + DerbyNames.quote(table[0], index.getName()) + " on "
+				+ DerbyNames.quote(table[0], table[1]) + " (" + DerbyNames.quote(column) + ")";
+
+		try (Statement stmt = con.createStatement();) {
+			stmt.executeUpdate(query);
+		}
+	}
+
+	@Override
+	public void dropIndex(String tableName, String indexName) throws SQLException {
+
+		String[] table = DerbyNames.resolveTable(con, tableName);
+
+		if (table == null)
+			return;
+
+		try (Statement stmt = con.createStatement();) {
+			stmt.executeUpdate("drop index " + DerbyNames.quote(table[0], indexName));
+		}
+	}
+}
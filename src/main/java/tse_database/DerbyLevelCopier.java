@@ -0,0 +1,412 @@
+package tse_database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Copy the tree of a row (as the summarized information, cases and results of a
+ * report) inside the derby database, with one insert select for each level and
+ * in a single transaction. The ids of the copies of each level are kept in a
+ * temporary table, which is joined by the inserts of the next levels to replace
+ * their foreign keys.
+ * 
+ * The rows of a level are inserted in the order of their ids while the table is
+ * locked, so the generated ids follow the same order and the copy of each row
+ * is found by position.
+ * 
+ * @author shahaal
+ *
+ */
+public class DerbyLevelCopier {
+
+	private static final Logger LOGGER = LogManager.getLogger(DerbyLevelCopier.class);
+
+	private static final String MAP_PREFIX = "COPY_MAP_";
+
+	private Connection con;
+
+	// temporary tables declared in the connection
+	private List<String> maps;
+
+	/**
+	 * Create the copier
+	 * 
+	 * @param con open connection to the database, which is not closed by the
+	 *            copier
+	 */
+	public DerbyLevelCopier(Connection con) {
+		this.con = con;
+		this.maps = new ArrayList<>();
+	}
+
+	/**
+	 * Copy the levels which belong to the old root row under the new root row. The
+	 * levels are copied in the given order, so the parents must come before their
+	 * children. The rows whose parents are not copied are skipped. If a level
+	 * cannot be copied, nothing is copied.
+	 * 
+	 * @param rootTable table of the root row
+	 * @param oldRootId id of the copied root
+	 * @param newRootId id of the copy of the root, already in the database
+	 * @param levels    levels to copy
+	 * @return the number of copied rows of each level
+	 * @throws SQLException
+	 */
+	public int[] copy(String rootTable, int oldRootId, int newRootId, List<CopiedLevel> levels)
+			throws SQLException {
+
+		boolean autoCommit = con.getAutoCommit();
+		con.setAutoCommit(false);
+
+		try {
+
+			// copied table, temporary table with its ids
+			HashMap<String, IdMap> idMaps = new HashMap<>();
+
+			IdMap rootMap = createMap(rootTable, levels);
+			if (rootMap != null) {
+				fillMap(rootMap, ids(oldRootId), ids(newRootId));
+				idMaps.put(rootTable.toLowerCase(), rootMap);
+			}
+
+			int[] copied = new int[levels.size()];
+
+			for (int i = 0; i < levels.size(); i++) {
+				copied[i] = copyLevel(levels.get(i), idMaps, levels);
+			}
+
+			con.commit();
+
+			return copied;
+
+		} catch (SQLException | RuntimeException e) {
+			con.rollback();
+			throw e;
+		} finally {
+			con.setAutoCommit(autoCommit);
+			dropMaps();
+		}
+	}
+
+	/**
+	 * Copy the rows of a level whose parents were copied
+	 * 
+	 * @param level
+	 * @param idMaps temporary tables of the copied levels
+	 * @param levels all the levels, to know if the ids of the copies are needed
+	 * @return the number of copied rows
+	 * @throws SQLException
+	 */
+	private int copyLevel(CopiedLevel level, HashMap<String, IdMap> idMaps, List<CopiedLevel> levels)
+			throws SQLException {
+
+		String[] table = getTable(level.getTableName());
+		String tableName = DerbyNames.quote(table[0], table[1]);
+		String id = getIdColumn(table);
+
+		// join the ids of the copied parents
+		StringBuilder from = new StringBuilder(" from ").append(tableName).append(" t");
+		HashMap<String, String> newKeys = new HashMap<>();
+
+		for (Map.Entry<String, String> parent : level.getParents().entrySet()) {
+
+			String column = getColumn(table, parent.getKey());
+			IdMap map = idMaps.get(parent.getValue().toLowerCase());
+
+			if (map == null)
+				throw new SQLException(
+						"The parent " + parent.getValue() + " of " + level.getTableName() + " was not copied before");
+
+			String alias = "m" + newKeys.size();
+
+			from.append(" join session.").append(map.name).append(" ").append(alias).append(" on t.")
+					.append(DerbyNames.quote(column)).append(" = ").append(alias).append(".OLD_ID");
+
+			newKeys.put(column, alias + ".NEW_ID");
+		}
+
+		StringBuilder columns = new StringBuilder();
+		StringBuilder values = new StringBuilder();
+
+		for (String column : getColumns(table)) {
+
+			if (column.equals(id))
+				continue;
+
+			if (columns.length() > 0) {
+				columns.append(", ");
+				values.append(", ");
+			}
+
+			columns.append(DerbyNames.quote(column));
+
+			String newKey = newKeys.get(column);
+			values.append(newKey == null ? "t." + DerbyNames.quote(column) : newKey);
+		}
+
+		String order = " order by t." + DerbyNames.quote(id);
+
+		// no other row can be inserted until the end of the copy
+		execute("lock table " + tableName + " in exclusive mode");
+
+		int lastId = getLastId(tableName, id);
+
+		List<Integer> oldIds = getIds("select t." + DerbyNames.quote(id) + from + order);
+
+		execute("insert into " + tableName + " (" + columns + ") select " + values + from + order);
+
+		List<Integer> newIds = getIds("select " + DerbyNames.quote(id) + " from " + tableName + " where "
+				+ DerbyNames.quote(id) + " > " + lastId + " order by " + DerbyNames.quote(id));
+
+		if (oldIds.size() != newIds.size())
+			throw new SQLException("Copied " + newIds.size() + " rows of " + level.getTableName() + " instead of "
+					+ oldIds.size());
+
+		IdMap map = createMap(level.getTableName(), levels);
+		if (map != null) {
+			fillMap(map, oldIds, newIds);
+			idMaps.put(level.getTableName().toLowerCase(), map);
+		}
+
+		LOGGER.info("Copied " + newIds.size() + " rows of " + level.getTableName());
+
+		return newIds.size();
+	}
+
+	/**
+	 * Create the temporary table for the ids of the copies of a table, with the
+	 * type of the foreign keys which refer to it
+	 * 
+	 * @param tableName
+	 * @param levels
+	 * @return the table or null if no level refers to the table
+	 * @throws SQLException
+	 */
+	private IdMap createMap(String tableName, List<CopiedLevel> levels) throws SQLException {
+
+		for (CopiedLevel level : levels) {
+			for (Map.Entry<String, String> parent : level.getParents().entrySet()) {
+
+				if (!parent.getValue().equalsIgnoreCase(tableName))
+					continue;
+
+				String[] child = getTable(level.getTableName());
+				String type = getColumnType(child, getColumn(child, parent.getKey()));
+
+				String name = MAP_PREFIX + maps.size();
+
+				execute("declare global temporary table session." + name + " (OLD_ID " + type + ", NEW_ID " + type
+						+ ") on commit preserve rows not logged");
+
+				maps.add(name);
+
+				return new IdMap(name, type.contains("CHAR"));
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Save the ids of the copies in a temporary table
+	 * 
+	 * @param map
+	 * @param oldIds
+	 * @param newIds
+	 * @throws SQLException
+	 */
+	private void fillMap(IdMap map, List<Integer> oldIds, List<Integer> newIds) throws SQLException {
+
+		try (PreparedStatement stmt = con
+				.prepareStatement("insert into session." + map.name + " (OLD_ID, NEW_ID) values (?, ?)");) {
+
+			for (int i = 0; i < oldIds.size(); i++) {
+
+				if (map.text) {
+					stmt.setString(1, String.valueOf(oldIds.get(i)));
+					stmt.setString(2, String.valueOf(newIds.get(i)));
+				} else {
+					stmt.setInt(1, oldIds.get(i));
+					stmt.setInt(2, newIds.get(i));
+				}
+
+				stmt.addBatch();
+			}
+
+			stmt.executeBatch();
+		}
+	}
+
+	/**
+	 * Remove the temporary tables. They are already removed if the transaction
+	 * was rolled back.
+	 */
+	private void dropMaps() {
+
+		for (String name : maps) {
+			try {
+				execute("drop table session." + name);
+			} catch (SQLException e) {
+				LOGGER.debug("Temporary table " + name + " already removed", e);
+			}
+		}
+
+		maps.clear();
+
+		try {
+			if (!con.getAutoCommit())
+				con.commit();
+		} catch (SQLException e) {
+			e.printStackTrace();
+			LOGGER.error("Cannot remove the temporary tables of the copy", e);
+		}
+	}
+
+	private String[] getTable(String tableName) throws SQLException {
+
+		String[] table = DerbyNames.resolveTable(con, tableName);
+
+		if (table == null)
+			throw new SQLException("Table " + tableName + " not found");
+
+		return table;
+	}
+
+	private String getColumn(String[] table, String columnName) throws SQLException {
+
+		String column = DerbyNames.resolveColumn(con, table, columnName);
+
+		if (column == null)
+			throw new SQLException("Column " + columnName + " not found in " + table[1]);
+
+		return column;
+	}
+
+	/**
+	 * Get all the columns of a table
+	 * 
+	 * @param table
+	 * @return
+	 * @throws SQLException
+	 */
+	private List<String> getColumns(String[] table) throws SQLException {
+
+		List<String> columns = new ArrayList<>();
+
+		try (ResultSet rs = con.getMetaData().getColumns(null, table[0], table[1], null);) {
+			while (rs.next()) {
+				columns.add(rs.getString("COLUMN_NAME"));
+			}
+		}
+
+		return columns;
+	}
+
+	/**
+	 * Get the column whose values are generated by the database
+	 * 
+	 * @param table
+	 * @return
+	 * @throws SQLException
+	 */
+	private String getIdColumn(String[] table) throws SQLException {
+
+		try (ResultSet rs = con.getMetaData().getColumns(null, table[0], table[1], null);) {
+			while (rs.next()) {
+				if ("YES".equals(rs.getString("IS_AUTOINCREMENT")))
+					return rs.getString("COLUMN_NAME");
+			}
+		}
+
+		throw new SQLException("No generated id found in " + table[1]);
+	}
+
+	/**
+	 * Get the sql type of a column, with its size for the text types
+	 * 
+	 * @param table
+	 * @param column
+	 * @return
+	 * @throws SQLException
+	 */
+	private String getColumnType(String[] table, String column) throws SQLException {
+
+		try (ResultSet rs = con.getMetaData().getColumns(null, table[0], table[1], column);) {
+			if (rs.next()) {
+
+				String type = rs.getString("TYPE_NAME");
+
+				if (type.contains("CHAR"))
+					return type + "(" + rs.getInt("COLUMN_SIZE") + ")";
+
+				return type;
+			}
+		}
+
+		throw new SQLException("Column " + column + " not found in " + table[1]);
+	}
+
+	private int getLastId(String tableName, String id) throws SQLException {
+
+		try (Statement stmt = con.createStatement();
+				ResultSet rs = stmt.executeQuery("select max(" + DerbyNames.quote(id) + ") from " + tableName);) {
+
+			if (rs.next()) {
+				int last = rs.getInt(1);
+				if (!rs.wasNull())
+					return last;
+			}
+		}
+
+		return 0;
+	}
+
+	private List<Integer> getIds(String query) throws SQLException {
+
+		List<Integer> ids = new ArrayList<>();
+
+		try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery(query);) {
+			while (rs.next()) {
+				ids.add(rs.getInt(1));
+			}
+		}
+
+		return ids;
+	}
+
+	private static List<Integer> ids(int id) {
+		List<Integer> ids = new ArrayList<>();
+		ids.add(id);
+		return ids;
+	}
+
+	private void execute(String query) throws SQLException {
+		try (Statement stmt = con.createStatement();) {
+			stmt.executeUpdate(query);
+		}
+	}
+
+	/**
+	 * Temporary table with the ids of the copies of a table
+	 */
+	private static class IdMap {
+
+		private String name;
+		private boolean text;
+
+		public IdMap(String name, boolean text) {
+			this.name = name;
+			this.text = text;
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package tse_database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Resolve the names of the tables and of the columns of the derby database
+ * through the metadata of the connection, since they can be stored in upper
+ * case.
+ * 
+ * @author shahaal
+ *
+ */
+class DerbyNames {
+
+	private DerbyNames() {
+	}
+
+	/**
+	 * Get the schema and the name of a table as stored in the database
+	 * 
+	 * @param con
+	 * @param tableName
+	 * @return an array with the schema and the name, or null if the table was not
+	 *         found
+	 * @throws SQLException
+	 */
+	static String[] resolveTable(Connection con, String tableName) throws SQLException {
+
+		try (ResultSet rs = con.getMetaData().getTables(null, null, null, new String[] { "TABLE" });) {
+			while (rs.next()) {
+				String name = rs.getString("TABLE_NAME");
+				if (name.equalsIgnoreCase(tableName))
+					return new String[] { rs.getString("TABLE_SCHEM"), name };
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Get the name of a column as stored in the database
+	 * 
+	 * @param con
+	 * @param table      schema and name of the table
+	 * @param columnName
+	 * @return the name or null if the column was not found
+	 * @throws SQLException
+	 */
+	static String resolveColumn(Connection con, String[] table, String columnName) throws SQLException {
+
+		try (ResultSet rs = con.getMetaData().getColumns(null, table[0], table[1], null);) {
+			while (rs.next()) {
+				String name = rs.getString("COLUMN_NAME");
+				if (name.equalsIgnoreCase(columnName))
+					return name;
+			}
+		}
+
+		return null;
+	}
+
+	static String quote(String schema, String name) {
+		return schema == null ? quote(name) : quote(schema) + "." + quote(name);
+	}
+
+	static String quote(String name) {
+		return "\"" + name.replace("\"", "\"\"") + "\"";
+	}
+}
@@ -0,0 +1,23 @@
+package tse_database;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Open connections to the database of the application
+ * 
+ * @author shahaal
+ *
+ */
+public interface IConnectionProvider {
+
+	/**
+	 * Open a new connection, which must be closed by the caller
+	 * 
+	 * @return
+	 * @throws IOException
+	 * @throws SQLException
+	 */
+	public Connection getConnection() throws IOException, SQLException;
+}
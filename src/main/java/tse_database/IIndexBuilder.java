@@ -0,0 +1,40 @@
+package tse_database;
+
+import java.sql.SQLException;
+import java.util.Collection;
+
+/**
+ * Create and remove the indexes of the tables of the database
+ * 
+ * @author shahaal
+ *
+ */
+public interface IIndexBuilder {
+
+	/**
+	 * Get the names of the indexes which exist on a table
+	 * 
+	 * @param tableName
+	 * @return the names of the indexes or an empty collection if the table does
+	 *         not exist
+	 * @throws SQLException
+	 */
+	public Collection<String> getIndexNames(String tableName) throws SQLException;
+
+	/**
+	 * Create an index
+	 * 
+	 * @param index
+	 * @throws SQLException
+	 */
+	public void createIndex(TableIndex index) throws SQLException;
+
+	/**
+	 * Remove an index
+	 * 
+	 * @param tableName table of the index
+	 * @param indexName name of the index
+	 * @throws SQLException
+	 */
+	public void dropIndex(String tableName, String indexName) throws SQLException;
+}
@@ -0,0 +1,90 @@
+package tse_database;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Align the indexes of the database with the declared ones. Missing indexes are
+ * created, while the indexes created by the application on columns which are
+ * not indexed anymore are removed.
+ * 
+ * @author shahaal
+ *
+ */
+public class IndexUpdater {
+
+	private static final Logger LOGGER = LogManager.getLogger(IndexUpdater.class);
+
+	private IIndexBuilder builder;
+
+	public IndexUpdater(IIndexBuilder builder) {
+		this.builder = builder;
+	}
+
+	/**
+	 * Update the indexes of the tables
+	 * 
+	 * @param tableNames tables to be updated
+	 * @param indexes    declared indexes
+	 * @return the number of created indexes
+	 * @throws SQLException
+	 */
+	public int update(Collection<String> tableNames, TableIndexList indexes) throws SQLException {
+
+		int created = 0;
+
+		for (String tableName : tableNames) {
+
+			Collection<String> existing = builder.getIndexNames(tableName);
+
+			Set<String> declared = new HashSet<>();
+
+			for (TableIndex index : indexes.getByTable(tableName)) {
+
+				declared.add(index.getName());
+
+				if (existing.contains(index.getName()))
+					continue;
+
+				LOGGER.info("Creating index " + index);
+				builder.createIndex(index);
+				created++;
+			}
+
+			String prefix = TableIndex.getPrefix(tableName);
+
+			for (String name : existing) {
+
+				// the other indexes are not managed here
+				if (!name.startsWith(prefix) || declared.contains(name))
+					continue;
+
+				LOGGER.info("Removing index " + name + " from " + tableName);
+				builder.dropIndex(tableName, name);
+			}
+		}
+
+		return created;
+	}
+
+	/**
+	 * Update the indexes of all the tables which have at least a declared index
+	 * 
+	 * @param indexes declared indexes
+	 * @return the number of created indexes
+	 * @throws SQLException
+	 */
+	public int update(TableIndexList indexes) throws SQLException {
+
+		Set<String> tableNames = new HashSet<>();
+		for (TableIndex index : indexes)
+			tableNames.add(index.getTableName());
+
+		return update(tableNames, indexes);
+	}
+}
@@ -0,0 +1,87 @@
+package tse_database;
+
+import java.util.Locale;
+
+/**
+ * Index declared on a single column of a table of the schema. The name of the
+ * index is derived from the table and the column, so that the indexes created
+ * by the application can be recognised when the schema changes.
+ * 
+ * @author shahaal
+ *
+ */
+public class TableIndex {
+
+	public static final String PREFIX = "IDX_";
+
+	// maximum length of an identifier in derby
+	private static final int MAX_NAME_LENGTH = 128;
+
+	private String tableName;
+	private String columnName;
+
+	/**
+	 * Create an index declaration
+	 * 
+	 * @param tableName  name of the table (sheet name of the schema)
+	 * @param columnName id of the indexed column
+	 */
+	public TableIndex(String tableName, String columnName) {
+		this.tableName = tableName;
+		this.columnName = columnName;
+	}
+
+	public String getTableName() {
+		return tableName;
+	}
+
+	public String getColumnName() {
+		return columnName;
+	}
+
+	/**
+	 * Get the name of the index
+	 * 
+	 * @return
+	 */
+	public String getName() {
+
+		String name = getPrefix(tableName) + columnName.toUpperCase(Locale.ROOT);
+
+		if (name.length() > MAX_NAME_LENGTH)
+			name = name.substring(0, MAX_NAME_LENGTH);
+
+		return name;
+	}
+
+	/**
+	 * Get the prefix of the names of the indexes created by the application on
+	 * a table
+	 * 
+	 * @param tableName
+	 * @return
+	 */
+	public static String getPrefix(String tableName) {
+		return PREFIX + tableName.toUpperCase(Locale.ROOT) + "_";
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+
+		if (!(obj instanceof TableIndex))
+			return false;
+
+		TableIndex other = (TableIndex) obj;
+		return tableName.equals(other.tableName) && columnName.equals(other.columnName);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * tableName.hashCode() + columnName.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return getName() + " on " + tableName + "(" + columnName + ")";
+	}
+}
@@ -0,0 +1,92 @@
+package tse_database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import app_config.AppPaths;
+import table_skeleton.TableColumn;
+import tse_config.CustomStrings;
+import xlsx_reader.TableSchema;
+import xlsx_reader.TableSchemaList;
+
+/**
+ * Declaration of the indexes of the database. Each foreign key column of the
+ * schema is indexed, since the children of a row are always retrieved by parent
+ * id, together with the lookup columns used to search the rows by field.
+ * 
+ * @author shahaal
+ *
+ */
+public class TableIndexList extends ArrayList<TableIndex> {
+
+	private static final long serialVersionUID = 6093446391268154117L;
+
+	// sheets of the report which are stored in the database
+	private static final String[] SHEETS = { CustomStrings.REPORT_SHEET, CustomStrings.SUMMARIZED_INFO_SHEET,
+			CustomStrings.CASE_INFO_SHEET, CustomStrings.RESULT_SHEET };
+
+	// columns used in the searches by field
+	private static final String[] LOOKUP_COLUMNS = { AppPaths.REPORT_SENDER_ID, CustomStrings.SAMPLE_ID_COL,
+			CustomStrings.RES_ID_COL };
+
+	/**
+	 * Get the indexes of the current tables schema
+	 * 
+	 * @return
+	 */
+	public static TableIndexList getAll() {
+
+		Collection<TableSchema> schemas = new ArrayList<>();
+		for (String sheet : SHEETS) {
+			TableSchema schema = TableSchemaList.getByName(sheet);
+			if (schema != null)
+				schemas.add(schema);
+		}
+
+		return getAll(schemas, LOOKUP_COLUMNS);
+	}
+
+	/**
+	 * Get the indexes of the schemas
+	 * 
+	 * @param schemas       tables to be indexed
+	 * @param lookupColumns columns indexed in addition to the foreign keys, if
+	 *                      they are present in the table
+	 * @return
+	 */
+	public static TableIndexList getAll(Collection<TableSchema> schemas, String... lookupColumns) {
+
+		List<String> lookups = Arrays.asList(lookupColumns);
+
+		TableIndexList indexes = new TableIndexList();
+
+		for (TableSchema schema : schemas) {
+			for (TableColumn column : schema) {
+				if (column.isForeignKey() || lookups.contains(column.getId()))
+					indexes.add(new TableIndex(schema.getSheetName(), column.getId()));
+			}
+		}
+
+		return indexes;
+	}
+
+	/**
+	 * Get the indexes declared on a table
+	 * 
+	 * @param tableName
+	 * @return
+	 */
+	public Collection<TableIndex> getByTable(String tableName) {
+
+		Collection<TableIndex> indexes = new ArrayList<>();
+
+		for (TableIndex index : this) {
+			if (index.getTableName().equals(tableName))
+				indexes.add(index);
+		}
+
+		return indexes;
+	}
+}
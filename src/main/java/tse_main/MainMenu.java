@@ -34,6 +34,7 @@ import providers.ITableDaoService;
 import providers.TseReportService;
 import report.ReportException;
 import report.ReportSendOperation;
+import report_downloader.ImportProgressListener;
 import report_downloader.TseReportDownloader;
 import report_downloader.TseReportImporter;
 import soap.DetailedSOAPException;
@@ -41,6 +42,7 @@ import table_database.TableDao;
 import table_skeleton.TableRow;
 import table_skeleton.TableVersion;
 import test_case.EnumPicker;
+import tse_components.ProgressDialog;
 import tse_config.CustomStrings;
 import tse_config.DebugConfig;
 import tse_options.PreferencesDialog;
@@ -48,6 +50,7 @@ import tse_options.SettingsDialog;
 import tse_report.ReportCreatorDialog;
 import tse_report.ReportListDialog;
 import tse_report.TseReport;
+import tse_validator.ValidationCache;
 import user_interface.ProxySettingsDialog;
 import xlsx_reader.TableSchema;
 import xlsx_reader.TableSchemaList;
@@ -86,8 +89,7 @@ public class MainMenu {
 	protected MenuItem exportReport;
 	protected MenuItem exitApplication;
 
-	// TODO to finish
-	// private MenuItem importExcelReport;
+	protected MenuItem importExcelReport;
 
 	public MainMenu(MainPanel mainPanel, Shell shell, TseReportService reportService, ITableDaoService daoService,
 			IFormulaService formulaService) {
@@ -135,8 +137,7 @@ public class MainMenu {
 				exportReport.setEnabled(isReportOpened && mainPanel.getOpenedReport().getRCLStatus().isValid());
 				importReport.setEnabled(!DebugConfig.disableFileFuncs && editable);
 
-				// TODO enable import excel report if not report is currently opened
-				// importExcelReport.setEnabled(editable);
+				importExcelReport.setEnabled(!DebugConfig.disableFileFuncs && editable);
 			}
 		});
 
@@ -303,61 +304,31 @@ public class MainMenu {
 			}
 		});
 
-		/*
-		 * TODO to be concluded the import excel function
-		 * 
-		 * // add buttons to the file menu this.importExcelReport = new
-		 * MenuItem(fileMenu, SWT.PUSH);
-		 * this.importExcelReport.setText(TSEMessages.get("import.excel_report.button"))
-		 * ; this.importExcelReport.setEnabled(false);
-		 * this.importExcelReport.addSelectionListener(new SelectionListener() {
-		 * 
-		 * @Override public void widgetSelected(SelectionEvent arg0) {
-		 * 
-		 * //choose the excel file to import TseFileDialog fileDialog = new
-		 * TseFileDialog(shell); File excelFile = fileDialog.loadExcel();
-		 * 
-		 * // take the info of the current opened report TseReport report =
-		 * mainPanel.getOpenedReport();
-		 * 
-		 * if (report == null) return;
-		 * 
-		 * LOGGER.debug("Importing excel in report " + report.getSenderId());
-		 * MessageConfigBuilder messageConfig =
-		 * reportService.getSendMessageConfiguration(report);
-		 * messageConfig.setOpType(OperationType.INSERT);
-		 * 
-		 * // TODO this part of messageConfig should be replaced with the one received
-		 * from the ExcelToXml class //
-		 * System.out.println("msg config "+messageConfig.getMessageConfig().
-		 * toXml(true));
-		 * 
-		 * try { reportService.export(report, messageConfig); } catch (IOException |
-		 * ParserConfigurationException | SAXException | ReportException |
-		 * AmendException e) { e.printStackTrace(); LOGGER.error("Export report failed",
-		 * e); }
-		 * 
-		 * ExcelXmlConverter converter = new ExcelXmlConverter();
-		 * 
-		 * try { File file=converter.convertXExcelToXml(excelFile);
-		 * 
-		 * if (file == null) return;
-		 * 
-		 * TseReportImporter imp = new TseReportImporter(reportService, daoService);
-		 * imp.importFirstDatasetVersion(file);
-		 * 
-		 * } catch (XMLStreamException | IOException | FormulaException | ParseException
-		 * | ParserConfigurationException | TransformerException e) {
-		 * e.printStackTrace(); }
-		 * 
-		 * LOGGER.debug("Opening import report dialog");
-		 * 
-		 * }
-		 * 
-		 * @Override public void widgetDefaultSelected(SelectionEvent arg0) {
-		 * 
-		 * } });
-		 */
+		this.importExcelReport = new MenuItem(fileMenu, SWT.PUSH);
+		this.importExcelReport.setText(TSEMessages.get("import.excel_report.button"));
+		this.importExcelReport.setEnabled(false);
+		this.importExcelReport.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent arg0) {
+
+				// take the info of the current opened report
+				TseReport report = mainPanel.getOpenedReport();
+
+				if (report == null)
+					return;
+
+				// choose the excel file to import
+				TseFileDialog fileDialog = new TseFileDialog(shell);
+				File excelFile = fileDialog.loadExcel();
+
+				if (excelFile == null)
+					return;
+
+				LOGGER.debug("Importing excel in report " + report.getSenderId());
+
+				importExcel(report, excelFile);
+			}
+		});
 
 		this.downloadReport = new MenuItem(fileMenu, SWT.PUSH);
 		this.downloadReport.setText(TSEMessages.get("download.report.item"));
@@ -596,6 +567,7 @@ public class MainMenu {
 
 				LOGGER.debug("Report " + report.getSenderId() + " deleted from disk");
 
+				ValidationCache.remove(report);
 				report.delete();
 			}
 
@@ -646,6 +618,70 @@ public class MainMenu {
 
 	}
 
+	/**
+	 * Import the rows of an Excel report into the opened report in background,
+	 * showing the progress
+	 * 
+	 * @param report
+	 * @param excelFile
+	 */
+	private void importExcel(final TseReport report, final File excelFile) {
+
+		final ProgressDialog progressBar = new ProgressDialog(shell, TSEMessages.get("import.excel_report.progress"));
+		progressBar.open();
+
+		Thread importThread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+
+				boolean imported = false;
+
+				try {
+					TseReportImporter imp = new TseReportImporter(reportService, daoService);
+					imp.importExcelRows(report, excelFile, new ImportProgressListener() {
+
+						@Override
+						public void progress(int importedRows, int estimatedRows) {
+							progressBar.setProgress(importedRows, estimatedRows);
+						}
+					});
+
+					imported = true;
+
+				} catch (XMLStreamException | IOException | FormulaException | ParseException | RuntimeException e) {
+					e.printStackTrace();
+					LOGGER.error("Cannot import the excel report=" + excelFile, e);
+				}
+
+				final boolean success = imported;
+
+				shell.getDisplay().asyncExec(new Runnable() {
+
+					@Override
+					public void run() {
+
+						progressBar.close();
+
+						if (!success) {
+							Message m = Warnings.createFatal(
+									TSEMessages.get("import.excel_report.error", PropertiesReader.getSupportEmail()));
+							m.open(shell);
+							return;
+						}
+
+						mainPanel.refresh();
+
+						Warnings.warnUser(shell, TSEMessages.get("success.title"),
+								TSEMessages.get("import.excel_report.success"), SWT.ICON_INFORMATION);
+					}
+				});
+			}
+		}, "excel-import");
+
+		importThread.start();
+	}
+
 	public Menu getMenu() {
 		return main;
 	}
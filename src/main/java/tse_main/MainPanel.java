@@ -9,6 +9,7 @@ import providers.ITableDaoService;
 import providers.TseReportService;
 import tse_report.TseReport;
 import tse_summarized_information.SummarizedInfoDialog;
+import tse_validator.ValidationCache;
 
 public class MainPanel {
 
@@ -66,6 +67,11 @@ public class MainPanel {
 	}
 	
 	public void closeReport() {
+		
+		TseReport report = getOpenedReport();
+		if (report != null)
+			ValidationCache.remove(report);
+		
 		this.reportViewer.clear();
 		GlobalManager.getInstance().setOpenedReport(null);
 	}
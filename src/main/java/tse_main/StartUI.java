@@ -1,8 +1,13 @@
 package tse_main;
 
+import java.io.File;
 import java.io.IOException;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -20,6 +25,7 @@ import global_utils.FileUtils;
 import global_utils.Warnings;
 import html_viewer.HtmlViewer;
 import i18n_messages.TSEMessages;
+import predefined_results.PredefinedResultList;
 import providers.FormulaService;
 import providers.IFormulaService;
 import providers.ITableDaoService;
@@ -39,8 +45,14 @@ import table_database.ITableDao;
 import table_database.TableDao;
 import table_skeleton.TableCell;
 import table_skeleton.TableRow;
+import tse_components.SplashScreen;
 import tse_config.CustomStrings;
 import tse_config.DebugConfig;
+import tse_config.PicklistIndex;
+import tse_database.DerbyIndexBuilder;
+import tse_database.IConnectionProvider;
+import tse_database.IndexUpdater;
+import tse_database.TableIndexList;
 import tse_options.PreferencesDialog;
 import tse_options.SettingsDialog;
 import tse_report.ReportCreatorDialog;
@@ -172,7 +184,6 @@ public class StartUI {
 				SWT.YES | SWT.NO | SWT.ICON_WARNING);
 
 		shell.dispose();
-		display.dispose();
 
 		return val;
 	}
@@ -198,39 +209,192 @@ public class StartUI {
 		}
 	}
 
+	/**
+	 * Start a phase of the startup in a background thread
+	 * 
+	 * @param phase name of the phase, used for the timings
+	 * @param timer
+	 * @param task
+	 * @return the running phase
+	 */
+	private <T> FutureTask<T> startPhase(final String phase, final StartupTimer timer, final Callable<T> task) {
+
+		FutureTask<T> future = new FutureTask<>(new Callable<T>() {
+
+			@Override
+			public T call() throws Exception {
+
+				long begin = timer.begin();
+
+				try {
+					return task.call();
+				} finally {
+					timer.end(phase, begin);
+
+					// wake up the ui thread which is waiting the phase
+					if (display != null && !display.isDisposed())
+						display.wake();
+				}
+			}
+		});
+
+		Thread thread = new Thread(future, "startup-" + phase);
+		thread.setDaemon(true);
+		thread.start();
+
+		return future;
+	}
+
+	/**
+	 * Wait the end of a startup phase, dispatching the ui events in the meantime
+	 * 
+	 * @param future
+	 * @return the result of the phase
+	 * @throws ExecutionException if the phase failed
+	 */
+	private <T> T awaitPhase(FutureTask<T> future) throws ExecutionException {
+
+		while (!future.isDone()) {
+			if (!display.readAndDispatch())
+				display.sleep();
+		}
+
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ExecutionException(e);
+		}
+	}
+
+	/**
+	 * Throw again the unchecked cause of a failed phase, since they were not
+	 * handled during the startup
+	 * 
+	 * @param e
+	 */
+	private static void rethrowUnchecked(ExecutionException e) {
+
+		if (e.getCause() instanceof RuntimeException)
+			throw (RuntimeException) e.getCause();
+
+		if (e.getCause() instanceof Error)
+			throw (Error) e.getCause();
+	}
+
+	/**
+	 * Create the missing indexes of the tables and remove the ones which are not
+	 * declared anymore
+	 * 
+	 * @param db
+	 * @throws IOException
+	 * @throws SQLException
+	 */
+	private static void updateIndexes(Database db) throws IOException, SQLException {
+
+		try (Connection con = db.getConnection();) {
+			IndexUpdater updater = new IndexUpdater(new DerbyIndexBuilder(con));
+			int created = updater.update(TableIndexList.getAll());
+			LOGGER.info("Indexes of the database updated, created=" + created);
+		}
+	}
+
+	/**
+	 * Create the task which initialises the library and checks the
+	 * configuration files
+	 * 
+	 * @return
+	 */
+	private static Callable<Void> createLibraryInit() {
+		return new Callable<Void>() {
+
+			@Override
+			public Void call() throws IOException, SQLException, DatabaseVersionException {
+
+				FileUtils.createFolder(CustomStrings.PREFERENCE_FOLDER);
+
+				// Initialise the library
+				EFSARCL.init();
+
+				// check also custom files
+				EFSARCL.checkConfigFiles(CustomStrings.PREDEFINED_RESULTS_FILE, AppPaths.CONFIG_FOLDER);
+
+				return null;
+			}
+		};
+	}
+
 	private Database launch() {
 
 		// application start-up message. Usage of System.err used for red chars
 		LOGGER.info("Application started " + System.currentTimeMillis());
 
+		final StartupTimer timer = new StartupTimer();
+
+		// create the display first to show the splash screen
+		// while the database and the library are loaded
+		long begin = timer.begin();
+		display = new Display();
+
+		SplashScreen splash = new SplashScreen(display,
+				PropertiesReader.getAppName() + " " + PropertiesReader.getAppVersion());
+		splash.open();
+		timer.end("display", begin);
+
 		// connect to the database application
-		Database db = new Database();
+		final Database db = new Database();
+
+		// the library is initialised while the database is connected, they are
+		// both needed only by the indexes phase
+		FutureTask<Void> connection = startPhase("database", timer, new Callable<Void>() {
+
+			@Override
+			public Void call() throws IOException {
+				db.connect();
+				return null;
+			}
+		});
+
+		FutureTask<Void> library = startPhase("library", timer, createLibraryInit());
 
 		try {
-			db.connect();
-		} catch (IOException e) {
-			LOGGER.error("Database not found or incompatible", e);
-			showInitError(TSEMessages.get("db.init.error", e.getMessage()));
+			awaitPhase(connection);
+		} catch (ExecutionException e) {
+			rethrowUnchecked(e);
+			LOGGER.error("Database not found or incompatible", e.getCause());
+			splash.close();
+			showInitError(TSEMessages.get("db.init.error", e.getCause().getMessage()));
 			return null;
 		}
 
 		try {
 
-			FileUtils.createFolder(CustomStrings.PREFERENCE_FOLDER);
+			try {
+				awaitPhase(library);
+			} catch (ExecutionException e) {
+
+				// the library could need the database which was being created (first
+				// start), initialise it again now that the database is connected
+				LOGGER.warn("Cannot Initialise the library while connecting the database, trying again",
+						e.getCause());
+
+				awaitPhase(startPhase("library-retry", timer, createLibraryInit()));
+			}
+
+		} catch (ExecutionException e) {
 
-			// Initialise the library
-			EFSARCL.init();
+			rethrowUnchecked(e);
 
-			// check also custom files
-			EFSARCL.checkConfigFiles(CustomStrings.PREDEFINED_RESULTS_FILE, AppPaths.CONFIG_FOLDER);
+			if (!(e.getCause() instanceof DatabaseVersionException)) {
+				LOGGER.fatal("Cannot Initialise the EFSARCL library and accessory files", e.getCause());
+				splash.close();
+				showInitError(TSEMessages.get("efsa.rcl.init.error", e.getCause().getMessage()));
+				return db;
+			}
 
-		} catch (IOException | SQLException e) {
-			LOGGER.fatal("Cannot Initialise the EFSARCL library and accessory files", e);
-			showInitError(TSEMessages.get("efsa.rcl.init.error", e.getMessage()));
-			return db;
-		} catch (DatabaseVersionException e) {
+			LOGGER.warn("Old version of the database found", e.getCause());
 
-			LOGGER.warn("Old version of the database found", e);
+			splash.close();
 
 			int val = ask(TSEMessages.get("db.need.removal"));
 
@@ -256,8 +420,56 @@ public class StartUI {
 			}
 		}
 
+		// picklists used while rendering and validating, loaded while the indexes
+		// are updated. The main panel and the other phases could read them through
+		// the loader of the library, so they are awaited before going on
+		FutureTask<Integer> picklists = startPhase("picklists", timer, new Callable<Integer>() {
+
+			@Override
+			public Integer call() throws InterruptedException {
+				return PicklistIndex.preload(new File(CustomStrings.PICKLISTS_FOLDER));
+			}
+		});
+
+		// index the foreign keys and the lookup columns of the tables, the schema
+		// is already aligned by the library initialisation
+		try {
+			awaitPhase(startPhase("indexes", timer, new Callable<Void>() {
+
+				@Override
+				public Void call() throws IOException, SQLException {
+					updateIndexes(db);
+					return null;
+				}
+			}));
+		} catch (ExecutionException e) {
+			rethrowUnchecked(e);
+			// the application works also without the indexes, only slower
+			LOGGER.error("Cannot update the indexes of the database", e.getCause());
+		}
+
+		try {
+			awaitPhase(picklists);
+		} catch (ExecutionException e) {
+			rethrowUnchecked(e);
+			// the picklists are loaded again when needed
+			LOGGER.error("Cannot preload the picklists", e.getCause());
+		}
+
+		// independent from the main window: the predefined results
+		// and the check of preferences and settings
+		FutureTask<boolean[]> preload = startPhase("preload", timer, new Callable<boolean[]>() {
+
+			@Override
+			public boolean[] call() {
+
+				PredefinedResultList.getAll();
+
+				return new boolean[] { checkPreferences(), checkSettings() };
+			}
+		});
+
 		// create the main panel
-		display = new Display();
 		final Shell shell = new Shell(display);
 
 		// set the application name in the shell
@@ -276,8 +488,17 @@ public class StartUI {
 		TseReportService reportService = new TseReportService(getAck, getDatasetsList, sendMessage, getDataset,
 				daoService, formulaService);
 
-		// open the main panel
+		// the amendments are copied inside the database
+		reportService.setConnectionProvider(new IConnectionProvider() {
+
+			@Override
+			public Connection getConnection() throws IOException, SQLException {
+				return db.getConnection();
+			}
+		});
 
+		// open the main panel
+		begin = timer.begin();
 		try {
 			MainPanel mainPanel = new MainPanel(shell, reportService, daoService, formulaService);
 			mainPanel.create();
@@ -285,10 +506,12 @@ public class StartUI {
 			e.printStackTrace();
 			LOGGER.fatal("Generic error occurred", e);
 
+			splash.close();
 			Warnings.createFatal(TSEMessages.get("generic.error", PropertiesReader.getSupportEmail())).open(shell);
 
 			return null;
 		}
+		timer.end("main panel", begin);
 
 		// set the application icon into the shell
 		Image image = new Image(Display.getCurrent(),
@@ -297,17 +520,44 @@ public class StartUI {
 		if (image != null)
 			shell.setImage(image);
 
-		// open also an help view for showing general help
-		if (!DebugConfig.debug) {
-			HtmlViewer help = new HtmlViewer();
-			help.open(PropertiesReader.getStartupHelpURL());
+		boolean preferencesSet;
+		boolean settingsSet;
+		try {
+			boolean[] checks = awaitPhase(preload);
+			preferencesSet = checks[0];
+			settingsSet = checks[1];
+		} catch (ExecutionException e) {
+			rethrowUnchecked(e);
+			LOGGER.error("Cannot check preferences and settings", e.getCause());
+			preferencesSet = checkPreferences();
+			settingsSet = checkSettings();
 		}
 
+		splash.close();
+
 		// open the shell to the user
 		shell.open();
 
+		timer.log("Main window usable");
+
+		// open also an help view for showing general help. The page is loaded
+		// by an swt browser, so it is opened by the ui thread once the main
+		// window is shown
+		if (!DebugConfig.debug) {
+			display.asyncExec(new Runnable() {
+
+				@Override
+				public void run() {
+					long helpBegin = timer.begin();
+					HtmlViewer help = new HtmlViewer();
+					help.open(PropertiesReader.getStartupHelpURL());
+					timer.end("help", helpBegin);
+				}
+			});
+		}
+
 		// check preferences
-		if (!checkPreferences()) {
+		if (!preferencesSet) {
 			PreferencesDialog pref = new PreferencesDialog(shell);
 			pref.open();
 
@@ -326,7 +576,7 @@ public class StartUI {
 		}
 
 		// check settings
-		if (!checkSettings()) {
+		if (!settingsSet) {
 			SettingsDialog settingsDialog = new SettingsDialog(shell, reportService, daoService);
 			settingsDialog.open();
 
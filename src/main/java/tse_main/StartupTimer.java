@@ -0,0 +1,74 @@
+package tse_main;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Collects the duration of the startup phases, which can run in different
+ * threads, and logs them
+ * 
+ * @author shahaal
+ *
+ */
+public class StartupTimer {
+
+	private static final Logger LOGGER = LogManager.getLogger(StartupTimer.class);
+
+	private final long startTime;
+	private final Map<String, Long> durations;
+
+	public StartupTimer() {
+		this.startTime = System.nanoTime();
+		this.durations = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Get the start time of a phase
+	 * 
+	 * @return
+	 */
+	public long begin() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Save the duration of a phase
+	 * 
+	 * @param phase name of the phase
+	 * @param begin value returned by {@link #begin()}
+	 */
+	public void end(String phase, long begin) {
+
+		long millis = (System.nanoTime() - begin) / 1000000;
+
+		synchronized (durations) {
+			durations.put(phase, millis);
+		}
+
+		LOGGER.info("Startup phase " + phase + " completed in " + millis + " ms");
+	}
+
+	/**
+	 * Get the milliseconds passed since the startup began
+	 * 
+	 * @return
+	 */
+	public long getElapsed() {
+		return (System.nanoTime() - startTime) / 1000000;
+	}
+
+	/**
+	 * Log the time passed since the startup began and the phases completed
+	 * 
+	 * @param milestone
+	 */
+	public void log(String milestone) {
+
+		synchronized (durations) {
+			LOGGER.info(milestone + " after " + getElapsed() + " ms; phases (ms)=" + durations);
+		}
+	}
+}
@@ -2,6 +2,13 @@ package tse_options;
 
 import table_skeleton.TableRow;
 
+/**
+ * Listener called when the options are saved. The cached global parent of the
+ * options sheet is already invalidated when the listener is called.
+ * 
+ * @author shahaal
+ *
+ */
 public interface OptionsChangedListener {
 	public void optionChanged(TableRow newOptions);
 }
@@ -5,11 +5,13 @@ import java.util.Collection;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.widgets.Shell;
 
+import providers.GlobalParentCache;
 import session_manager.TSERestoreableWindowDao;
 import table_database.TableDao;
 import table_dialog.TableDialog;
 import table_relations.Relation;
 import table_skeleton.TableRow;
+import tse_validator.ValidationCache;
 import window_restorer.RestoreableWindow;
 import xlsx_reader.TableSchema;
 
@@ -87,8 +89,7 @@ public abstract class OptionsDialog extends TableDialog {
 		/*TableDao dao = new TableDao(schema);
 		dao.update(row);*/
 		
-		// update the cache of the relations
-		Relation.updateCache(row);
+		optionsSaved(row, getSchemaSheetName());
 		
 		if (listener != null)
 			listener.optionChanged(row);
@@ -98,4 +99,20 @@ public abstract class OptionsDialog extends TableDialog {
 		return true;
 	}
 
+	/**
+	 * Update the caches which depend on the options, it must be called every
+	 * time the options are saved in the database
+	 * 
+	 * @param row       the saved options
+	 * @param sheetName sheet of the options
+	 */
+	static void optionsSaved(TableRow row, String sheetName) {
+		
+		// update the cache of the relations
+		Relation.updateCache(row);
+		GlobalParentCache.invalidate(sheetName);
+		
+		// options are used in the formulas of all the rows
+		ValidationCache.clearAll();
+	}
 }
@@ -30,13 +30,13 @@ import i18n_messages.TSEMessages;
 import message.MessageConfigBuilder;
 import message.SendMessageException;
 import message_creator.OperationType;
+import providers.GlobalParentCache;
 import providers.ITableDaoService;
 import providers.TseReportService;
 import report.ReportException;
 import soap.DetailedSOAPException;
 import table_dialog.DialogBuilder;
 import table_dialog.RowValidatorLabelProvider;
-import table_relations.Relation;
 import table_skeleton.TableCell;
 import table_skeleton.TableRow;
 import table_skeleton.TableVersion;
@@ -164,7 +164,7 @@ public class SettingsDialog extends OptionsDialog {
 		report.setLastModifyingMessageId("TEST");
 		report.setLastValidationMessageId("TEST");
 		
-		Relation.injectGlobalParent(report, CustomStrings.PREFERENCES_SHEET);
+		GlobalParentCache.inject(report, CustomStrings.PREFERENCES_SHEET);
 		
 		return report;
 	}
@@ -207,6 +207,7 @@ public class SettingsDialog extends OptionsDialog {
 		// the message xml builder requires data saved in the
 		// database because of the RELATION formulas
 		daoService.update(settings);
+		optionsSaved(settings, CustomStrings.SETTINGS_SHEET);
 
 		// login the user if not done before
 		boolean ok = login(getSelection());
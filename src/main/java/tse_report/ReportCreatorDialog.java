@@ -16,6 +16,7 @@ import dataset.RCLDatasetStatus;
 import global_utils.Message;
 import global_utils.Warnings;
 import i18n_messages.TSEMessages;
+import providers.GlobalParentCache;
 import providers.IReportService;
 import providers.RCLError;
 import session_manager.TSERestoreableWindowDao;
@@ -23,7 +24,6 @@ import soap.DetailedSOAPException;
 import table_dialog.DialogBuilder;
 import table_dialog.RowValidatorLabelProvider;
 import table_dialog.TableDialog;
-import table_relations.Relation;
 import table_skeleton.TableRow;
 import table_skeleton.TableVersion;
 import tse_config.CustomStrings;
@@ -71,7 +71,7 @@ public class ReportCreatorDialog extends TableDialog {
 
 		// add preferences to the report
 		try {
-			Relation.injectGlobalParent(row, CustomStrings.PREFERENCES_SHEET);
+			GlobalParentCache.inject(row, CustomStrings.PREFERENCES_SHEET);
 		} catch (IOException e) {
 			e.printStackTrace();
 			LOGGER.error("Cannot inject global parent=" + CustomStrings.PREFERENCES_SHEET, e);
@@ -10,11 +10,11 @@ import java.util.stream.Collectors;
 import app_config.AppPaths;
 import dataset.DcfDatasetStatus;
 import dataset.RCLDatasetStatus;
+import providers.GlobalParentCache;
 import providers.ITableDaoService;
 import report.EFSAReport;
 import report.Report;
 import report.ReportList;
-import table_relations.Relation;
 import table_skeleton.TableRow;
 import table_skeleton.TableVersion;
 import tse_analytical_result.AnalyticalResult;
@@ -56,7 +56,7 @@ public class TseReport extends Report {
 		report.setMessageId("");
 		report.setId("");
 
-		Relation.injectGlobalParent(report, CustomStrings.PREFERENCES_SHEET);
+		GlobalParentCache.inject(report, CustomStrings.PREFERENCES_SHEET);
 
 		return report;
 	}
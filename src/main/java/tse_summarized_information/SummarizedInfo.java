@@ -4,10 +4,10 @@ import table_skeleton.TableCell;
 import table_skeleton.TableRow;
 import tse_config.CatalogLists;
 import tse_config.CustomStrings;
+import tse_config.PicklistIndex;
 import xlsx_reader.TableSchema;
 import xlsx_reader.TableSchemaList;
 import xml_catalog_reader.Selection;
-import xml_catalog_reader.XmlLoader;
 
 public class SummarizedInfo extends TableRow {
 
@@ -75,7 +75,7 @@ public class SummarizedInfo extends TableRow {
 			return CustomStrings.SUMMARIZED_INFO_RGT_TYPE;
 		
 		// get the type whose species is the current one
-		Selection sel = XmlLoader.getByPicklistKey(CatalogLists.SPECIES_LIST).getElementByCode(species);
+		Selection sel = PicklistIndex.get(CatalogLists.SPECIES_LIST).getElementByCode(species);
 		
 		if(sel==null)
 			return "";
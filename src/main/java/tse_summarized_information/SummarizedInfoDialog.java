@@ -6,7 +6,6 @@ import java.util.Collection;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.eclipse.jface.viewers.ISelectionChangedListener;
 import org.eclipse.jface.viewers.SelectionChangedEvent;
 import org.eclipse.swt.SWT;
@@ -34,7 +33,9 @@ import message.MessageConfigBuilder;
 import message_creator.OperationType;
 import progress_bar.IndeterminateProgressDialog;
 import providers.IFormulaService;
+import providers.GlobalParentCache;
 import providers.ITableDaoService;
+import providers.TableDaoService;
 import providers.TseReportService;
 import report.DisplayAckResult;
 import report.DisplayAckThread;
@@ -43,13 +44,15 @@ import report.Report;
 import report.ReportActions;
 import report.ReportActions.ReportAction;
 import report.ThreadFinishedListener;
+import report_converter.ExportProgressListener;
+import report_converter.ReportExcelExporter;
 import report_validator.ReportError;
 import session_manager.TSERestoreableWindowDao;
 import soap.DetailedSOAPException;
+import table_database.TableDao;
 import table_dialog.DialogBuilder;
 import table_dialog.EditorListener;
 import table_dialog.RowValidatorLabelProvider;
-import table_exporter.SummInfoToExcel;
 import table_relations.Relation;
 import table_skeleton.TableCell;
 import table_skeleton.TableColumn;
@@ -58,6 +61,7 @@ import table_skeleton.TableVersion;
 import test_case.EnumPicker;
 import test_case.NumberInputDialog;
 import tse_case_report.CaseReportDialog;
+import tse_components.ProgressDialog;
 import tse_components.TableDialogWithMenu;
 import tse_config.CatalogLists;
 import tse_config.CustomStrings;
@@ -86,6 +90,8 @@ public class SummarizedInfoDialog extends TableDialogWithMenu {
 	protected ITableDaoService daoService;
 	private IFormulaService formulaService;
 
+	private SummarizedInfoValidator validator;
+
 	private RestoreableWindow window;
 	private static final String WINDOW_CODE = "SummarizedInformation";
 
@@ -218,6 +224,10 @@ public class SummarizedInfoDialog extends TableDialogWithMenu {
 		// set case errors if present
 		reportService.updateChildrenErrors(summInfo);
 
+		// children changed, check the row again
+		if (validator != null)
+			validator.invalidate(summInfo);
+
 		replace(summInfo);
 	}
 
@@ -277,8 +287,8 @@ public class SummarizedInfoDialog extends TableDialogWithMenu {
 		SummarizedInfo si = new SummarizedInfo(CustomStrings.SUMMARIZED_INFO_TYPE, value);
 
 		try {
-			Relation.injectGlobalParent(si, CustomStrings.SETTINGS_SHEET);
-			Relation.injectGlobalParent(si, CustomStrings.PREFERENCES_SHEET);
+			GlobalParentCache.inject(si, CustomStrings.SETTINGS_SHEET);
+			GlobalParentCache.inject(si, CustomStrings.PREFERENCES_SHEET);
 			Relation.injectParent(report, si);
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -309,7 +319,11 @@ public class SummarizedInfoDialog extends TableDialogWithMenu {
 
 	@Override
 	public RowValidatorLabelProvider getValidator() {
-		return new SummarizedInfoValidator(daoService);
+
+		if (validator == null)
+			validator = new SummarizedInfoValidator(daoService);
+
+		return validator;
 	}
 
 	@Override
@@ -407,6 +421,14 @@ public class SummarizedInfoDialog extends TableDialogWithMenu {
 
 				// validate and show the errors in the browser
 				TseReportValidator validator = new TseReportValidator(report, reportService, daoService);
+				validator.setParallel(new TseReportValidator.DaoFactory() {
+
+					@Override
+					public ITableDaoService create() {
+						return new TableDaoService(new TableDao());
+					}
+				});
+				validator.setIncremental(true);
 				try {
 
 					getDialog().setCursor(getDialog().getDisplay().getSystemCursor(SWT.CURSOR_WAIT));
@@ -482,16 +504,6 @@ public class SummarizedInfoDialog extends TableDialogWithMenu {
 					return;
 				}
 
-				// get records from summarized information
-				Collection<TableRow> records = report.getRecords(daoService,
-						TableSchemaList.getByName(CustomStrings.SUMMARIZED_INFO_SHEET));
-				// get headers from summarized information
-				Collection<TableColumn> headers = records.iterator().next().getVisibleColumns();
-				// initiate the summarized information exporter
-				SummInfoToExcel exporter = new SummInfoToExcel();
-				// create the workbook with the summarised info records
-				XSSFWorkbook wb = exporter.createWorkbookFromTable(headers, records);
-
 				// save the file
 				TseFileDialog fileDialog = new TseFileDialog(shell);
 				String filename = TableVersion.mergeNameAndVersion(report.getSenderId(), report.getVersion());
@@ -500,9 +512,7 @@ public class SummarizedInfoDialog extends TableDialogWithMenu {
 				if (exportFile == null)
 					return;
 
-				shell.setCursor(shell.getDisplay().getSystemCursor(SWT.CURSOR_WAIT));
-				exporter.dumpWorkbookToAFile(shell, wb, exportFile);
-				shell.setCursor(shell.getDisplay().getSystemCursor(SWT.CURSOR_ARROW));
+				exportExcel(shell, exportFile);
 			}
 		};
 
@@ -786,6 +796,72 @@ public class SummarizedInfoDialog extends TableDialogWithMenu {
 		initUI();
 	}
 
+	/**
+	 * Export the whole report into an Excel file in background, showing the
+	 * progress
+	 * 
+	 * @param shell
+	 * @param exportFile
+	 */
+	private void exportExcel(final Shell shell, final File exportFile) {
+
+		final ProgressDialog progressBar = new ProgressDialog(shell, TSEMessages.get("si.export.progress"));
+		progressBar.open();
+
+		final ReportExcelExporter exporter = new ReportExcelExporter(daoService, report);
+
+		Thread exportThread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+
+				boolean exported = false;
+
+				try {
+					exporter.export(exportFile, new ExportProgressListener() {
+
+						@Override
+						public void progress(int done, int total) {
+							progressBar.setProgress(done, total);
+						}
+					});
+
+					exported = true;
+
+				} catch (IOException | RuntimeException e) {
+					e.printStackTrace();
+					LOGGER.error("Cannot export the report in " + exportFile, e);
+				}
+
+				final boolean success = exported;
+
+				shell.getDisplay().asyncExec(new Runnable() {
+
+					@Override
+					public void run() {
+
+						progressBar.close();
+
+						if (shell.isDisposed())
+							return;
+
+						if (!success) {
+							Message m = Warnings.createFatal(
+									TSEMessages.get("report.io.error", PropertiesReader.getSupportEmail()));
+							m.open(shell);
+							return;
+						}
+
+						Warnings.warnUser(shell, TSEMessages.get("success.title"),
+								TSEMessages.get("si.export.success"), SWT.ICON_INFORMATION);
+					}
+				});
+			}
+		}, "excel-export");
+
+		exportThread.start();
+	}
+
 	/**
 	 * Initialise the labels to their initial state
 	 */
@@ -0,0 +1,175 @@
+package tse_validator;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import tse_config.CatalogLists;
+import tse_config.PicklistIndex;
+import tse_validator.AgeClassValidator.Check;
+
+/**
+ * Age classes of the {@link CatalogLists#AGE_CLASS_LIST} picklist compiled
+ * into intervals of months. Each age class is compiled once, then the checks
+ * are done on primitive values only.
+ * 
+ * @author shahaal
+ *
+ */
+public class AgeClassTable {
+
+	private static AgeClassTable instance;
+
+	private final PicklistIndex ages;
+	private final ConcurrentHashMap<String, Interval> intervals;
+
+	private AgeClassTable(PicklistIndex ages) {
+		this.ages = ages;
+		this.intervals = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Get the table of the age classes
+	 * 
+	 * @return
+	 * @throws IOException if the age classes picklist is missing
+	 */
+	public static synchronized AgeClassTable getInstance() throws IOException {
+
+		if (instance == null) {
+
+			PicklistIndex ages = PicklistIndex.get(CatalogLists.AGE_CLASS_LIST);
+
+			if (ages == null) {
+				throw new IOException("Cannot validate age without " + CatalogLists.AGE_CLASS_LIST + " picklist.");
+			}
+
+			instance = new AgeClassTable(ages);
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Get the number of months of difference between the report date and the
+	 * birth date
+	 * 
+	 * @return
+	 */
+	public static int getMonthsDifference(int reportYear, int reportMonth, int birthYear, int birthMonth) {
+		return (reportYear - birthYear) * 12 + (reportMonth - birthMonth);
+	}
+
+	/**
+	 * Check if the age of the animal is compatible with the age class
+	 * 
+	 * @param ageClassCode
+	 * @param reportYear
+	 * @param reportMonth
+	 * @param birthYear
+	 * @param birthMonth
+	 * @return
+	 * @throws IOException if the age class is not in the picklist
+	 */
+	public Check check(String ageClassCode, int reportYear, int reportMonth, int birthYear, int birthMonth)
+			throws IOException {
+
+		Interval interval = getInterval(ageClassCode);
+
+		int months = getMonthsDifference(reportYear, reportMonth, birthYear, birthMonth);
+
+		if (months < 0)
+			return Check.REPORT_DATE_EXCEEDED;
+
+		if (months >= interval.from && months <= interval.to)
+			return Check.OK;
+
+		return Check.AGE_CLASS_NOT_RESPECTED;
+	}
+
+	/**
+	 * Check a list of cases, the i-th case is described by the i-th element of
+	 * each array
+	 * 
+	 * @param ageClassCodes
+	 * @param reportYears
+	 * @param reportMonths
+	 * @param birthYears
+	 * @param birthMonths
+	 * @return the check of each case
+	 * @throws IOException if an age class is not in the picklist
+	 */
+	public Check[] check(String[] ageClassCodes, int[] reportYears, int[] reportMonths, int[] birthYears,
+			int[] birthMonths) throws IOException {
+
+		Check[] checks = new Check[ageClassCodes.length];
+
+		for (int i = 0; i < checks.length; ++i) {
+			checks[i] = check(ageClassCodes[i], reportYears[i], reportMonths[i], birthYears[i], birthMonths[i]);
+		}
+
+		return checks;
+	}
+
+	/**
+	 * Get the compiled interval of the age class
+	 * 
+	 * @param ageClassCode
+	 * @return
+	 * @throws IOException
+	 */
+	private Interval getInterval(String ageClassCode) throws IOException {
+
+		Interval interval = ageClassCode == null ? null : intervals.get(ageClassCode);
+
+		if (interval != null)
+			return interval;
+
+		PicklistIndex.Element ageClass = ages.getElement(ageClassCode);
+
+		if (ageClass == null) {
+			throw new IOException(
+					"The age " + ageClassCode + " was not found in the picklist " + CatalogLists.AGE_CLASS_LIST);
+		}
+
+		interval = Interval.compile(ageClass);
+		intervals.putIfAbsent(ageClassCode, interval);
+
+		return interval;
+	}
+
+	/**
+	 * Closed interval of months
+	 */
+	private static class Interval {
+
+		private final int from;
+		private final int to;
+
+		private Interval(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		/**
+		 * Compile the numeric data of the age class. The min/max bounds take
+		 * precedence over lt, which takes precedence over gte.
+		 * 
+		 * @param ageClass
+		 * @return
+		 */
+		private static Interval compile(PicklistIndex.Element ageClass) {
+
+			if (ageClass.getMin() != null && ageClass.getMax() != null)
+				return new Interval(ageClass.getMin(), ageClass.getMax());
+
+			if (ageClass.getLt() != null)
+				return new Interval(Integer.MIN_VALUE, ageClass.getLt() - 1);
+
+			if (ageClass.getGte() != null)
+				return new Interval(ageClass.getGte(), Integer.MAX_VALUE);
+
+			// no bound, no age is accepted
+			return new Interval(1, 0);
+		}
+	}
+}
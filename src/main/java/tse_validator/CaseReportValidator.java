@@ -29,24 +29,56 @@ public class CaseReportValidator extends SimpleRowValidatorLabelProvider {
 	}
 
 	private ITableDaoService daoService;
+	private RowCheckCache<Check> cache;
 
 	public CaseReportValidator(ITableDaoService daoService) {
 		this.daoService = daoService;
+		this.cache = new RowCheckCache<>();
 	}
 
 	public Collection<Check> isRecordCorrect(TableRow row) {
 
+		// Initialise the sum info before in order to get from it the statusHerd
+		// which is not present in the samples anymore
+		TableRow summInfo = daoService.getById(TableSchemaList.getByName(CustomStrings.SUMMARIZED_INFO_SHEET),
+				row.getNumCode(Relation.foreignKeyFromParent(CustomStrings.SUMMARIZED_INFO_SHEET)));
+
+		return isRecordCorrect(row, summInfo);
+	}
+
+	/**
+	 * Check the case report using an already retrieved parent
+	 * 
+	 * @param row      the case report
+	 * @param summInfo the summarized information parent of the case
+	 * @return
+	 */
+	public Collection<Check> isRecordCorrect(TableRow row, TableRow summInfo) {
+
+		TableSchema childSchema = TableSchemaList.getByName(CustomStrings.RESULT_SHEET);
+
+		Collection<TableRow> results = daoService.getByParentId(childSchema, row.getSchema().getSheetName(),
+				row.getDatabaseId(), false);
+
+		return isRecordCorrect(row, summInfo, results);
+	}
+
+	/**
+	 * Check the case report using an already retrieved parent and results
+	 * 
+	 * @param row      the case report
+	 * @param summInfo the summarized information parent of the case
+	 * @param results  the analytical results of the case
+	 * @return
+	 */
+	public Collection<Check> isRecordCorrect(TableRow row, TableRow summInfo, Collection<TableRow> results) {
+
 		Collection<Check> checks = new ArrayList<>();
 
 		String caseId = row.getCode(CustomStrings.NATIONAL_CASE_ID_COL);
 		String sampEventAsses = row.getCode(CustomStrings.SAMP_EVENT_ASSES_COL);
 		// String statusHerd = row.getCode(CustomStrings.STATUS_HERD_COL);
 
-		// Initialise the sum info before in order to get from it the statusHerd
-		// which is not present in the samples anymore
-		TableRow summInfo = daoService.getById(TableSchemaList.getByName(CustomStrings.SUMMARIZED_INFO_SHEET),
-				row.getNumCode(Relation.foreignKeyFromParent(CustomStrings.SUMMARIZED_INFO_SHEET)));
-
 		// case id cannot be specified
 		if (!caseId.isEmpty() && sampEventAsses.equals(CustomStrings.DEFAULT_ASSESS_NEG_CASE_CODE)) {
 			checks.add(Check.CASE_ID_FOR_NEGATIVE);
@@ -72,11 +104,6 @@ public class CaseReportValidator extends SimpleRowValidatorLabelProvider {
 			checks.add(Check.NOT_INDEX_CASE_FOR_FREE);
 		}
 
-		TableSchema childSchema = TableSchemaList.getByName(CustomStrings.RESULT_SHEET);
-
-		Collection<TableRow> results = daoService.getByParentId(childSchema, row.getSchema().getSheetName(),
-				row.getDatabaseId(), false);
-
 		// if in summinfo screening was set, but no screening
 		// was found in the cases
 		if (results.isEmpty()) {
@@ -142,6 +169,34 @@ public class CaseReportValidator extends SimpleRowValidatorLabelProvider {
 		return (set.size() != results.size());
 	}
 
+	/**
+	 * Get the checks of the row, computed only once until the row changes or it
+	 * is invalidated with {@link #invalidate(TableRow)}
+	 * 
+	 * @param row
+	 * @return
+	 */
+	public Collection<Check> getChecks(TableRow row) {
+
+		Collection<Check> checks = cache.get(row);
+
+		if (checks == null) {
+			checks = isRecordCorrect(row);
+			cache.put(row, checks);
+		}
+
+		return checks;
+	}
+
+	/**
+	 * Remove the cached checks of a row. Needed when its children change.
+	 * 
+	 * @param row
+	 */
+	public void invalidate(TableRow row) {
+		cache.invalidate(row);
+	}
+
 	public int getOverallWarningLevel(TableRow row) {
 		int level = this.getWarningLevel(row);
 		int parentLevel = super.getWarningLevel(row);
@@ -155,7 +210,7 @@ public class CaseReportValidator extends SimpleRowValidatorLabelProvider {
 		int level = 0;
 
 		try {
-			Collection<Check> checks = isRecordCorrect(row);
+			Collection<Check> checks = getChecks(row);
 
 			if (checks.isEmpty())
 				return level;
@@ -192,7 +247,7 @@ public class CaseReportValidator extends SimpleRowValidatorLabelProvider {
 
 		try {
 
-			Collection<Check> checks = isRecordCorrect(row);
+			Collection<Check> checks = getChecks(row);
 
 			if (checks.isEmpty())
 				return super.getText(row);
@@ -253,7 +308,7 @@ public class CaseReportValidator extends SimpleRowValidatorLabelProvider {
 
 		try {
 
-			Collection<Check> checks = isRecordCorrect(row);
+			Collection<Check> checks = getChecks(row);
 
 			if (checks.isEmpty())
 				return super.getForeground(row);
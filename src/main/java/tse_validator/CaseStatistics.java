@@ -0,0 +1,121 @@
+package tse_validator;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import table_relations.Relation;
+import table_skeleton.TableRow;
+import tse_config.CustomStrings;
+
+/**
+ * Number of distinct cases (by national case id) of a summarized information,
+ * grouped by sampling event assessment. The statistics of all the summarized
+ * information of a report can be computed with a single pass over its cases
+ * with {@link #groupBySummInfo(Collection)}.
+ * 
+ * @author shahaal
+ *
+ */
+public class CaseStatistics {
+
+	private HashSet<String> cases;
+	private HashSet<String> negatives;
+	private HashSet<String> inconclusives;
+
+	public CaseStatistics() {
+		this.cases = new HashSet<>();
+		this.negatives = new HashSet<>();
+		this.inconclusives = new HashSet<>();
+	}
+
+	/**
+	 * Compute the statistics of a collection of cases
+	 * 
+	 * @param caseReports
+	 * @return
+	 */
+	public static CaseStatistics of(Collection<TableRow> caseReports) {
+
+		CaseStatistics stats = new CaseStatistics();
+
+		for (TableRow caseReport : caseReports)
+			stats.add(caseReport);
+
+		return stats;
+	}
+
+	/**
+	 * Compute the statistics of the cases for each summarized information
+	 * 
+	 * @param caseReports cases of one or more summarized information
+	 * @return the statistics by database id of the summarized information
+	 */
+	public static HashMap<Integer, CaseStatistics> groupBySummInfo(Collection<TableRow> caseReports) {
+
+		HashMap<Integer, CaseStatistics> stats = new HashMap<>();
+
+		String parentKey = Relation.foreignKeyFromParent(CustomStrings.SUMMARIZED_INFO_SHEET);
+
+		for (TableRow caseReport : caseReports) {
+
+			int summInfoId = caseReport.getNumCode(parentKey);
+
+			CaseStatistics summStats = stats.get(summInfoId);
+			if (summStats == null) {
+				summStats = new CaseStatistics();
+				stats.put(summInfoId, summStats);
+			}
+
+			summStats.add(caseReport);
+		}
+
+		return stats;
+	}
+
+	/**
+	 * Add a case to the statistics
+	 * 
+	 * @param caseReport
+	 */
+	public void add(TableRow caseReport) {
+
+		String caseId = caseReport.getCode(CustomStrings.NATIONAL_CASE_ID_COL);
+		String sampEventAsses = caseReport.getCode(CustomStrings.SAMP_EVENT_ASSES_COL);
+
+		cases.add(caseId);
+
+		if (sampEventAsses.equals(CustomStrings.DEFAULT_ASSESS_NEG_CASE_CODE))
+			negatives.add(caseId);
+		else if (sampEventAsses.equals(CustomStrings.DEFAULT_ASSESS_INC_CASE_CODE))
+			inconclusives.add(caseId);
+	}
+
+	/**
+	 * Get the number of distinct negative cases
+	 * 
+	 * @return
+	 */
+	public int getNegatives() {
+		return negatives.size();
+	}
+
+	/**
+	 * Get the number of distinct inconclusive cases
+	 * 
+	 * @return
+	 */
+	public int getInconclusives() {
+		return inconclusives.size();
+	}
+
+	/**
+	 * Get the number of positive cases, that is the distinct cases which are
+	 * neither negative nor inconclusive
+	 * 
+	 * @return
+	 */
+	public int getPositives() {
+		return cases.size() - negatives.size() - inconclusives.size();
+	}
+}
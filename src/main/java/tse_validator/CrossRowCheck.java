@@ -0,0 +1,34 @@
+package tse_validator;
+
+import java.util.Collection;
+
+import providers.TseReportService.RowType;
+import report_validator.ReportError;
+import table_skeleton.TableRow;
+
+/**
+ * Check which involves more rows of the same report. The rows are passed one
+ * by one to {@link #index(TableRow, RowType)} and then the check is evaluated
+ * with {@link #evaluate()} on the collected data. A check keeps its state, so
+ * a new instance is needed for each validation.
+ * 
+ * @author shahaal
+ *
+ */
+public interface CrossRowCheck {
+
+	/**
+	 * Collect the data needed by the check from a row of the report
+	 * 
+	 * @param row  the row
+	 * @param type the type of the row
+	 */
+	public void index(TableRow row, RowType type);
+
+	/**
+	 * Evaluate the check on the indexed rows
+	 * 
+	 * @return the errors found
+	 */
+	public Collection<ReportError> evaluate();
+}
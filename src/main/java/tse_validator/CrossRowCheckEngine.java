@@ -0,0 +1,61 @@
+package tse_validator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import providers.TseReportService;
+import providers.TseReportService.RowType;
+import report_validator.ReportError;
+import table_skeleton.TableRow;
+
+/**
+ * Run a set of {@link CrossRowCheck} on the records of a report. All the
+ * checks are indexed with a single traversal of the records and then evaluated
+ * in the order in which they were added.
+ * 
+ * @author shahaal
+ *
+ */
+public class CrossRowCheckEngine {
+
+	private Collection<CrossRowCheck> checks;
+
+	public CrossRowCheckEngine() {
+		this.checks = new ArrayList<>();
+	}
+
+	/**
+	 * Add a check to the engine
+	 * 
+	 * @param check
+	 */
+	public void addCheck(CrossRowCheck check) {
+		this.checks.add(check);
+	}
+
+	/**
+	 * Index all the records and evaluate the checks
+	 * 
+	 * @param reportRecords
+	 * @return the errors of all the checks
+	 */
+	public Collection<ReportError> run(Collection<TableRow> reportRecords) {
+
+		for (TableRow row : reportRecords) {
+
+			RowType type = TseReportService.getRowType(row);
+
+			for (CrossRowCheck check : checks) {
+				check.index(row, type);
+			}
+		}
+
+		Collection<ReportError> errors = new ArrayList<>();
+
+		for (CrossRowCheck check : checks) {
+			errors.addAll(check.evaluate());
+		}
+
+		return errors;
+	}
+}
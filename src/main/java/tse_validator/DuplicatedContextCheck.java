@@ -0,0 +1,140 @@
+package tse_validator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+import providers.TseReportService.RowType;
+import report_validator.ReportError;
+import table_skeleton.TableColumn;
+import table_skeleton.TableRow;
+import xlsx_reader.TableSchema;
+
+/**
+ * Check if there are summarised information with the same values in natural
+ * key. Rows are grouped by their natural key fingerprint, the first row of each
+ * group is reported together with each of its duplicates.
+ * 
+ * @author shahaal
+ *
+ */
+public class DuplicatedContextCheck implements CrossRowCheck {
+
+	private TseReportValidator validator;
+
+	// first row of each group of duplicates, in order of appearance
+	private List<TableRow> firsts;
+
+	// duplicates found for each first row (same position)
+	private List<List<TableRow>> duplicates;
+
+	// positions of the first rows grouped by natural key fingerprint
+	private HashMap<String, List<Integer>> groups;
+
+	private List<String> naturalKeys;
+
+	/**
+	 * Create the check
+	 * 
+	 * @param validator used to get the stack trace of the rows
+	 */
+	public DuplicatedContextCheck(TseReportValidator validator) {
+		this.validator = validator;
+		this.firsts = new ArrayList<>();
+		this.duplicates = new ArrayList<>();
+		this.groups = new HashMap<>();
+	}
+
+	@Override
+	public void index(TableRow row, RowType type) {
+
+		if (type != RowType.SUMM)
+			return;
+
+		if (naturalKeys == null)
+			naturalKeys = getNaturalKeys(row.getSchema());
+
+		String fingerprint = getNaturalKeyFingerprint(row, naturalKeys);
+
+		List<Integer> candidates = groups.get(fingerprint);
+		if (candidates == null) {
+			candidates = new ArrayList<>();
+			groups.put(fingerprint, candidates);
+		}
+
+		// rows with the same fingerprint are compared with the actual natural key
+		int first = -1;
+		for (int candidate : candidates) {
+			if (firsts.get(candidate).sameAs(row)) {
+				first = candidate;
+				break;
+			}
+		}
+
+		if (first == -1) {
+			candidates.add(firsts.size());
+			firsts.add(row);
+			duplicates.add(new ArrayList<>());
+		} else {
+			duplicates.get(first).add(row);
+		}
+	}
+
+	@Override
+	public Collection<ReportError> evaluate() {
+
+		Collection<ReportError> errors = new ArrayList<>();
+
+		for (int i = 0; i < firsts.size(); i++) {
+
+			if (duplicates.get(i).isEmpty())
+				continue;
+
+			String rowId1 = validator.getStackTrace(firsts.get(i));
+
+			for (TableRow duplicate : duplicates.get(i)) {
+				errors.add(new DuplicatedContextError(rowId1, validator.getStackTrace(duplicate)));
+			}
+		}
+
+		return errors;
+	}
+
+	/**
+	 * Get the ids of the columns which are part of the natural key
+	 * 
+	 * @param schema
+	 * @return
+	 */
+	private static List<String> getNaturalKeys(TableSchema schema) {
+
+		List<String> keys = new ArrayList<>();
+
+		for (TableColumn col : schema) {
+			if (col.isNaturalKey())
+				keys.add(col.getId());
+		}
+
+		return keys;
+	}
+
+	/**
+	 * Get a string which identifies the values of the natural key of a row. Rows
+	 * which are the same in natural key have the same fingerprint.
+	 * 
+	 * @param row
+	 * @param naturalKeys ids of the natural key columns
+	 * @return
+	 */
+	private static String getNaturalKeyFingerprint(TableRow row, List<String> naturalKeys) {
+
+		StringBuilder fingerprint = new StringBuilder();
+
+		for (String key : naturalKeys) {
+			fingerprint.append(row.getCode(key)).append('\u001F');
+		}
+
+		return fingerprint.toString();
+	}
+}
@@ -0,0 +1,80 @@
+package tse_validator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+import providers.TseReportService.RowType;
+import report_validator.ReportError;
+import table_skeleton.TableRow;
+
+/**
+ * Check that the rows of a type do not share the same value in an id field.
+ * Each row is reported together with the first row which had its id.
+ * 
+ * @author shahaal
+ *
+ */
+public abstract class DuplicatedIdCheck implements CrossRowCheck {
+
+	private TseReportValidator validator;
+	private RowType rowType;
+	private String idField;
+
+	private HashMap<String, TableRow> rows;
+	private List<TableRow[]> conflicts;
+
+	/**
+	 * Create the check
+	 * 
+	 * @param validator used to get the stack trace of the rows
+	 * @param rowType   type of rows which are checked
+	 * @param idField   the column which should be unique
+	 */
+	public DuplicatedIdCheck(TseReportValidator validator, RowType rowType, String idField) {
+		this.validator = validator;
+		this.rowType = rowType;
+		this.idField = idField;
+		this.rows = new HashMap<>();
+		this.conflicts = new ArrayList<>();
+	}
+
+	/**
+	 * Create the error for two rows with the same id
+	 * 
+	 * @param rowId1 trace of the duplicated row
+	 * @param rowId2 trace of the first row with the id
+	 * @return
+	 */
+	protected abstract ReportError createError(String rowId1, String rowId2);
+
+	@Override
+	public void index(TableRow row, RowType type) {
+
+		if (type != rowType)
+			return;
+
+		String id = row.getLabel(idField);
+
+		TableRow conflict = rows.get(id);
+
+		// if there is already an element, error! duplicated value
+		if (conflict != null)
+			conflicts.add(new TableRow[] { row, conflict });
+		else
+			rows.put(id, row);
+	}
+
+	@Override
+	public Collection<ReportError> evaluate() {
+
+		Collection<ReportError> errors = new ArrayList<>();
+
+		for (TableRow[] conflict : conflicts) {
+			errors.add(createError(validator.getStackTrace(conflict[0]), validator.getStackTrace(conflict[1])));
+		}
+
+		return errors;
+	}
+}
@@ -0,0 +1,95 @@
+package tse_validator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+
+import providers.TseReportService.RowType;
+import report_validator.ReportError;
+import table_skeleton.TableRow;
+
+/**
+ * Check that two case reports with the same id have the same values in the
+ * other fields specified in the {@code fieldsToCheck} parameter.
+ * 
+ * @author shahaal
+ *
+ */
+public class InconsistentIdCheck implements CrossRowCheck {
+
+	private TseReportValidator validator;
+	private String idField;
+	private String idFieldLabel;
+	private String[] fieldsToCheck;
+
+	private HashMap<String, TableRow> cases;
+	private Collection<ReportError> errors;
+
+	/**
+	 * Create the check
+	 * 
+	 * @param validator     used to get the stack trace of the rows
+	 * @param idField       the id column
+	 * @param idFieldLabel  label of the id used in the errors
+	 * @param fieldsToCheck fields which should be equal for the same id
+	 */
+	public InconsistentIdCheck(TseReportValidator validator, String idField, String idFieldLabel,
+			String[] fieldsToCheck) {
+		this.validator = validator;
+		this.idField = idField;
+		this.idFieldLabel = idFieldLabel;
+		this.fieldsToCheck = fieldsToCheck;
+		this.cases = new HashMap<>();
+		this.errors = new ArrayList<>();
+	}
+
+	@Override
+	public void index(TableRow row, RowType type) {
+
+		if (type != RowType.CASE)
+			return;
+
+		String id = row.getLabel(idField);
+
+		if (id.isEmpty())
+			return;
+
+		TableRow current = cases.get(id);
+
+		// if one is already present, check if they are equal or not
+		if (current != null) {
+
+			String currentTrace = null;
+			String rowTrace = null;
+
+			// add all the mismatches
+			for (String field : fieldsToCheck) {
+
+				String currentValue = current.getCode(field);
+				String currentValueLab = current.getLabel(field);
+				String value = row.getCode(field);
+				String label = row.getLabel(field);
+
+				if (!value.equals(currentValue)) {
+
+					// compute the traces only once per pair
+					if (currentTrace == null) {
+						currentTrace = validator.getStackTrace(current);
+						rowTrace = validator.getStackTrace(row);
+					}
+
+					errors.add(new InconsistentCasesError(currentTrace, rowTrace, idFieldLabel, id, field,
+							currentValueLab, label));
+				}
+			}
+		}
+
+		// save the new one
+		cases.put(id, row);
+	}
+
+	@Override
+	public Collection<ReportError> evaluate() {
+		return errors;
+	}
+}
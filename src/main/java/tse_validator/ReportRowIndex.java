@@ -0,0 +1,138 @@
+package tse_validator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import providers.TseReportService;
+import providers.TseReportService.RowType;
+import table_relations.Relation;
+import table_skeleton.TableRow;
+import tse_config.CustomStrings;
+
+/**
+ * In-memory index of the rows of a report, keyed by sheet name and database
+ * id. It is built once per validation from the list of records of the report
+ * and used to resolve the parents of a row (summarized information, case,
+ * report) and the children of a row (cases of a summarized information,
+ * results of a case) without querying again the database. Once built, the index
+ * is only read and can be shared among threads.
+ *
+ * @author shahaal
+ *
+ */
+public class ReportRowIndex {
+
+	private HashMap<String, HashMap<Integer, TableRow>> rows;
+	private HashMap<Integer, List<TableRow>> casesBySummInfo;
+	private HashMap<Integer, List<TableRow>> resultsByCase;
+
+	public ReportRowIndex() {
+		this.rows = new HashMap<>();
+		this.casesBySummInfo = new HashMap<>();
+		this.resultsByCase = new HashMap<>();
+	}
+
+	/**
+	 * Create the index and add all the records passed in input
+	 *
+	 * @param records rows to be indexed
+	 */
+	public ReportRowIndex(Collection<TableRow> records) {
+		this();
+		addAll(records);
+	}
+
+	/**
+	 * Add a row to the index
+	 *
+	 * @param row
+	 */
+	public void add(TableRow row) {
+
+		String sheet = row.getSchema().getSheetName();
+
+		HashMap<Integer, TableRow> sheetRows = rows.get(sheet);
+		if (sheetRows == null) {
+			sheetRows = new HashMap<>();
+			rows.put(sheet, sheetRows);
+		}
+
+		sheetRows.put(row.getDatabaseId(), row);
+
+		RowType type = TseReportService.getRowType(row);
+
+		if (type == RowType.CASE)
+			addChild(casesBySummInfo, row, CustomStrings.SUMMARIZED_INFO_SHEET);
+		else if (type == RowType.RESULT)
+			addChild(resultsByCase, row, CustomStrings.CASE_INFO_SHEET);
+	}
+
+	/**
+	 * Add a row to the children of its parent
+	 * 
+	 * @param children    children grouped by parent id
+	 * @param row         the child row
+	 * @param parentSheet sheet of the parent
+	 */
+	private static void addChild(HashMap<Integer, List<TableRow>> children, TableRow row, String parentSheet) {
+
+		int parentId = row.getNumCode(Relation.foreignKeyFromParent(parentSheet));
+
+		List<TableRow> list = children.get(parentId);
+		if (list == null) {
+			list = new ArrayList<>();
+			children.put(parentId, list);
+		}
+
+		list.add(row);
+	}
+
+	/**
+	 * Add all the rows to the index
+	 *
+	 * @param records
+	 */
+	public void addAll(Collection<TableRow> records) {
+		for (TableRow row : records)
+			add(row);
+	}
+
+	/**
+	 * Get a row by its sheet and database id
+	 *
+	 * @param sheetName
+	 * @param id
+	 * @return the row or null if it was not indexed
+	 */
+	public TableRow get(String sheetName, int id) {
+
+		HashMap<Integer, TableRow> sheetRows = rows.get(sheetName);
+
+		return sheetRows == null ? null : sheetRows.get(id);
+	}
+
+	/**
+	 * Get the indexed cases of a summarized information
+	 * 
+	 * @param summInfoId database id of the summarized information
+	 * @return
+	 */
+	public List<TableRow> getCases(int summInfoId) {
+		List<TableRow> cases = casesBySummInfo.get(summInfoId);
+		return cases == null ? Collections.emptyList() : cases;
+	}
+
+	/**
+	 * Get the indexed results of a case report
+	 * 
+	 * @param caseId database id of the case
+	 * @return
+	 */
+	public List<TableRow> getResults(int caseId) {
+		List<TableRow> results = resultsByCase.get(caseId);
+		return results == null ? Collections.emptyList() : results;
+	}
+}
@@ -0,0 +1,72 @@
+package tse_validator;
+
+import java.util.Collection;
+import java.util.HashMap;
+
+import table_skeleton.TableRow;
+
+/**
+ * Cache of the checks computed for the rows shown in a table. The checks of a
+ * row are reused until the row content changes (the content hash is compared)
+ * or the row is explicitly invalidated, for example when its children were
+ * added, modified or deleted.
+ * 
+ * @author shahaal
+ *
+ * @param <T> type of check
+ */
+public class RowCheckCache<T> {
+
+	private HashMap<Integer, Long> hashes;
+	private HashMap<Integer, Collection<T>> checks;
+
+	public RowCheckCache() {
+		this.hashes = new HashMap<>();
+		this.checks = new HashMap<>();
+	}
+
+	/**
+	 * Get the cached checks of a row
+	 * 
+	 * @param row
+	 * @return the checks or null if not cached or if the row changed
+	 */
+	public Collection<T> get(TableRow row) {
+
+		Long hash = hashes.get(row.getDatabaseId());
+
+		if (hash == null || hash != ValidationCache.getContentHash(row))
+			return null;
+
+		return checks.get(row.getDatabaseId());
+	}
+
+	/**
+	 * Save the checks of a row
+	 * 
+	 * @param row
+	 * @param rowChecks
+	 */
+	public void put(TableRow row, Collection<T> rowChecks) {
+		hashes.put(row.getDatabaseId(), ValidationCache.getContentHash(row));
+		checks.put(row.getDatabaseId(), rowChecks);
+	}
+
+	/**
+	 * Remove the checks of a row
+	 * 
+	 * @param row
+	 */
+	public void invalidate(TableRow row) {
+		hashes.remove(row.getDatabaseId());
+		checks.remove(row.getDatabaseId());
+	}
+
+	/**
+	 * Remove all the checks
+	 */
+	public void clear() {
+		hashes.clear();
+		checks.clear();
+	}
+}
@@ -0,0 +1,76 @@
+package tse_validator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+import report_validator.ReportError;
+import table_skeleton.TableRow;
+
+/**
+ * Fork/join task which validates a range of the report records with
+ * {@link TseReportValidator#checkRow(TableRow)}. The result contains the errors
+ * of each row, in the same order of the records, so it is the same of a
+ * sequential validation.
+ * 
+ * @author shahaal
+ *
+ */
+class RowValidationTask extends RecursiveTask<List<Collection<ReportError>>> {
+
+	private static final long serialVersionUID = 1L;
+
+	// number of rows under which the range is validated sequentially
+	private static final int THRESHOLD = 128;
+
+	private TseReportValidator validator;
+	private List<TableRow> records;
+	private int start;
+	private int end;
+
+	/**
+	 * Validate the records from {@code start} (inclusive) to {@code end}
+	 * (exclusive)
+	 * 
+	 * @param validator
+	 * @param records
+	 * @param start
+	 * @param end
+	 */
+	RowValidationTask(TseReportValidator validator, List<TableRow> records, int start, int end) {
+		this.validator = validator;
+		this.records = records;
+		this.start = start;
+		this.end = end;
+	}
+
+	@Override
+	protected List<Collection<ReportError>> compute() {
+
+		if (end - start <= THRESHOLD) {
+
+			List<Collection<ReportError>> errors = new ArrayList<>();
+
+			for (int i = start; i < end; i++) {
+				errors.add(validator.checkRow(records.get(i)));
+			}
+
+			return errors;
+		}
+
+		int middle = (start + end) >>> 1;
+
+		RowValidationTask left = new RowValidationTask(validator, records, start, middle);
+		RowValidationTask right = new RowValidationTask(validator, records, middle, end);
+
+		left.fork();
+
+		List<Collection<ReportError>> rightErrors = right.compute();
+		List<Collection<ReportError>> errors = left.join();
+
+		errors.addAll(rightErrors);
+
+		return errors;
+	}
+}
@@ -2,6 +2,7 @@ package tse_validator;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 
 import org.apache.logging.log4j.LogManager;
@@ -12,6 +13,7 @@ import org.eclipse.swt.widgets.Display;
 
 import i18n_messages.TSEMessages;
 import providers.ITableDaoService;
+import table_relations.Relation;
 import table_skeleton.TableRow;
 import tse_config.CustomStrings;
 import xlsx_reader.TableSchema;
@@ -22,9 +24,17 @@ public class SummarizedInfoValidator extends SimpleRowValidatorLabelProvider {
 	private static final Logger LOGGER = LogManager.getLogger(SummarizedInfoValidator.class);
 
 	private ITableDaoService daoService;
+	private RowCheckCache<SampleCheck> cache;
+
+	// statistics of the cases by summarized information id
+	private HashMap<Integer, CaseStatistics> statistics;
+	private HashSet<Integer> loadedReports;
 
 	public SummarizedInfoValidator(ITableDaoService daoService) {
 		this.daoService = daoService;
+		this.cache = new RowCheckCache<>();
+		this.statistics = new HashMap<>();
+		this.loadedReports = new HashSet<>();
 	}
 
 	public enum SampleCheck {
@@ -32,53 +42,35 @@ public class SummarizedInfoValidator extends SimpleRowValidatorLabelProvider {
 		NON_WILD_FOR_KILLED, WRONG_CASES
 	}
 
-	private static int getDistinctCaseIndex(Collection<TableRow> cases, String sampEventAssesType, boolean exclude) {
-
-		HashSet<String> hash = new HashSet<>();
-
-		for (TableRow caseReport : cases) {
-
-			String caseId = caseReport.getCode(CustomStrings.NATIONAL_CASE_ID_COL);
-			String sampEventAsses = caseReport.getCode(CustomStrings.SAMP_EVENT_ASSES_COL);
-
-			if ((sampEventAsses.equals(sampEventAssesType) && !exclude)
-					|| (!sampEventAsses.equals(sampEventAssesType) && exclude))
-				hash.add(caseId);
-		}
-
-		return hash.size();
-	}
-
-	private static int getDistinctCasesNumber(Collection<TableRow> cases) {
-
-		HashSet<String> hash = new HashSet<>();
-
-		for (TableRow caseReport : cases) {
-
-			String caseId = caseReport.getCode(CustomStrings.NATIONAL_CASE_ID_COL);
-
-			hash.add(caseId);
-		}
-
-		return hash.size();
+	/**
+	 * Check if the row is correct or not
+	 * 
+	 * @param row
+	 * @return
+	 */
+	public Collection<SampleCheck> isSampleCorrect(TableRow row) {
+		return isSampleCorrect(row, getCaseStatistics(row));
 	}
 
-	private static double getPositiveCasesNumber(Collection<TableRow> cases) {
-		int neg = getDistinctCaseIndex(cases, CustomStrings.DEFAULT_ASSESS_NEG_CASE_CODE, false);
-		int inc = getDistinctCaseIndex(cases, CustomStrings.DEFAULT_ASSESS_INC_CASE_CODE, false);
-
-		double posNum = (getDistinctCasesNumber(cases) - neg - inc);
-
-		return posNum;
+	/**
+	 * Check if the row is correct or not using its already retrieved cases
+	 * 
+	 * @param row
+	 * @param cases the cases of the summarized information
+	 * @return
+	 */
+	public Collection<SampleCheck> isSampleCorrect(TableRow row, Collection<TableRow> cases) {
+		return isSampleCorrect(row, CaseStatistics.of(cases));
 	}
 
 	/**
-	 * Check if the row is correct or not
+	 * Check if the row is correct or not using the statistics of its cases
 	 * 
 	 * @param row
+	 * @param stats the statistics of the cases of the summarized information
 	 * @return
 	 */
-	public Collection<SampleCheck> isSampleCorrect(TableRow row) {
+	public Collection<SampleCheck> isSampleCorrect(TableRow row, CaseStatistics stats) {
 
 		Collection<SampleCheck> checks = new ArrayList<>();
 
@@ -100,11 +92,6 @@ public class SummarizedInfoValidator extends SimpleRowValidatorLabelProvider {
 		// only for non rgt rows
 		try {
 
-			TableSchema childSchema = TableSchemaList.getByName(CustomStrings.CASE_INFO_SHEET);
-
-			Collection<TableRow> cases = daoService.getByParentId(childSchema, row.getSchema().getSheetName(),
-					row.getDatabaseId(), true);
-
 			if (!isRGT) {
 
 				// declared inc/pos
@@ -112,9 +99,9 @@ public class SummarizedInfoValidator extends SimpleRowValidatorLabelProvider {
 				int posSamples = row.getNumLabel(CustomStrings.TOT_SAMPLE_POSITIVE_COL);
 
 				// detailed inc
-				int detailedIncSamples = getDistinctCaseIndex(cases, CustomStrings.DEFAULT_ASSESS_INC_CASE_CODE, false);
+				int detailedIncSamples = stats.getInconclusives();
 
-				double detailedPosSamples = getPositiveCasesNumber(cases);
+				double detailedPosSamples = stats.getPositives();
 
 				if (detailedPosSamples > posSamples)
 					checks.add(SampleCheck.TOO_MANY_POSITIVES);
@@ -145,6 +132,83 @@ public class SummarizedInfoValidator extends SimpleRowValidatorLabelProvider {
 		return checks;
 	}
 
+	/**
+	 * Get the checks of the row, computed only once until the row changes or it
+	 * is invalidated with {@link #invalidate(TableRow)}
+	 * 
+	 * @param row
+	 * @return
+	 */
+	public Collection<SampleCheck> getChecks(TableRow row) {
+
+		Collection<SampleCheck> checks = cache.get(row);
+
+		if (checks == null) {
+			checks = isSampleCorrect(row);
+			cache.put(row, checks);
+		}
+
+		return checks;
+	}
+
+	/**
+	 * Remove the cached checks of a row. Needed when its children change.
+	 * 
+	 * @param row
+	 */
+	public void invalidate(TableRow row) {
+		cache.invalidate(row);
+		statistics.remove(row.getDatabaseId());
+	}
+
+	/**
+	 * Get the statistics of the cases of a summarized information. The first time
+	 * a row of a report is checked, the statistics of all the summarized
+	 * information of the report are computed with a single query on the cases.
+	 * 
+	 * @param row
+	 * @return
+	 */
+	private CaseStatistics getCaseStatistics(TableRow row) {
+
+		CaseStatistics stats = statistics.get(row.getDatabaseId());
+
+		if (stats != null)
+			return stats;
+
+		TableSchema childSchema = TableSchemaList.getByName(CustomStrings.CASE_INFO_SHEET);
+
+		int reportId = row.getNumCode(Relation.foreignKeyFromParent(CustomStrings.REPORT_SHEET));
+
+		if (!loadedReports.contains(reportId)) {
+
+			Collection<TableRow> cases = daoService.getByParentId(childSchema, CustomStrings.REPORT_SHEET, reportId,
+					true);
+
+			statistics.putAll(CaseStatistics.groupBySummInfo(cases));
+			loadedReports.add(reportId);
+
+			stats = statistics.get(row.getDatabaseId());
+
+			// no case for the summarized information
+			if (stats == null) {
+				stats = new CaseStatistics();
+				statistics.put(row.getDatabaseId(), stats);
+			}
+
+			return stats;
+		}
+
+		// row invalidated or created after the report was loaded
+		Collection<TableRow> cases = daoService.getByParentId(childSchema, row.getSchema().getSheetName(),
+				row.getDatabaseId(), true);
+
+		stats = CaseStatistics.of(cases);
+		statistics.put(row.getDatabaseId(), stats);
+
+		return stats;
+	}
+
 	/**
 	 * Get the warning level of the current row
 	 * 
@@ -165,7 +229,7 @@ public class SummarizedInfoValidator extends SimpleRowValidatorLabelProvider {
 
 		int level = 0;
 
-		Collection<SampleCheck> checks = isSampleCorrect(row);
+		Collection<SampleCheck> checks = getChecks(row);
 
 		if (checks.isEmpty())
 			return level;
@@ -203,7 +267,7 @@ public class SummarizedInfoValidator extends SimpleRowValidatorLabelProvider {
 
 		String text = parentText;
 
-		Collection<SampleCheck> checks = isSampleCorrect(row);
+		Collection<SampleCheck> checks = getChecks(row);
 
 		if (checks.isEmpty())
 			return text;
@@ -244,7 +308,7 @@ public class SummarizedInfoValidator extends SimpleRowValidatorLabelProvider {
 		if (parentLevel > level)
 			return color;
 
-		Collection<SampleCheck> checks = isSampleCorrect(row);
+		Collection<SampleCheck> checks = getChecks(row);
 
 		if (checks.isEmpty())
 			return color;
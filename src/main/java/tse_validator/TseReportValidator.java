@@ -4,8 +4,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -47,6 +47,18 @@ public class TseReportValidator extends ReportValidator {
 	private TseReportService reportService;
 	private ITableDaoService daoService;
 
+	// parents of the rows, available only during validate()
+	private ReportRowIndex rowIndex;
+
+	// lock for the shared services, which are not thread safe
+	private final Object serviceLock = new Object();
+
+	// dao and services of the threads of a parallel validation
+	private ThreadLocal<Worker> workers;
+
+	private DaoFactory workerDaos;
+	private boolean incremental;
+
 	/**
 	 * Validate an entire tse report and returns the errors in a list. It is also
 	 * possible to show the list of errors by using the {@link #show(Collection)}
@@ -58,6 +70,31 @@ public class TseReportValidator extends ReportValidator {
 		this.reportService = reportService;
 	}
 
+	/**
+	 * Validate the single rows in parallel with a {@link ForkJoinPool}. The
+	 * errors are returned in the same order of the sequential validation. The dao
+	 * is not thread safe, so each thread reads the database with its own dao and
+	 * solves the formulas with its own services.
+	 * 
+	 * @param workerDaos factory of the daos of the threads, null to validate the
+	 *                   rows sequentially
+	 */
+	public void setParallel(DaoFactory workerDaos) {
+		this.workerDaos = workerDaos;
+	}
+
+	/**
+	 * Re-validate only the rows which changed since the last validation of the
+	 * report (or whose parents or children changed). The errors of the other rows
+	 * are taken from the {@link ValidationCache}. Checks across rows are always
+	 * evaluated on all the records.
+	 * 
+	 * @param incremental
+	 */
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+	}
+
 	@Override
 	public Collection<ReportError> validate() {
 
@@ -69,152 +106,289 @@ public class TseReportValidator extends ReportValidator {
 			errors.add(new EmptyReportError());
 		}
 
+		// index the rows by id to resolve parents in memory
+		this.rowIndex = new ReportRowIndex(reportRecords);
+		this.rowIndex.add(report);
+
+		try {
+			validateRows(reportRecords, errors);
+		} finally {
+			this.rowIndex = null;
+		}
+
+		return errors;
+	}
+
+	/**
+	 * Validate the records of the report
+	 * 
+	 * @param reportRecords
+	 * @param errors        collection where errors are added
+	 */
+	private void validateRows(ArrayList<TableRow> reportRecords, Collection<ReportError> errors) {
+
+		ValidationCache cache = incremental ? ValidationCache.getCache(report) : null;
+
+		List<TableRow> toCheck = reportRecords;
+		HashMap<String, Long> digests = null;
+
+		// only rows which changed need to be checked again
+		if (cache != null) {
+
+			digests = ValidationCache.computeDigests(reportRecords, rowIndex, report);
+
+			toCheck = new ArrayList<>();
+			for (TableRow row : reportRecords) {
+				String key = ValidationCache.getKey(row);
+				if (!cache.isValid(key, digests.get(key)))
+					toCheck.add(row);
+			}
+
+			LOGGER.info("Validating " + toCheck.size() + " changed rows of " + reportRecords.size());
+		}
+
 		// check errors on single row (no interdependency is evaluated)
-		for (TableRow row : reportRecords) {
+		List<Collection<ReportError>> rowsErrors = checkRows(toCheck);
+
+		if (cache == null) {
+			for (Collection<ReportError> rowErrors : rowsErrors) {
+				errors.addAll(rowErrors);
+			}
+		} else {
 
-			try {
-				errors.addAll(checkMandatoryFields(row));
-			} catch (FormulaException e) {
-				e.printStackTrace();
+			// save the new results and remove the deleted rows
+			for (int i = 0; i < toCheck.size(); i++) {
+				String key = ValidationCache.getKey(toCheck.get(i));
+				cache.put(key, digests.get(key), rowsErrors.get(i));
 			}
 
-			RowType type = TseReportService.getRowType(row);
+			cache.retainAll(ValidationCache.getKeys(reportRecords));
 
-			if (type == RowType.RESULT) {
-				errors.addAll(checkResult(row));
-			} else if (type == RowType.CASE) {
-				errors.addAll(checkCaseInfo(row));
-			} else if (type == RowType.SUMM) {
-				errors.addAll(checkSummarizedInfo(row));
+			for (TableRow row : reportRecords) {
+				errors.addAll(cache.getErrors(ValidationCache.getKey(row)));
 			}
 		}
 
 		// check errors across different rows
-		errors.addAll(checkDuplicatedSummId(reportRecords));
-		errors.addAll(checkDuplicatedSampleId(reportRecords));
-		errors.addAll(checkDuplicatedResId(reportRecords));
-		errors.addAll(checkNationalCaseId(reportRecords));
-		errors.addAll(checkAnimalId(reportRecords));
-		errors.addAll(checkUnknownAgeClass(reportRecords));
-
-		return errors;
+		errors.addAll(createCrossRowChecks().run(reportRecords));
 	}
 
 	/**
-	 * Check if there are case reports with the same sample id
+	 * Check the errors of the single rows, in parallel if required
 	 * 
-	 * @param reportRecords
-	 * @return
+	 * @param records
+	 * @return the errors of each row, in the same order of the records
 	 */
-	public Collection<ReportError> checkDuplicatedSampleId(Collection<TableRow> reportRecords) {
+	private List<Collection<ReportError>> checkRows(List<TableRow> records) {
 
-		Collection<ReportError> errors = new ArrayList<>();
+		if (workerDaos == null) {
 
-		HashMap<String, TableRow> cases = new HashMap<>();
-		for (TableRow row : reportRecords) {
+			List<Collection<ReportError>> errors = new ArrayList<>();
+			for (TableRow row : records) {
+				errors.add(checkRow(row));
+			}
 
-			if (TseReportService.getRowType(row) != RowType.CASE)
-				continue;
+			return errors;
+		}
 
-			String currentSampId = row.getLabel(CustomStrings.SAMPLE_ID_COL);
+		ForkJoinPool pool = new ForkJoinPool();
 
-			// if there is already an element, error! duplicated value
-			if (cases.containsKey(currentSampId)) {
-				TableRow conflict = cases.get(currentSampId);
-				String rowId1 = getStackTrace(row);
-				String rowId2 = getStackTrace(conflict);
-				errors.add(new DuplicatedSampleIdError(rowId1, rowId2));
-			} else {
-				// otherwise standard insert
-				cases.put(currentSampId, row);
+		// each thread reads the database and solves the formulas with its own
+		// dao and services, without locks
+		this.workers = new ThreadLocal<Worker>() {
+			@Override
+			protected Worker initialValue() {
+				return new Worker(workerDaos.create());
 			}
+		};
+
+		try {
+			return pool.invoke(new RowValidationTask(this, records, 0, records.size()));
+		} finally {
+			pool.shutdown();
+
+			// the calling thread can also run the tasks
+			workers.remove();
+			workers = null;
 		}
+	}
 
-		return errors;
+	/**
+	 * Get the worker of the current thread
+	 * 
+	 * @return the worker or null if the validation is not parallel
+	 */
+	private Worker getWorker() {
+		ThreadLocal<Worker> current = workers;
+		return current == null ? null : current.get();
 	}
 
 	/**
-	 * Check if there are analytical results with the same result id
+	 * Get the dao to be used by the current thread
 	 * 
-	 * @param reportRecords
 	 * @return
 	 */
-	public Collection<ReportError> checkDuplicatedResId(Collection<TableRow> reportRecords) {
+	private ITableDaoService getDao() {
+		Worker worker = getWorker();
+		return worker == null ? daoService : worker.daoService;
+	}
 
-		Collection<ReportError> errors = new ArrayList<>();
+	/**
+	 * Check the errors of a single row
+	 * 
+	 * @param row
+	 * @return
+	 */
+	Collection<ReportError> checkRow(TableRow row) {
 
-		HashMap<String, TableRow> results = new HashMap<>();
-		for (TableRow row : reportRecords) {
+		Collection<ReportError> errors = new ArrayList<>();
 
-			if (TseReportService.getRowType(row) != RowType.RESULT)
-				continue;
+		try {
+			errors.addAll(checkMandatoryFields(row));
+		} catch (FormulaException e) {
+			e.printStackTrace();
+		}
 
-			String currentId = row.getLabel(CustomStrings.RES_ID_COL);
+		RowType type = TseReportService.getRowType(row);
 
-			// if there is already an element, error! duplicated value
-			if (results.containsKey(currentId)) {
-				TableRow conflict = results.get(currentId);
-				String rowId1 = getStackTrace(row);
-				String rowId2 = getStackTrace(conflict);
-				errors.add(new DuplicatedResultIdError(rowId1, rowId2));
-			} else {
-				// otherwise standard insert
-				results.put(currentId, row);
-			}
+		if (type == RowType.RESULT) {
+			errors.addAll(checkResult(row));
+		} else if (type == RowType.CASE) {
+			errors.addAll(checkCaseInfo(row));
+		} else if (type == RowType.SUMM) {
+			errors.addAll(checkSummarizedInfo(row));
 		}
 
 		return errors;
 	}
 
 	/**
-	 * Check if there are summarise results with the same values in natural key
+	 * Get a parent row, using the rows index if a validation is in progress
 	 * 
-	 * @author shahaal
-	 * @param reportRecords
+	 * @param sheetName sheet of the parent
+	 * @param id        database id of the parent
 	 * @return
 	 */
-	public Collection<ReportError> checkDuplicatedSummId(ArrayList<TableRow> reportRecords) {
+	private TableRow getParent(String sheetName, int id) {
 
-		// collection used to report duplicate errors
-		Collection<ReportError> errors = new ArrayList<>();
+		if (rowIndex != null) {
+			TableRow row = rowIndex.get(sheetName, id);
+			if (row != null)
+				return row;
+		}
 
-		// the set store the values already analysed
-		Set<Integer> indexComputed = new HashSet<>();
+		Worker worker = getWorker();
+		if (worker != null)
+			return worker.daoService.getById(TableSchemaList.getByName(sheetName), id);
 
-		for (int i = 0; i < reportRecords.size() - 1; i++) {
+		synchronized (serviceLock) {
+			return daoService.getById(TableSchemaList.getByName(sheetName), id);
+		}
+	}
 
-			TableRow current = reportRecords.get(i);
+	/**
+	 * Create the engine with all the checks which involve more rows of the
+	 * report. New checks across rows should be added here.
+	 * 
+	 * @return
+	 */
+	public CrossRowCheckEngine createCrossRowChecks() {
 
-			// if the row is not summ or already computed skip
-			if (TseReportService.getRowType(current) != RowType.SUMM || indexComputed.contains(i))
-				continue;
+		CrossRowCheckEngine engine = new CrossRowCheckEngine();
+		engine.addCheck(new DuplicatedContextCheck(this));
+		engine.addCheck(createDuplicatedSampleIdCheck());
+		engine.addCheck(createDuplicatedResIdCheck());
+		engine.addCheck(createNationalCaseIdCheck());
+		engine.addCheck(createAnimalIdCheck());
+		engine.addCheck(new UnknownAgeClassCheck());
 
-			for (int j = i + 1; j < reportRecords.size(); j++) {
+		return engine;
+	}
 
-				TableRow next = reportRecords.get(j);
+	/**
+	 * Run a single check across rows
+	 * 
+	 * @param check
+	 * @param reportRecords
+	 * @return
+	 */
+	private static Collection<ReportError> runCheck(CrossRowCheck check, Collection<TableRow> reportRecords) {
 
-				// if the row is not summ or already computed or same as the current skip
-				if (TseReportService.getRowType(next) != RowType.SUMM || indexComputed.contains(j))
-					continue;
+		CrossRowCheckEngine engine = new CrossRowCheckEngine();
+		engine.addCheck(check);
 
-				// if the records has same values under natural key
-				if (current.sameAs(next)) {
+		return engine.run(reportRecords);
+	}
 
-					// get their ids
-					String rowId1 = getStackTrace(current);
-					String rowId2 = getStackTrace(next);
+	private CrossRowCheck createDuplicatedSampleIdCheck() {
+		return new DuplicatedIdCheck(this, RowType.CASE, CustomStrings.SAMPLE_ID_COL) {
 
-					// add their indexes to the set
-					indexComputed.add(j);
-					indexComputed.add(i);
+			@Override
+			protected ReportError createError(String rowId1, String rowId2) {
+				return new DuplicatedSampleIdError(rowId1, rowId2);
+			}
+		};
+	}
+
+	private CrossRowCheck createDuplicatedResIdCheck() {
+		return new DuplicatedIdCheck(this, RowType.RESULT, CustomStrings.RES_ID_COL) {
 
-					// add the error to print
-					errors.add(new DuplicatedContextError(rowId1, rowId2));
-				}
+			@Override
+			protected ReportError createError(String rowId1, String rowId2) {
+				return new DuplicatedResultIdError(rowId1, rowId2);
 			}
-		}
+		};
+	}
 
-		return errors;
+	private CrossRowCheck createNationalCaseIdCheck() {
+
+		String[] fieldsToCheck = { CustomStrings.ANIMAL_ID_COL };
+
+		return new InconsistentIdCheck(this, CustomStrings.NATIONAL_CASE_ID_COL,
+				TSEMessages.get("inconsistent.national.case.id"), fieldsToCheck);
+	}
+
+	private CrossRowCheck createAnimalIdCheck() {
+
+		String[] fieldsToCheck = { CustomStrings.NATIONAL_CASE_ID_COL, CustomStrings.HERD_ID_COL,
+				CustomStrings.STATUS_HERD_COL, CustomStrings.SAMP_HOLDING_ID_COL, CustomStrings.SAMP_DAY_COL,
+				CustomStrings.SAMP_AREA_COL, CustomStrings.INDEX_CASE_COL, CustomStrings.BIRTH_COUNTRY_COL,
+				CustomStrings.BIRTH_YEAR_COL, CustomStrings.BIRTH_MONTH_COL, CustomStrings.BORN_FLOCK_HERD_COL,
+				CustomStrings.BREED_COL, CustomStrings.EVAL_COMMENT_COL };
+
+		return new InconsistentIdCheck(this, CustomStrings.ANIMAL_ID_COL, TSEMessages.get("inconsistent.animal.id"),
+				fieldsToCheck);
+	}
+
+	/**
+	 * Check if there are case reports with the same sample id
+	 * 
+	 * @param reportRecords
+	 * @return
+	 */
+	public Collection<ReportError> checkDuplicatedSampleId(Collection<TableRow> reportRecords) {
+		return runCheck(createDuplicatedSampleIdCheck(), reportRecords);
+	}
+
+	/**
+	 * Check if there are analytical results with the same result id
+	 * 
+	 * @param reportRecords
+	 * @return
+	 */
+	public Collection<ReportError> checkDuplicatedResId(Collection<TableRow> reportRecords) {
+		return runCheck(createDuplicatedResIdCheck(), reportRecords);
+	}
+
+	/**
+	 * Check if there are summarise results with the same values in natural key
+	 * 
+	 * @author shahaal
+	 * @param reportRecords
+	 * @return
+	 */
+	public Collection<ReportError> checkDuplicatedSummId(Collection<TableRow> reportRecords) {
+		return runCheck(new DuplicatedContextCheck(this), reportRecords);
 	}
 
 	/**
@@ -264,8 +438,7 @@ public class TseReportValidator extends ReportValidator {
 			int parentId = Integer
 					.valueOf(row.getCode(Relation.foreignKeyFromParent(CustomStrings.SUMMARIZED_INFO_SHEET)));
 
-			TableRow summInfo = daoService.getById(TableSchemaList.getByName(CustomStrings.SUMMARIZED_INFO_SHEET),
-					parentId);
+			TableRow summInfo = getParent(CustomStrings.SUMMARIZED_INFO_SHEET, parentId);
 
 			trace = getRowId(summInfo);
 			trace = trace + arrowCharacter + getRowId(row);
@@ -277,10 +450,8 @@ public class TseReportValidator extends ReportValidator {
 			int caseParentId = Integer
 					.valueOf(row.getCode(Relation.foreignKeyFromParent(CustomStrings.CASE_INFO_SHEET)));
 
-			TableRow summ = daoService.getById(TableSchemaList.getByName(CustomStrings.SUMMARIZED_INFO_SHEET),
-					summParentId);
-			TableRow caseReport = daoService.getById(TableSchemaList.getByName(CustomStrings.CASE_INFO_SHEET),
-					caseParentId);
+			TableRow summ = getParent(CustomStrings.SUMMARIZED_INFO_SHEET, summParentId);
+			TableRow caseReport = getParent(CustomStrings.CASE_INFO_SHEET, caseParentId);
 
 			trace = getRowId(summ);
 			trace = trace + arrowCharacter + getRowId(caseReport);
@@ -307,8 +478,19 @@ public class TseReportValidator extends ReportValidator {
 
 		String rowId = getStackTrace(row);
 
+		// formulas are solved through services which are not thread safe
+		Collection<TableColumn> notFilled;
+		Worker worker = getWorker();
+		if (worker != null) {
+			notFilled = worker.reportService.getMandatoryFieldNotFilled(row);
+		} else {
+			synchronized (serviceLock) {
+				notFilled = reportService.getMandatoryFieldNotFilled(row);
+			}
+		}
+
 		// check mandatory fields
-		for (TableColumn field : reportService.getMandatoryFieldNotFilled(row)) {
+		for (TableColumn field : notFilled) {
 
 			String label = field.getLabel();
 
@@ -330,8 +512,18 @@ public class TseReportValidator extends ReportValidator {
 
 		Collection<ReportError> errors = new ArrayList<>();
 
-		SummarizedInfoValidator validator = new SummarizedInfoValidator(daoService);
-		Collection<SampleCheck> checks = validator.isSampleCorrect(row);
+		SummarizedInfoValidator validator = new SummarizedInfoValidator(getDao());
+
+		Collection<TableRow> cases;
+		if (rowIndex != null) {
+			cases = rowIndex.getCases(row.getDatabaseId());
+		} else {
+			cases = getDao().getByParentId(TableSchemaList.getByName(CustomStrings.CASE_INFO_SHEET),
+					row.getSchema().getSheetName(), row.getDatabaseId(), true);
+		}
+
+		Collection<SampleCheck> checks = validator.isSampleCorrect(row, cases);
+
 		String rowId = getStackTrace(row);
 
 		for (SampleCheck check : checks) {
@@ -392,70 +584,67 @@ public class TseReportValidator extends ReportValidator {
 
 		Collection<ReportError> errors = new ArrayList<>();
 
-		CaseReportValidator validator = new CaseReportValidator(daoService);
+		CaseReportValidator validator = new CaseReportValidator(getDao());
+
+		TableRow summInfo = getParent(CustomStrings.SUMMARIZED_INFO_SHEET,
+				row.getNumCode(Relation.foreignKeyFromParent(CustomStrings.SUMMARIZED_INFO_SHEET)));
+
+		Collection<Check> checks;
+		if (rowIndex != null) {
+			checks = validator.isRecordCorrect(row, summInfo, rowIndex.getResults(row.getDatabaseId()));
+		} else {
+			checks = validator.isRecordCorrect(row, summInfo);
+		}
 
-		Collection<Check> checks = new ArrayList<>();
-		checks = validator.isRecordCorrect(row);
+		String rowId = getStackTrace(row);
 
 		for (Check check : checks) {
 			switch (check) {
 			case NO_TEST_SPECIFIED:
-				errors.add(new NoTestSpecifiedError(getStackTrace(row)));
+				errors.add(new NoTestSpecifiedError(rowId));
 				break;
 			case DUPLICATED_TEST:
-				errors.add(new DuplicatedTestError(getStackTrace(row)));
+				errors.add(new DuplicatedTestError(rowId));
 				break;
 			case CASE_ID_FOR_NEGATIVE:
-				errors.add(new CaseIdForNegativeError(getStackTrace(row)));
+				errors.add(new CaseIdForNegativeError(rowId));
 				break;
 			case INDEX_CASE_FOR_NEGATIVE:
-				errors.add(new IndexCaseForNegativeError(getStackTrace(row)));
+				errors.add(new IndexCaseForNegativeError(rowId));
 				break;
 			case INDEX_CASE_FOR_FARMED_CWD:
-				errors.add(new IndexCaseForFarmedCwd(getStackTrace(row)));
+				errors.add(new IndexCaseForFarmedCwd(rowId));
 				break;
 			case EM_FOR_NOT_INFECTED:
-				errors.add(new NotInfectedStatusForEradicationError(getStackTrace(row)));
+				errors.add(new NotInfectedStatusForEradicationError(rowId));
 				break;
 			case INDEX_CASE_FOR_INFECTED:
-				errors.add(new IndexCaseInconsistentWithStatusHerdError(getStackTrace(row),
+				errors.add(new IndexCaseInconsistentWithStatusHerdError(rowId,
 						row.getLabel(CustomStrings.INDEX_CASE_COL), "Infected"));
 				break;
 			case NOT_INDEX_CASE_FOR_FREE:
-				errors.add(new IndexCaseInconsistentWithStatusHerdError(getStackTrace(row),
+				errors.add(new IndexCaseInconsistentWithStatusHerdError(rowId,
 						row.getLabel(CustomStrings.INDEX_CASE_COL), "Not infected"));
 				break;
 			case NOT_CONSTANT_ANALYSIS_YEAR:
-				errors.add(new NotConstantAnalysisYearError(getStackTrace(row)));
+				errors.add(new NotConstantAnalysisYearError(rowId));
 				break;
 			default:
 				break;
 			}
 		}
 
-		errors.addAll(checkAgeClass(row));
+		errors.addAll(checkAgeClass(row, summInfo));
 
 		return errors;
 	}
 
 	public Collection<ReportError> checkNationalCaseId(Collection<TableRow> reportRecords) {
-
-		String[] fieldsToCheck = { CustomStrings.ANIMAL_ID_COL };
-
-		return checkIdField(reportRecords, CustomStrings.NATIONAL_CASE_ID_COL,
-				TSEMessages.get("inconsistent.national.case.id"), fieldsToCheck);
+		return runCheck(createNationalCaseIdCheck(), reportRecords);
 	}
 
 	public Collection<ReportError> checkAnimalId(Collection<TableRow> reportRecords) {
-
-		String[] fieldsToCheck = { CustomStrings.NATIONAL_CASE_ID_COL, CustomStrings.HERD_ID_COL,
-				CustomStrings.STATUS_HERD_COL, CustomStrings.SAMP_HOLDING_ID_COL, CustomStrings.SAMP_DAY_COL,
-				CustomStrings.SAMP_AREA_COL, CustomStrings.INDEX_CASE_COL, CustomStrings.BIRTH_COUNTRY_COL,
-				CustomStrings.BIRTH_YEAR_COL, CustomStrings.BIRTH_MONTH_COL, CustomStrings.BORN_FLOCK_HERD_COL,
-				CustomStrings.BREED_COL, CustomStrings.EVAL_COMMENT_COL };
-
-		return checkIdField(reportRecords, CustomStrings.ANIMAL_ID_COL, TSEMessages.get("inconsistent.animal.id"),
-				fieldsToCheck);
+		return runCheck(createAnimalIdCheck(), reportRecords);
 	}
 
 	/**
@@ -470,56 +659,30 @@ public class TseReportValidator extends ReportValidator {
 	 */
 	public Collection<ReportError> checkIdField(Collection<TableRow> reportRecords, String idField, String idFieldLabel,
 			String[] fieldsToCheck) {
+		return runCheck(new InconsistentIdCheck(this, idField, idFieldLabel, fieldsToCheck), reportRecords);
+	}
 
-		Collection<ReportError> errors = new ArrayList<>();
-
-		HashMap<String, TableRow> cases = new HashMap<>();
-		for (TableRow row : reportRecords) {
-
-			if (TseReportService.getRowType(row) != RowType.CASE)
-				continue;
-
-			String id = row.getLabel(idField);
-
-			if (id.isEmpty())
-				continue;
-
-			TableRow current = cases.get(id);
-
-			// if one is already present, check if they are equal or not
-			if (current != null) {
-
-				// add all the mismatches
-				for (String field : fieldsToCheck) {
-
-					String currentValue = current.getCode(field);
-					String currentValueLab = current.getLabel(field);
-					String value = row.getCode(field);
-					String label = row.getLabel(field);
-
-					if (!value.equals(currentValue)) {
-						errors.add(new InconsistentCasesError(getStackTrace(current), getStackTrace(row), idFieldLabel,
-								id, field, currentValueLab, label));
-					}
-				}
-			}
+	public Collection<ReportError> checkAgeClass(TableRow row) {
 
-			// save the new one
-			cases.put(id, row);
-		}
+		int summId = row.getNumCode(Relation.foreignKeyFromParent(CustomStrings.SUMMARIZED_INFO_SHEET));
+		TableRow summInfo = getParent(CustomStrings.SUMMARIZED_INFO_SHEET, summId);
 
-		return errors;
+		return checkAgeClass(row, summInfo);
 	}
 
-	public Collection<ReportError> checkAgeClass(TableRow row) {
+	/**
+	 * Check the age class of a case report against its birth date
+	 * 
+	 * @param row      the case report
+	 * @param summInfo the parent summarized information of the case
+	 * @return
+	 */
+	private Collection<ReportError> checkAgeClass(TableRow row, TableRow summInfo) {
 
 		Collection<ReportError> errors = new ArrayList<>();
 
 		int reportId = row.getNumCode(Relation.foreignKeyFromParent(CustomStrings.REPORT_SHEET));
-		TableRow report1 = daoService.getById(TableSchemaList.getByName(CustomStrings.REPORT_SHEET), reportId);
-
-		int summId = row.getNumCode(Relation.foreignKeyFromParent(CustomStrings.SUMMARIZED_INFO_SHEET));
-		TableRow summInfo = daoService.getById(TableSchemaList.getByName(CustomStrings.SUMMARIZED_INFO_SHEET), summId);
+		TableRow report1 = getParent(CustomStrings.REPORT_SHEET, reportId);
 
 		String reportYear = report1.getCode(AppPaths.REPORT_YEAR_COL);
 		String reportMonth = report1.getCode(AppPaths.REPORT_MONTH_COL);
@@ -544,15 +707,19 @@ public class TseReportValidator extends ReportValidator {
 		if (birthYear.isEmpty() || birthMonth.isEmpty() || ageClass.isEmpty())
 			return errors;
 
-		AgeClassValidator ageValidator = new AgeClassValidator(ageClass, reportYear, reportMonth, birthYear,
-				birthMonth);
-
 		try {
-			tse_validator.AgeClassValidator.Check check2 = ageValidator.validate();
+
+			int reportY = Integer.parseInt(reportYear);
+			int reportM = Integer.parseInt(reportMonth);
+			int birthY = Integer.parseInt(birthYear);
+			int birthM = Integer.parseInt(birthMonth);
+
+			AgeClassValidator.Check check2 = AgeClassTable.getInstance().check(ageClass, reportY, reportM, birthY,
+					birthM);
 			switch (check2) {
 			case AGE_CLASS_NOT_RESPECTED:
-				errors.add(
-						new WrongAgeClassError(getStackTrace(row), ageClassLabel, ageValidator.getMonthsDifference()));
+				errors.add(new WrongAgeClassError(getStackTrace(row), ageClassLabel,
+						AgeClassTable.getMonthsDifference(reportY, reportM, birthY, birthM)));
 				break;
 			case REPORT_DATE_EXCEEDED:
 				errors.add(new ReportDateExceededError(getStackTrace(row), reportYear, reportMonthLabel, birthYear,
@@ -561,6 +728,10 @@ public class TseReportValidator extends ReportValidator {
 			default:
 				break;
 			}
+		} catch (NumberFormatException e) {
+			e.printStackTrace();
+			LOGGER.error("Cannot check age class with wrong year/month data. Found Report=" + reportYear + " "
+					+ reportMonth + " Found Birth=" + birthYear + " " + birthMonth, e);
 		} catch (IOException e) {
 			e.printStackTrace();
 			LOGGER.error("Cannot check age class", e);
@@ -610,32 +781,33 @@ public class TseReportValidator extends ReportValidator {
 	}
 
 	public static Collection<ReportError> checkUnknownAgeClass(Collection<TableRow> rows) {
+		return runCheck(new UnknownAgeClassCheck(), rows);
+	}
 
-		int total = 0;
-		int unk = 0;
-
-		Collection<ReportError> errors = new ArrayList<>();
-		for (TableRow row : rows) {
-
-			// only for BSE summ info
-			if (TseReportService.getRowType(row) == RowType.SUMM
-					&& row.getCode(CustomStrings.SUMMARIZED_INFO_TYPE).equals(CustomStrings.SUMMARIZED_INFO_BSE_TYPE)) {
+	/**
+	 * Create the daos used by the threads of a parallel validation
+	 */
+	public interface DaoFactory {
+
+		/**
+		 * Create a new dao, used only by one thread
+		 * 
+		 * @return
+		 */
+		public ITableDaoService create();
+	}
 
-				int totalSamples = row.getNumLabel(CustomStrings.TOT_SAMPLE_TESTED_COL);
-				total += totalSamples;
+	/**
+	 * Dao and services of a thread of a parallel validation
+	 */
+	private class Worker {
 
-				// if unknown age class
-				if (row.getCode(CustomStrings.ANIMAGE_COL).equals(CustomStrings.UNKNOWN_AGE_CLASS_CODE)) {
-					unk += totalSamples;
-				}
-			}
-		}
+		private ITableDaoService daoService;
+		private TseReportService reportService;
 
-		// if unknown is bigger than 5%
-		if (unk * 100.000 / total > 5) {
-			errors.add(new TooManyUnknownAgeClassesError());
+		public Worker(ITableDaoService daoService) {
+			this.daoService = daoService;
+			this.reportService = TseReportValidator.this.reportService.copyWithOwnFormulas(daoService);
 		}
-
-		return errors;
 	}
 }
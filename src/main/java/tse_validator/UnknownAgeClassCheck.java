@@ -0,0 +1,52 @@
+package tse_validator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import providers.TseReportService.RowType;
+import report_validator.ReportError;
+import table_skeleton.TableRow;
+import tse_config.CustomStrings;
+
+/**
+ * Check that the BSE samples with unknown age class are not more than the 5%
+ * of the total BSE samples tested.
+ * 
+ * @author shahaal
+ *
+ */
+public class UnknownAgeClassCheck implements CrossRowCheck {
+
+	private int total;
+	private int unk;
+
+	@Override
+	public void index(TableRow row, RowType type) {
+
+		// only for BSE summ info
+		if (type != RowType.SUMM
+				|| !row.getCode(CustomStrings.SUMMARIZED_INFO_TYPE).equals(CustomStrings.SUMMARIZED_INFO_BSE_TYPE))
+			return;
+
+		int totalSamples = row.getNumLabel(CustomStrings.TOT_SAMPLE_TESTED_COL);
+		total += totalSamples;
+
+		// if unknown age class
+		if (row.getCode(CustomStrings.ANIMAGE_COL).equals(CustomStrings.UNKNOWN_AGE_CLASS_CODE)) {
+			unk += totalSamples;
+		}
+	}
+
+	@Override
+	public Collection<ReportError> evaluate() {
+
+		Collection<ReportError> errors = new ArrayList<>();
+
+		// if unknown is bigger than 5%
+		if (unk * 100.000 / total > 5) {
+			errors.add(new TooManyUnknownAgeClassesError());
+		}
+
+		return errors;
+	}
+}
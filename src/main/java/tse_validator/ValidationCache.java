@@ -0,0 +1,287 @@
+package tse_validator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import providers.TseReportService;
+import providers.TseReportService.RowType;
+import report_validator.ReportError;
+import table_relations.Relation;
+import table_skeleton.TableCell;
+import table_skeleton.TableColumn;
+import table_skeleton.TableRow;
+import tse_config.CustomStrings;
+
+/**
+ * Cache of the errors found in the single rows of a report during the last
+ * validation. Each row is stored with a digest of its content and of the
+ * content of the rows it depends on (parents, children and report), so that
+ * only the rows which changed since the last check are validated again. The
+ * cache is kept for the last {@link #MAX_REPORTS} validated reports and removed
+ * when the report is closed or deleted.
+ * 
+ * The cache is kept only in memory and it is not saved in the database: the
+ * errors are objects of the library built with their messages, which cannot be
+ * stored in the tables of the tool. The first validation of a report after the
+ * application is started checks all its rows.
+ * 
+ * @author shahaal
+ *
+ */
+public class ValidationCache {
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	// number of reports whose results are kept
+	static final int MAX_REPORTS = 5;
+
+	// least recently validated reports are removed first
+	private static LinkedHashMap<Integer, ValidationCache> caches = new LinkedHashMap<Integer, ValidationCache>(
+			16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, ValidationCache> eldest) {
+			return size() > MAX_REPORTS;
+		}
+	};
+
+	private HashMap<String, Long> digests;
+	private HashMap<String, Collection<ReportError>> errors;
+
+	private ValidationCache() {
+		this.digests = new HashMap<>();
+		this.errors = new HashMap<>();
+	}
+
+	/**
+	 * Get the cache of a report
+	 * 
+	 * @param report
+	 * @return
+	 */
+	public static synchronized ValidationCache getCache(TableRow report) {
+
+		ValidationCache cache = caches.get(report.getDatabaseId());
+
+		if (cache == null) {
+			cache = new ValidationCache();
+			caches.put(report.getDatabaseId(), cache);
+		}
+
+		return cache;
+	}
+
+	/**
+	 * Remove the cached results of a report, to be called when the report is
+	 * closed or deleted
+	 * 
+	 * @param report
+	 */
+	public static synchronized void remove(TableRow report) {
+		caches.remove(report.getDatabaseId());
+	}
+
+	/**
+	 * Remove the cached results of all the reports. To be called when something
+	 * which affects all the rows changes (as preferences and settings).
+	 */
+	public static synchronized void clearAll() {
+		caches.clear();
+	}
+
+	/**
+	 * Check if the errors of a row are cached and still valid
+	 * 
+	 * @param key    key of the row, see {@link #getKey(TableRow)}
+	 * @param digest current digest of the row
+	 * @return
+	 */
+	public boolean isValid(String key, long digest) {
+		Long cached = digests.get(key);
+		return cached != null && cached == digest;
+	}
+
+	/**
+	 * Get the cached errors of a row
+	 * 
+	 * @param key
+	 * @return
+	 */
+	public Collection<ReportError> getErrors(String key) {
+		return errors.get(key);
+	}
+
+	/**
+	 * Save the errors of a row
+	 * 
+	 * @param key
+	 * @param digest
+	 * @param rowErrors
+	 */
+	public void put(String key, long digest, Collection<ReportError> rowErrors) {
+		digests.put(key, digest);
+		errors.put(key, rowErrors);
+	}
+
+	/**
+	 * Remove the rows which are not part of the report anymore
+	 * 
+	 * @param keys keys of the current rows
+	 */
+	public void retainAll(Collection<String> keys) {
+		HashSet<String> set = new HashSet<>(keys);
+		digests.keySet().retainAll(set);
+		errors.keySet().retainAll(set);
+	}
+
+	/**
+	 * Get the key of a row in the cache
+	 * 
+	 * @param row
+	 * @return
+	 */
+	public static String getKey(TableRow row) {
+		return row.getSchema().getSheetName() + ":" + row.getDatabaseId();
+	}
+
+	/**
+	 * Compute the digest of each record of the report. The digest of a row
+	 * changes if the row changes or if one of the rows used to validate it
+	 * changes:
+	 * <ul>
+	 * <li>summarized information: its cases</li>
+	 * <li>case: the report, its summarized information and the number of its
+	 * results</li>
+	 * <li>result: the report, its summarized information and its case</li>
+	 * </ul>
+	 * 
+	 * @param records the records of the report
+	 * @param index   index of the records
+	 * @param report  the report
+	 * @return the digests by row key
+	 */
+	public static HashMap<String, Long> computeDigests(Collection<TableRow> records, ReportRowIndex index,
+			TableRow report) {
+
+		HashMap<String, Long> hashes = new HashMap<>();
+		for (TableRow row : records) {
+			hashes.put(getKey(row), getContentHash(row));
+		}
+
+		long reportHash = getContentHash(report);
+
+		HashMap<String, Long> result = new HashMap<>();
+
+		for (TableRow row : records) {
+
+			String key = getKey(row);
+			long digest = hashes.get(key);
+
+			RowType type = TseReportService.getRowType(row);
+
+			if (type == RowType.SUMM) {
+				for (TableRow caseReport : index.getCases(row.getDatabaseId())) {
+					digest = combine(digest, hashes.get(getKey(caseReport)));
+				}
+			} else if (type == RowType.CASE) {
+				digest = combine(digest, reportHash);
+				digest = combine(digest, getParentHash(row, CustomStrings.SUMMARIZED_INFO_SHEET, index));
+				digest = combine(digest, index.getResults(row.getDatabaseId()).size());
+			} else if (type == RowType.RESULT) {
+				digest = combine(digest, reportHash);
+				digest = combine(digest, getParentHash(row, CustomStrings.SUMMARIZED_INFO_SHEET, index));
+				digest = combine(digest, getParentHash(row, CustomStrings.CASE_INFO_SHEET, index));
+			}
+
+			result.put(key, digest);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Get the content hash of the parent of a row
+	 * 
+	 * @param row
+	 * @param parentSheet
+	 * @param index
+	 * @return 0 if the parent is not in the index
+	 */
+	private static long getParentHash(TableRow row, String parentSheet, ReportRowIndex index) {
+
+		int parentId = row.getNumCode(Relation.foreignKeyFromParent(parentSheet));
+		TableRow parent = index.get(parentSheet, parentId);
+
+		return parent == null ? 0 : getContentHash(parent);
+	}
+
+	/**
+	 * Compute a hash of the codes and labels of all the columns of a row
+	 * 
+	 * @param row
+	 * @return
+	 */
+	public static long getContentHash(TableRow row) {
+
+		long hash = FNV_OFFSET;
+
+		for (TableColumn col : row.getSchema()) {
+
+			TableCell cell = row.get(col.getId());
+
+			if (cell == null) {
+				hash = combine(hash, 0);
+				continue;
+			}
+
+			hash = combine(hash, cell.getCode());
+			hash = combine(hash, cell.getLabel());
+		}
+
+		hash = combine(hash, row.hasChildrenError() ? 1 : 0);
+
+		return hash;
+	}
+
+	private static long combine(long hash, String value) {
+
+		if (value == null)
+			return combine(hash, 0);
+
+		for (int i = 0; i < value.length(); i++) {
+			hash = combine(hash, value.charAt(i));
+		}
+
+		// separator between values
+		return combine(hash, 0xFFFF);
+	}
+
+	private static long combine(long hash, long value) {
+		hash ^= value;
+		hash *= FNV_PRIME;
+		return hash;
+	}
+
+	/**
+	 * Get the keys of the records
+	 * 
+	 * @param records
+	 * @return
+	 */
+	public static Collection<String> getKeys(Collection<TableRow> records) {
+
+		Collection<String> keys = new ArrayList<>();
+		for (TableRow row : records) {
+			keys.add(getKey(row));
+		}
+
+		return keys;
+	}
+}
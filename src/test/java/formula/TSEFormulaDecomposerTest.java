@@ -2,6 +2,7 @@ package formula;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.text.ParseException;
@@ -9,6 +10,8 @@ import java.util.HashMap;
 
 import org.junit.jupiter.api.Test;
 
+import report_downloader.DecompositionCache;
+import report_downloader.DecompositionPlan;
 import report_downloader.TSEFormulaDecomposer;
 import table_skeleton.TableCell;
 import tse_config.CustomStrings;
@@ -25,4 +28,39 @@ public class TSEFormulaDecomposerTest {
 		assertEquals("my samp", values.get(CustomStrings.PSU_ID_COL).getCode());
 		assertEquals("my samp", values.get(CustomStrings.PSU_ID_COL).getLabel());
 	}
+
+	@Test
+	public void decomposeIntoTargetWithAlias() throws ParseException {
+		TSEFormulaDecomposer decomposer = new TSEFormulaDecomposer();
+		HashMap<String, TableCell> values = new HashMap<>();
+
+		DecompositionPlan plan = TSEFormulaDecomposer.getPlan(CustomStrings.EVAL_INFO_COL)
+				.withAlias(CustomStrings.EVAL_COMMENT_BREED_ATTRIBUTE_NAME, CustomStrings.EVAL_COMMENT_COL);
+
+		decomposer.decompose(plan, "com=my comment$PSUId=my samp", values);
+		decomposer.decompose(CustomStrings.SAMP_MAT_CODE_COL, "A04MQ#$F01.A057C$F21.A07RV", values);
+
+		assertEquals("my comment", values.get(CustomStrings.EVAL_COMMENT_COL).getCode());
+		assertEquals("my comment", values.get(CustomStrings.EVAL_COMMENT_BREED_ATTRIBUTE_NAME).getCode());
+		assertEquals("my samp", values.get(CustomStrings.PSU_ID_COL).getLabel());
+		assertEquals("F01.A057C", values.get(CustomStrings.SOURCE_COL).getCode());
+		assertEquals("F21.A07RV", values.get(CustomStrings.PROD_COL).getCode());
+	}
+
+	@Test
+	public void cachedDecompositionShouldReturnNewCells() throws ParseException {
+		DecompositionCache cache = new DecompositionCache(10);
+		TSEFormulaDecomposer decomposer = new TSEFormulaDecomposer(cache);
+
+		HashMap<String, TableCell> first = decomposer.decompose(CustomStrings.PARAM_CODE_COL,
+				"RF-00004629-PAR#allele=ARQ$allele=ARR");
+		HashMap<String, TableCell> second = decomposer.decompose(CustomStrings.PARAM_CODE_COL,
+				"RF-00004629-PAR#allele=ARQ$allele=ARR");
+
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.getHits());
+		assertEquals("ARQ", second.get(CustomStrings.ALLELE_1_COL).getCode());
+		assertEquals("ARR", second.get(CustomStrings.ALLELE_2_COL).getCode());
+		assertNotSame(first.get(CustomStrings.ALLELE_1_COL), second.get(CustomStrings.ALLELE_1_COL));
+	}
 }
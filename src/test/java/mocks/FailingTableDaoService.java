@@ -0,0 +1,38 @@
+package mocks;
+
+import providers.TableDaoService;
+import table_skeleton.TableRow;
+
+/**
+ * Dao service which fails the inserts after a number of rows, as the dao of
+ * the library does when the insert query fails (no exception and -1 as id)
+ */
+public class FailingTableDaoService extends TableDaoService {
+
+	private int addsBeforeFailure;
+
+	public FailingTableDaoService() {
+		super(new TableDaoMock());
+		this.addsBeforeFailure = Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Make the inserts fail after the given number of rows
+	 * 
+	 * @param addsBeforeFailure
+	 */
+	public void failAfter(int addsBeforeFailure) {
+		this.addsBeforeFailure = addsBeforeFailure;
+	}
+
+	@Override
+	public int add(TableRow row) {
+
+		if (addsBeforeFailure <= 0)
+			return -1;
+
+		addsBeforeFailure--;
+
+		return super.add(row);
+	}
+}
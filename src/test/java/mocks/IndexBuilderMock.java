@@ -0,0 +1,46 @@
+package mocks;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import tse_database.IIndexBuilder;
+import tse_database.TableIndex;
+
+public class IndexBuilderMock implements IIndexBuilder {
+
+	private DatabaseMock db;
+	
+	public IndexBuilderMock(DatabaseMock db) {
+		this.db = db;
+	}
+	
+	@Override
+	public Collection<String> getIndexNames(String tableName) throws SQLException {
+		
+		Table t = db.getTable(tableName);
+		
+		if (t == null)
+			return new ArrayList<>();
+		
+		return new ArrayList<>(t.getIndexes());
+	}
+
+	@Override
+	public void createIndex(TableIndex index) throws SQLException {
+		
+		if (db.getColumn(index.getTableName(), index.getColumnName()) == null)
+			throw new SQLException("Column " + index.getColumnName() + " not found");
+		
+		db.getTable(index.getTableName()).addIndex(index.getName());
+	}
+
+	@Override
+	public void dropIndex(String tableName, String indexName) throws SQLException {
+		
+		Table t = db.getTable(tableName);
+		
+		if (t != null)
+			t.removeIndex(indexName);
+	}
+}
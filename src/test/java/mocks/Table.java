@@ -1,14 +1,29 @@
 package mocks;
 
+import java.util.ArrayList;
 import java.util.Collection;
 
 public class Table {
 	private String name;
 	private Collection<Column> columns;
+	private Collection<String> indexes;
 	
 	public Table(String name, Collection<Column> columns) {
 		this.name = name;
 		this.columns = columns;
+		this.indexes = new ArrayList<>();
+	}
+	
+	public void addIndex(String indexName) {
+		this.indexes.add(indexName);
+	}
+	
+	public void removeIndex(String indexName) {
+		this.indexes.remove(indexName);
+	}
+	
+	public Collection<String> getIndexes() {
+		return indexes;
 	}
 	
 	public void addColumn(Column col) {
@@ -0,0 +1,69 @@
+package mocks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import providers.TableDaoService;
+import table_database.ITableDao;
+import table_skeleton.TableRow;
+import table_skeleton.TableRowList;
+import xlsx_reader.TableSchema;
+
+/**
+ * Dao service which counts the reads done by a thread which is not the first
+ * one that used it, to check that a dao is not shared among threads
+ */
+public class ThreadConfinedDaoService extends TableDaoService {
+
+	private volatile Thread owner;
+	private final AtomicInteger reads;
+	private final AtomicInteger violations;
+
+	public ThreadConfinedDaoService(ITableDao dao) {
+		super(dao);
+		this.reads = new AtomicInteger();
+		this.violations = new AtomicInteger();
+	}
+
+	/**
+	 * Get the number of reads done by a thread which is not the owner
+	 * 
+	 * @return
+	 */
+	public int getViolations() {
+		return violations.get();
+	}
+
+	/**
+	 * Get the number of reads done with the dao
+	 * 
+	 * @return
+	 */
+	public int getReads() {
+		return reads.get();
+	}
+
+	private void checkThread() {
+
+		reads.incrementAndGet();
+
+		synchronized (this) {
+			if (owner == null)
+				owner = Thread.currentThread();
+		}
+
+		if (owner != Thread.currentThread())
+			violations.incrementAndGet();
+	}
+
+	@Override
+	public TableRow getById(TableSchema schema, int id) {
+		checkThread();
+		return super.getById(schema, id);
+	}
+
+	@Override
+	public TableRowList getByParentId(TableSchema schema, String parentTable, int parentId, boolean solveFormulas) {
+		checkThread();
+		return super.getByParentId(schema, parentTable, parentId, solveFormulas);
+	}
+}
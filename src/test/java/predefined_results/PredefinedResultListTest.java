@@ -0,0 +1,66 @@
+package predefined_results;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PredefinedResultListTest {
+
+	private PredefinedResultList list;
+	private PredefinedResult exact;
+	private PredefinedResult anySource;
+	private PredefinedResult anyType;
+
+	@BeforeEach
+	public void init() {
+
+		list = new PredefinedResultList();
+
+		exact = create("BSE", "SRC1", "Yes", "INC");
+		anySource = create("BSE", "", "No", "INC");
+		anyType = create("null", "", "No", "");
+
+		list.add(exact);
+		list.add(anySource);
+		list.add(anyType);
+	}
+
+	private static PredefinedResult create(String type, String source, String conf, String asses) {
+		PredefinedResult res = new PredefinedResult();
+		res.put(PredefinedResultHeader.RECORD_TYPE, type);
+		res.put(PredefinedResultHeader.SOURCE, source);
+		res.put(PredefinedResultHeader.CONFIRMATORY_EXECUTED, conf);
+		res.put(PredefinedResultHeader.SAMP_EVENT_ASSES, asses);
+		return res;
+	}
+
+	@Test
+	public void exactMatch() {
+		assertSame(exact, list.get("BSE", "SRC1", true, "INC"));
+	}
+
+	@Test
+	public void wildcardMatchReturnsFirstRow() {
+		assertSame(anySource, list.get("BSE", "SRC2", false, "INC"));
+		assertSame(anyType, list.get("CWD", "SRC2", false, "POS"));
+	}
+
+	@Test
+	public void nullValueMatchesOnlyWildcards() {
+		assertSame(anyType, list.get("BSE", null, false, "INC"));
+		assertNull(list.get("BSE", "SRC1", true, null));
+	}
+
+	@Test
+	public void indexIsUpdatedWhenListChanges() {
+
+		assertNull(list.get("SCRAPIE", "SRC1", true, "POS"));
+
+		PredefinedResult added = create("SCRAPIE", "SRC1", "Yes", "POS");
+		list.add(added);
+
+		assertSame(added, list.get("SCRAPIE", "SRC1", true, "POS"));
+	}
+}
@@ -0,0 +1,238 @@
+package providers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mocks.FailingTableDaoService;
+import mocks.RowCreatorMock;
+import table_skeleton.TableCell;
+import table_skeleton.TableRow;
+import table_skeleton.TableRowList;
+import tse_case_report.CaseReport;
+import tse_config.CustomStrings;
+import tse_report.TseReport;
+import tse_summarized_information.SummarizedInfo;
+import xlsx_reader.TableSchemaList;
+
+public class DefaultRowsGeneratorTest {
+
+	private DefaultRowsGenerator generator;
+	private FailingTableDaoService daoService;
+
+	private TableRow pref;
+	private TseReport report;
+	private SummarizedInfo si;
+
+	// last progress notified by the generator
+	private int lastDone;
+	private int lastTotal;
+
+	@BeforeEach
+	public void init() {
+
+		this.daoService = new FailingTableDaoService();
+		this.generator = new DefaultRowsGenerator(daoService, new FormulaService(daoService));
+
+		pref = RowCreatorMock.genRandPreferences();
+		pref.put(CustomStrings.PREFERENCES_SCREENING_BSE, new TableCell("F639A", ""));
+		pref.put(CustomStrings.PREFERENCES_DISCRIMINATORY_BSE, new TableCell("F658A", ""));
+		int prefId = daoService.add(pref);
+
+		TableRow opt = RowCreatorMock.genRandSettings();
+		int optId = daoService.add(opt);
+
+		report = RowCreatorMock.genRandReport(prefId);
+		int reportId = daoService.add(report);
+
+		si = RowCreatorMock.genRandSummInfo(reportId, optId, prefId);
+		daoService.add(si);
+
+		lastDone = 0;
+		lastTotal = 0;
+	}
+
+	private GenerationProgressListener getListener() {
+		return (done, total) -> {
+			lastDone = done;
+			lastTotal = total;
+		};
+	}
+
+	private void setCounts(String type, int inconclusive, int positive) {
+		si.put(CustomStrings.SUMMARIZED_INFO_TYPE, new TableCell(type, ""));
+		si.put(CustomStrings.TOT_SAMPLE_INCONCLUSIVE_COL, String.valueOf(inconclusive));
+		si.put(CustomStrings.TOT_SAMPLE_POSITIVE_COL, String.valueOf(positive));
+	}
+
+	private TableRowList getCases() {
+		return daoService.getAll(TableSchemaList.getByName(CustomStrings.CASE_INFO_SHEET));
+	}
+
+	private TableRowList getResults() {
+		return daoService.getAll(TableSchemaList.getByName(CustomStrings.RESULT_SHEET));
+	}
+
+	private static int countPart(Collection<? extends TableRow> cases, String part) {
+		int count = 0;
+		for (TableRow row : cases) {
+			if (part.equals(row.getCode(CustomStrings.PART_COL)))
+				count++;
+		}
+		return count;
+	}
+
+	@Test
+	public void casesCountForBSE() {
+
+		setCounts(CustomStrings.SUMMARIZED_INFO_BSE_TYPE, 2, 3);
+
+		assertEquals(5, DefaultRowsGenerator.getDefaultCasesCount(si));
+
+		generator.createCases(report, si, getListener());
+
+		TableRowList cases = getCases();
+		assertEquals(5, cases.size());
+		assertEquals(5, countPart(cases, CustomStrings.OBEX_CODE));
+		assertEquals(5, lastDone);
+		assertEquals(5, lastTotal);
+
+		int inconclusive = 0;
+		for (TableRow row : cases) {
+			if (CustomStrings.DEFAULT_ASSESS_INC_CASE_CODE.equals(row.getCode(CustomStrings.SAMP_EVENT_ASSES_COL)))
+				inconclusive++;
+		}
+
+		assertEquals(2, inconclusive);
+
+		// no result without asking for them
+		assertEquals(0, getResults().size());
+	}
+
+	@Test
+	public void cervidCasesArePairedObexAndLymphNodes() {
+
+		setCounts(CustomStrings.SUMMARIZED_INFO_CWD_TYPE, 1, 2);
+
+		assertEquals(6, DefaultRowsGenerator.getDefaultCasesCount(si));
+
+		Collection<CaseReport> cases = generator.createCases(report, si, null);
+
+		assertEquals(6, cases.size());
+		assertEquals(6, getCases().size());
+		assertEquals(3, countPart(cases, CustomStrings.OBEX_CODE));
+		assertEquals(3, countPart(cases, CustomStrings.RETROPHARYNGEAL_CODE));
+
+		// each obex is followed by the lymph nodes of the same animal
+		CaseReport previous = null;
+		for (CaseReport caseReport : cases) {
+
+			if (previous != null) {
+				assertEquals(CustomStrings.OBEX_CODE, previous.getCode(CustomStrings.PART_COL));
+				assertEquals(CustomStrings.RETROPHARYNGEAL_CODE, caseReport.getCode(CustomStrings.PART_COL));
+				assertEquals(previous.getCode(CustomStrings.SAMP_EVENT_ASSES_COL),
+						caseReport.getCode(CustomStrings.SAMP_EVENT_ASSES_COL));
+				previous = null;
+			} else {
+				previous = caseReport;
+			}
+		}
+	}
+
+	@Test
+	public void rgtBloodCase() {
+
+		setCounts(CustomStrings.SUMMARIZED_INFO_RGT_TYPE, 4, 4);
+
+		assertEquals(1, DefaultRowsGenerator.getDefaultCasesCount(si));
+
+		generator.createCases(report, si, getListener());
+
+		TableRowList cases = getCases();
+		assertEquals(1, cases.size());
+		assertEquals(CustomStrings.BLOOD_CODE, cases.iterator().next().getCode(CustomStrings.PART_COL));
+		assertEquals(1, lastDone);
+		assertEquals(1, lastTotal);
+	}
+
+	@Test
+	public void resultsOnlyForCasesWithAssessment() throws IOException {
+
+		setCounts(CustomStrings.SUMMARIZED_INFO_BSE_TYPE, 1, 1);
+
+		Collection<CaseReport> cases = generator.createCasesAndResults(report, si, getListener());
+
+		assertEquals(2, cases.size());
+		assertEquals(4, lastDone);
+		assertEquals(4, lastTotal);
+
+		TableRowList results = getResults();
+		assertFalse(results.isEmpty());
+
+		int incCaseId = -1;
+		for (CaseReport caseReport : cases) {
+			if (!caseReport.getCode(CustomStrings.SAMP_EVENT_ASSES_COL).isEmpty())
+				incCaseId = caseReport.getDatabaseId();
+		}
+
+		// all the results belong to the inconclusive case
+		for (TableRow result : results) {
+			assertEquals(incCaseId, result.getNumCode(CustomStrings.CASE_ID_COL));
+			assertFalse(result.getCode(CustomStrings.RES_ID_COL).isEmpty());
+		}
+	}
+
+	@Test
+	public void rollbackOfCasesOnFailure() {
+
+		setCounts(CustomStrings.SUMMARIZED_INFO_BSE_TYPE, 0, 3);
+
+		// fail after the second case
+		GenerationProgressListener failing = (done, total) -> {
+			if (done == 2)
+				throw new IllegalStateException("generation interrupted");
+		};
+
+		assertThrows(IllegalStateException.class, () -> generator.createCases(report, si, failing));
+
+		assertEquals(0, getCases().size());
+	}
+
+	@Test
+	public void rollbackOfCasesAndResultsOnFailure() {
+
+		setCounts(CustomStrings.SUMMARIZED_INFO_BSE_TYPE, 2, 0);
+
+		// fail after the results of the first case were created
+		GenerationProgressListener failing = (done, total) -> {
+			if (done == total - 1)
+				throw new IllegalStateException("generation interrupted");
+		};
+
+		assertThrows(IllegalStateException.class, () -> generator.createCasesAndResults(report, si, failing));
+
+		assertEquals(0, getCases().size());
+		assertEquals(0, getResults().size());
+		assertEquals(1, daoService.getAll(TableSchemaList.getByName(CustomStrings.SUMMARIZED_INFO_SHEET)).size());
+	}
+
+	@Test
+	public void rollbackOfCasesAndResultsWhenTheDaoFailsAnInsert() {
+
+		setCounts(CustomStrings.SUMMARIZED_INFO_BSE_TYPE, 2, 0);
+
+		// the two cases and the first result are inserted
+		daoService.failAfter(3);
+
+		assertThrows(IllegalStateException.class, () -> generator.createCasesAndResults(report, si, null));
+
+		assertEquals(0, getCases().size());
+		assertEquals(0, getResults().size());
+	}
+}
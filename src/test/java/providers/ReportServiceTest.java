@@ -42,6 +42,7 @@ import message.MessageResponse;
 import message.SendMessageException;
 import message.TrxCode;
 import message_creator.OperationType;
+import mocks.FailingTableDaoService;
 import mocks.RowCreatorMock;
 import mocks.TableDaoMock;
 import report.DisplayAckResult;
@@ -53,6 +54,8 @@ import soap_test.GetAckMock;
 import soap_test.GetDatasetMock;
 import soap_test.GetDatasetsListMock;
 import soap_test.SendMessageMock;
+import tse_analytical_result.AnalyticalResult;
+import tse_case_report.CaseReport;
 import table_skeleton.TableCell;
 import table_skeleton.TableRow;
 import table_skeleton.TableRowList;
@@ -1974,6 +1977,116 @@ public class ReportServiceTest {
 		assertTrue(error);
 	}
 
+	private static TableRow findById(TableRowList rows, int id) {
+
+		for (TableRow row : rows) {
+			if (row.getDatabaseId() == id)
+				return row;
+		}
+
+		return null;
+	}
+
+	@Test
+	public void amendReportWithCasesAndResults() {
+
+		TableRow prefs = RowCreatorMock.genRandPreferences();
+		int prefId = daoService.add(prefs);
+
+		TableRow settings = RowCreatorMock.genRandSettings();
+		int settingsId = daoService.add(settings);
+
+		TseReport report1 = RowCreatorMock.genRandReport(prefId);
+		report1.setId("");
+		int reportId = daoService.add(report1);
+
+		// two summarized information, each one with a case and a result
+		int[] summIds = new int[2];
+		for (int i = 0; i < summIds.length; ++i) {
+
+			SummarizedInfo summInfo = RowCreatorMock.genRandSummInfo(reportId, settingsId, prefId);
+			summIds[i] = daoService.add(summInfo);
+
+			CaseReport caseReport = RowCreatorMock.genRandCase(reportId, summIds[i], settingsId, prefId);
+			int caseId = daoService.add(caseReport);
+
+			AnalyticalResult result = RowCreatorMock.genRandResult(reportId, summIds[i], caseId, settingsId, prefId);
+			daoService.add(result);
+		}
+
+		TseReport amendedReport = reportService.amend(report1);
+
+		int newReportId = amendedReport.getDatabaseId();
+
+		TableRowList newSummInfos = daoService.getByParentId(
+				TableSchemaList.getByName(CustomStrings.SUMMARIZED_INFO_SHEET), CustomStrings.REPORT_SHEET,
+				newReportId, false);
+		TableRowList newCases = daoService.getByParentId(TableSchemaList.getByName(CustomStrings.CASE_INFO_SHEET),
+				CustomStrings.REPORT_SHEET, newReportId, false);
+		TableRowList newResults = daoService.getByParentId(TableSchemaList.getByName(CustomStrings.RESULT_SHEET),
+				CustomStrings.REPORT_SHEET, newReportId, false);
+
+		assertEquals(2, newSummInfos.size());
+		assertEquals(2, newCases.size());
+		assertEquals(2, newResults.size());
+
+		for (TableRow caseReport : newCases) {
+
+			int summId = caseReport.getNumCode(CustomStrings.SI_ID_COL);
+
+			// the case points to a copied summarized information
+			assertNotNull(findById(newSummInfos, summId));
+			assertFalse(summId == summIds[0] || summId == summIds[1]);
+		}
+
+		for (TableRow result : newResults) {
+
+			TableRow caseReport = findById(newCases, result.getNumCode(CustomStrings.CASE_ID_COL));
+
+			// the result points to the copied case and to its summarized information
+			assertNotNull(caseReport);
+			assertEquals(caseReport.getNumCode(CustomStrings.SI_ID_COL), result.getNumCode(CustomStrings.SI_ID_COL));
+			assertNotNull(findById(newSummInfos, result.getNumCode(CustomStrings.SI_ID_COL)));
+		}
+
+		// the old version is untouched
+		assertEquals(2, daoService.getByParentId(TableSchemaList.getByName(CustomStrings.RESULT_SHEET),
+				CustomStrings.REPORT_SHEET, reportId, false).size());
+	}
+
+	@Test
+	public void amendIsRemovedIfTheDaoFailsAnInsert() {
+
+		FailingTableDaoService failingDao = new FailingTableDaoService();
+		TseReportService service = new TseReportService(getAck, getDatasetsList, sendMessage, getDataset,
+				failingDao, new FormulaService(failingDao));
+
+		int prefId = failingDao.add(RowCreatorMock.genRandPreferences());
+		int settingsId = failingDao.add(RowCreatorMock.genRandSettings());
+
+		TseReport report1 = RowCreatorMock.genRandReport(prefId);
+		report1.setId("");
+		int reportId = failingDao.add(report1);
+
+		for (int i = 0; i < 2; ++i) {
+
+			int summId = failingDao.add(RowCreatorMock.genRandSummInfo(reportId, settingsId, prefId));
+			int caseId = failingDao.add(RowCreatorMock.genRandCase(reportId, summId, settingsId, prefId));
+			failingDao.add(RowCreatorMock.genRandResult(reportId, summId, caseId, settingsId, prefId));
+		}
+
+		// the new report, the aggregated data and the first case are copied
+		failingDao.failAfter(4);
+
+		assertThrows(IllegalStateException.class, () -> service.amend(report1));
+
+		// only the first version is left
+		assertEquals(1, failingDao.getAll(TableSchemaList.getByName(AppPaths.REPORT_SHEET)).size());
+		assertEquals(2, failingDao.getAll(TableSchemaList.getByName(CustomStrings.SUMMARIZED_INFO_SHEET)).size());
+		assertEquals(2, failingDao.getAll(TableSchemaList.getByName(CustomStrings.CASE_INFO_SHEET)).size());
+		assertEquals(2, failingDao.getAll(TableSchemaList.getByName(CustomStrings.RESULT_SHEET)).size());
+	}
+
 	@Test
 	public void exportReportWithAmendmentsWithNewRecord()
 			throws IOException, ParserConfigurationException, SAXException, ReportException, AmendException {
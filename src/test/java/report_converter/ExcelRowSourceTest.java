@@ -0,0 +1,207 @@
+package report_converter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import app_config.AppPaths;
+import formula.FormulaException;
+import mocks.RowCreatorMock;
+import mocks.TableDaoMock;
+import providers.FormulaService;
+import providers.ITableDaoService;
+import providers.TableDaoService;
+import providers.TseReportService;
+import report_downloader.TseReportImporter;
+import soap_test.GetAckMock;
+import soap_test.GetDatasetMock;
+import soap_test.GetDatasetsListMock;
+import soap_test.SendMessageMock;
+import table_skeleton.TableRow;
+import tse_config.CustomStrings;
+import tse_report.TseReport;
+import xlsx_reader.TableSchemaList;
+
+public class ExcelRowSourceTest {
+
+	@TempDir
+	File folder;
+
+	private ITableDaoService daoService;
+	private TseReportService reportService;
+
+	private int lastImported;
+	private int lastEstimated;
+
+	@BeforeEach
+	public void init() {
+
+		this.daoService = new TableDaoService(new TableDaoMock());
+
+		this.reportService = new TseReportService(new GetAckMock(), new GetDatasetsListMock<>(),
+				new SendMessageMock(), new GetDatasetMock(), daoService, new FormulaService(daoService));
+
+		this.lastImported = -1;
+		this.lastEstimated = -1;
+	}
+
+	/**
+	 * Write a workbook with a sheet of dataset rows and a lookup sheet
+	 * 
+	 * @param rows the rows of the data sheet, the first one is the header
+	 * @return
+	 * @throws IOException
+	 */
+	private File writeWorkbook(String[]... rows) throws IOException {
+
+		File file = new File(folder, "report.xlsx");
+
+		try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = new FileOutputStream(file)) {
+
+			// lookup tables are not imported
+			Sheet lookup = workbook.createSheet("lookup");
+			lookup.createRow(0).createCell(0).setCellValue("code");
+			lookup.createRow(1).createCell(0).setCellValue("F01.A057A");
+
+			Sheet data = workbook.createSheet("data");
+
+			for (int i = 0; i < rows.length; i++) {
+
+				Row row = data.createRow(i);
+
+				for (int j = 0; j < rows[i].length; j++) {
+					if (rows[i][j] != null)
+						row.createCell(j).setCellValue(rows[i][j]);
+				}
+			}
+
+			workbook.write(out);
+		}
+
+		return file;
+	}
+
+	private static String[] header() {
+		return new String[] { CustomStrings.PARAM_TYPE_COL, CustomStrings.PARAM_CODE_COL, CustomStrings.RES_ID_COL,
+				CustomStrings.PROG_ID_COL, CustomStrings.SAMPLE_ID_COL, CustomStrings.SAMP_INFO_COL,
+				CustomStrings.SAMP_MAT_CODE_COL };
+	}
+
+	private static String[] summarizedInfoRow() {
+		return new String[] { CustomStrings.SUMMARIZED_INFO_PARAM_TYPE, "RF-00003233-PAR", "1706_000001.0",
+				"1706_000001", null, null, "A04MQ#F01.A057A$F21.A07RV$F31.A16NK" };
+	}
+
+	private static String[] caseRow(String origSampId) {
+		return new String[] { "P001A", "RF-00003233-PAR", "1706_000001.1", null, "S1",
+				CustomStrings.ORIG_SAMP_ID_COL + "=" + origSampId, "A04MQ#F01.A057A$F21.A07RV$F31.A16NK" };
+	}
+
+	@Test
+	public void cellsAreMappedByHeaderAndLookupSheetsAreSkipped() throws IOException, XMLStreamException,
+			InterruptedException {
+
+		File file = writeWorkbook(header(), summarizedInfoRow(), caseRow("S0"));
+
+		final List<TableRow> rows = new ArrayList<>();
+
+		ExcelRowSource source = new ExcelRowSource(file);
+		source.read(row -> rows.add(row));
+
+		assertEquals(2, rows.size());
+
+		TableRow summInfo = rows.get(0);
+		assertEquals(CustomStrings.SUMMARIZED_INFO_PARAM_TYPE, summInfo.getCode(CustomStrings.PARAM_TYPE_COL));
+		assertEquals("1706_000001.0", summInfo.getCode(CustomStrings.RES_ID_COL));
+		assertEquals("1706_000001", summInfo.getCode(CustomStrings.PROG_ID_COL));
+
+		TableRow caseRow = rows.get(1);
+		assertEquals("P001A", caseRow.getCode(CustomStrings.PARAM_TYPE_COL));
+		assertEquals("S1", caseRow.getCode(CustomStrings.SAMPLE_ID_COL));
+		assertEquals(CustomStrings.ORIG_SAMP_ID_COL + "=S0", caseRow.getCode(CustomStrings.SAMP_INFO_COL));
+	}
+
+	@Test
+	public void declaredRowsAreReadFromTheDimension() throws XMLStreamException {
+
+		String sheet = "<worksheet><dimension ref=\"A1:G3\"/><sheetData/></worksheet>";
+		assertEquals(3, ExcelSheetHandler.getDeclaredRows(stream(sheet)));
+
+		String noDimension = "<worksheet><sheetData><row r=\"1\"/></sheetData></worksheet>";
+		assertEquals(-1, ExcelSheetHandler.getDeclaredRows(stream(noDimension)));
+
+		String singleCell = "<worksheet><dimension ref=\"A1\"/><sheetData/></worksheet>";
+		assertEquals(-1, ExcelSheetHandler.getDeclaredRows(stream(singleCell)));
+	}
+
+	private static InputStream stream(String xml) {
+		return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void progressIsNotifiedAtTheEndOfTheImport()
+			throws IOException, XMLStreamException, FormulaException, ParseException {
+
+		daoService.add(RowCreatorMock.genRandSettings());
+		int prefId = daoService.add(RowCreatorMock.genRandPreferences());
+
+		TseReport report = RowCreatorMock.genRandReport(prefId);
+		daoService.add(report);
+
+		File file = writeWorkbook(header(), summarizedInfoRow());
+
+		TseReportImporter imp = new TseReportImporter(reportService, daoService);
+		imp.importExcelRows(report, file, (imported, estimated) -> {
+			lastImported = imported;
+			lastEstimated = estimated;
+		});
+
+		assertEquals(1, lastImported);
+		assertEquals(1, lastEstimated);
+
+		assertEquals(1, daoService.getByParentId(TableSchemaList.getByName(CustomStrings.SUMMARIZED_INFO_SHEET),
+				AppPaths.REPORT_SHEET, report.getDatabaseId(), true).size());
+	}
+
+	@Test
+	public void failedImportIsRolledBackKeepingTheReport() throws IOException {
+
+		daoService.add(RowCreatorMock.genRandSettings());
+		int prefId = daoService.add(RowCreatorMock.genRandPreferences());
+
+		TseReport report = RowCreatorMock.genRandReport(prefId);
+		daoService.add(report);
+
+		// the case refers to aggregated data which are not in the file
+		File file = writeWorkbook(header(), summarizedInfoRow(), caseRow("notExistingSampId"));
+
+		TseReportImporter imp = new TseReportImporter(reportService, daoService);
+
+		assertThrows(ParseException.class, () -> imp.importExcelRows(report, file, null));
+
+		// the report was created before the import and is kept
+		assertEquals(1, daoService.getAll(TableSchemaList.getByName(AppPaths.REPORT_SHEET)).size());
+		assertEquals(0, daoService.getAll(TableSchemaList.getByName(CustomStrings.SUMMARIZED_INFO_SHEET)).size());
+		assertEquals(0, daoService.getAll(TableSchemaList.getByName(CustomStrings.CASE_INFO_SHEET)).size());
+		assertEquals(0, daoService.getAll(TableSchemaList.getByName(CustomStrings.RESULT_SHEET)).size());
+	}
+}
@@ -0,0 +1,59 @@
+package report_converter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xml.sax.SAXException;
+
+public class ExcelXmlConverterTest {
+
+	@TempDir
+	File folder;
+
+	@Test
+	public void rowsShouldBeConvertedIntoResultNodes()
+			throws IOException, OpenXML4JException, SAXException, ParserConfigurationException, XMLStreamException {
+
+		File excelFile = new File(folder, "report.xlsx");
+
+		try (XSSFWorkbook workbook = new XSSFWorkbook(); FileOutputStream out = new FileOutputStream(excelFile)) {
+
+			Sheet sheet = workbook.createSheet("AggregatedData");
+
+			Row header = sheet.createRow(0);
+			header.createCell(0).setCellValue("sampId");
+			header.createCell(1).setCellValue("totUnitsTested");
+			header.createCell(2).setCellValue("isRGT");
+
+			Row row = sheet.createRow(1);
+			row.createCell(0).setCellValue("A&B");
+			row.createCell(1).setCellValue(12);
+			row.createCell(2).setCellValue(true);
+
+			workbook.write(out);
+		}
+
+		File xmlFile = ExcelXmlConverter.convertXExcelToXml(excelFile);
+
+		String xml = new String(Files.readAllBytes(xmlFile.toPath()), StandardCharsets.UTF_8);
+
+		assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>"
+				+ "<message><payload><dataset><result><sampId>A&amp;B</sampId>"
+				+ "<totUnitsTested>12.0</totUnitsTested><isRGT>true</isRGT></result></dataset></payload></message>",
+				xml);
+	}
+}
@@ -0,0 +1,126 @@
+package report_converter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mocks.RowCreatorMock;
+import mocks.TableDaoMock;
+import providers.ITableDaoService;
+import providers.TableDaoService;
+import table_skeleton.TableRow;
+import tse_analytical_result.AnalyticalResult;
+import tse_case_report.CaseReport;
+import tse_report.TseReport;
+import tse_summarized_information.SummarizedInfo;
+
+public class ReportExcelExporterTest {
+
+	@TempDir
+	File folder;
+
+	private int lastDone;
+	private int lastTotal;
+
+	@Test
+	public void reportShouldBeExportedInOneSheetForEachLevel() throws IOException {
+
+		ITableDaoService daoService = new TableDaoService(new TableDaoMock());
+
+		TableRow prefs = RowCreatorMock.genRandPreferences();
+		int prefId = daoService.add(prefs);
+
+		TableRow settings = RowCreatorMock.genRandSettings();
+		int settingsId = daoService.add(settings);
+
+		TseReport report = RowCreatorMock.genRandReport(prefId);
+		int reportId = daoService.add(report);
+
+		// first aggregated data with two cases and three results
+		SummarizedInfo summInfo1 = RowCreatorMock.genRandSummInfo(reportId, settingsId, prefId);
+		int summId1 = daoService.add(summInfo1);
+
+		CaseReport case1 = RowCreatorMock.genRandCase(reportId, summId1, settingsId, prefId);
+		int caseId1 = daoService.add(case1);
+
+		CaseReport case2 = RowCreatorMock.genRandCase(reportId, summId1, settingsId, prefId);
+		int caseId2 = daoService.add(case2);
+
+		AnalyticalResult result1 = RowCreatorMock.genRandResult(reportId, summId1, caseId1, settingsId, prefId);
+		daoService.add(result1);
+		AnalyticalResult result2 = RowCreatorMock.genRandResult(reportId, summId1, caseId1, settingsId, prefId);
+		daoService.add(result2);
+		AnalyticalResult result3 = RowCreatorMock.genRandResult(reportId, summId1, caseId2, settingsId, prefId);
+		daoService.add(result3);
+
+		// second aggregated data with one case and one result
+		SummarizedInfo summInfo2 = RowCreatorMock.genRandSummInfo(reportId, settingsId, prefId);
+		int summId2 = daoService.add(summInfo2);
+
+		CaseReport case3 = RowCreatorMock.genRandCase(reportId, summId2, settingsId, prefId);
+		int caseId3 = daoService.add(case3);
+
+		AnalyticalResult result4 = RowCreatorMock.genRandResult(reportId, summId2, caseId3, settingsId, prefId);
+		daoService.add(result4);
+
+		File exportFile = new File(folder, "report.xlsx");
+
+		ReportExcelExporter exporter = new ReportExcelExporter(daoService, report);
+		exporter.export(exportFile, (done, total) -> {
+			lastDone = done;
+			lastTotal = total;
+		});
+
+		assertEquals(2, lastDone);
+		assertEquals(2, lastTotal);
+
+		try (InputStream in = new FileInputStream(exportFile); XSSFWorkbook workbook = new XSSFWorkbook(in)) {
+
+			assertEquals(3, workbook.getNumberOfSheets());
+			assertEquals("AggregatedData", workbook.getSheetName(0));
+			assertEquals("SampleCases", workbook.getSheetName(1));
+			assertEquals("AnalyticalResults", workbook.getSheetName(2));
+
+			// header plus one line for each row
+			assertRows(workbook.getSheetAt(0), 2);
+			assertRows(workbook.getSheetAt(1), 3);
+			assertRows(workbook.getSheetAt(2), 4);
+		}
+	}
+
+	@Test
+	public void emptyReportShouldHaveEmptySheets() throws IOException {
+
+		ITableDaoService daoService = new TableDaoService(new TableDaoMock());
+
+		TseReport report = RowCreatorMock.genRandReport(daoService.add(RowCreatorMock.genRandPreferences()));
+		daoService.add(report);
+
+		File exportFile = new File(folder, "empty.xlsx");
+
+		new ReportExcelExporter(daoService, report).export(exportFile, null);
+
+		try (InputStream in = new FileInputStream(exportFile); XSSFWorkbook workbook = new XSSFWorkbook(in)) {
+
+			assertEquals(3, workbook.getNumberOfSheets());
+
+			for (int i = 0; i < workbook.getNumberOfSheets(); i++)
+				assertEquals(0, workbook.getSheetAt(i).getPhysicalNumberOfRows());
+		}
+	}
+
+	private static void assertRows(Sheet sheet, int rows) {
+		assertNotNull(sheet.getRow(0));
+		assertEquals(rows, sheet.getLastRowNum());
+		assertEquals(rows + 1, sheet.getPhysicalNumberOfRows());
+	}
+}
@@ -0,0 +1,130 @@
+package report_downloader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.text.ParseException;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.jupiter.api.Test;
+
+import formula.FormulaException;
+import table_skeleton.TableRow;
+import tse_config.CustomStrings;
+import xlsx_reader.TableSchemaList;
+
+public class DatasetImportPipelineTest {
+
+	/**
+	 * Source of rows numbered from 0, which can fail after some rows
+	 */
+	private static DatasetRowSource getSource(final int rows, final int failAt) {
+
+		return new DatasetRowSource() {
+
+			@Override
+			public void read(Handler handler) throws IOException, XMLStreamException, InterruptedException {
+
+				for (int i = 0; i < rows; ++i) {
+
+					if (i == failAt)
+						throw new XMLStreamException("Malformed row " + i);
+
+					TableRow row = new TableRow(TableSchemaList.getByName(CustomStrings.RESULT_SHEET));
+					row.put(CustomStrings.RES_ID_COL, String.valueOf(i));
+					handler.handle(row);
+				}
+			}
+
+			@Override
+			public int getEstimatedRows() {
+				return rows;
+			}
+		};
+	}
+
+	@Test
+	public void rowsAreReturnedInOrder() throws FormulaException, ParseException, XMLStreamException, IOException,
+			InterruptedException {
+
+		// the first rows are the slowest to decode
+		DatasetImportPipeline.Decoder<Integer> decoder = row -> {
+
+			int i = Integer.parseInt(row.getCode(CustomStrings.RES_ID_COL));
+
+			try {
+				Thread.sleep(Math.max(0, 20 - i));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			return i;
+		};
+
+		try (DatasetImportPipeline<Integer> pipeline = new DatasetImportPipeline<>(getSource(200, -1), decoder, 4,
+				8)) {
+
+			for (int i = 0; i < 200; ++i)
+				assertEquals(Integer.valueOf(i), pipeline.next());
+
+			// end of the dataset
+			assertNull(pipeline.next());
+		}
+	}
+
+	@Test
+	public void emptySourceReturnsOnlyTheEndMarker() throws FormulaException, ParseException, XMLStreamException,
+			IOException, InterruptedException {
+
+		DatasetImportPipeline.Decoder<Integer> decoder = row -> 0;
+
+		try (DatasetImportPipeline<Integer> pipeline = new DatasetImportPipeline<>(getSource(0, -1), decoder, 2,
+				4)) {
+			assertNull(pipeline.next());
+		}
+	}
+
+	@Test
+	public void decodingErrorIsForwardedToTheWriter() throws FormulaException, ParseException, XMLStreamException,
+			IOException, InterruptedException {
+
+		DatasetImportPipeline.Decoder<Integer> decoder = row -> {
+
+			int i = Integer.parseInt(row.getCode(CustomStrings.RES_ID_COL));
+
+			if (i == 3)
+				throw new ParseException("Cannot decode row " + i, 0);
+
+			return i;
+		};
+
+		try (DatasetImportPipeline<Integer> pipeline = new DatasetImportPipeline<>(getSource(10, -1), decoder, 2,
+				4)) {
+
+			for (int i = 0; i < 3; ++i)
+				assertEquals(Integer.valueOf(i), pipeline.next());
+
+			assertThrows(ParseException.class, () -> pipeline.next());
+		}
+	}
+
+	@Test
+	public void readingErrorIsForwardedAfterTheReadRows() throws FormulaException, ParseException,
+			XMLStreamException, IOException, InterruptedException {
+
+		DatasetImportPipeline.Decoder<Integer> decoder = row -> Integer
+				.parseInt(row.getCode(CustomStrings.RES_ID_COL));
+
+		try (DatasetImportPipeline<Integer> pipeline = new DatasetImportPipeline<>(getSource(10, 5), decoder, 2,
+				4)) {
+
+			for (int i = 0; i < 5; ++i)
+				assertEquals(Integer.valueOf(i), pipeline.next());
+
+			assertThrows(XMLStreamException.class, () -> pipeline.next());
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package report_downloader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import mocks.FailingTableDaoService;
+import mocks.RowCreatorMock;
+import tse_config.CustomStrings;
+import xlsx_reader.TableSchemaList;
+
+public class ImportTransactionTest {
+
+	@Test
+	public void failedInsertIsNotRecordedAndRollbackRemovesTheOthers() {
+
+		FailingTableDaoService daoService = new FailingTableDaoService();
+		daoService.failAfter(2);
+
+		ImportTransaction transaction = new ImportTransaction(daoService);
+
+		transaction.add(RowCreatorMock.genRandPreferences());
+		transaction.add(RowCreatorMock.genRandPreferences());
+
+		assertThrows(IllegalStateException.class, () -> transaction.add(RowCreatorMock.genRandPreferences()));
+
+		assertEquals(2, daoService.getAll(TableSchemaList.getByName(CustomStrings.PREFERENCES_SHEET)).size());
+
+		// only the two inserted rows are removed
+		assertEquals(0, transaction.rollback());
+		assertEquals(0, daoService.getAll(TableSchemaList.getByName(CustomStrings.PREFERENCES_SHEET)).size());
+	}
+
+	@Test
+	public void rollbackToSavepointKeepsThePreviousRows() {
+
+		FailingTableDaoService daoService = new FailingTableDaoService();
+
+		ImportTransaction transaction = new ImportTransaction(daoService);
+
+		transaction.add(RowCreatorMock.genRandPreferences());
+
+		int savepoint = transaction.savepoint();
+
+		transaction.add(RowCreatorMock.genRandPreferences());
+		transaction.add(RowCreatorMock.genRandPreferences());
+
+		assertEquals(0, transaction.rollback(savepoint));
+		assertEquals(1, daoService.getAll(TableSchemaList.getByName(CustomStrings.PREFERENCES_SHEET)).size());
+	}
+}
@@ -3,16 +3,21 @@ package report_downloader;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.text.ParseException;
 
 import javax.xml.stream.XMLStreamException;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import app_config.AppPaths;
 import dataset.Dataset;
@@ -21,6 +26,8 @@ import dataset.DcfDatasetStatus;
 import dataset.IDataset;
 import dataset.NoAttachmentException;
 import formula.FormulaException;
+import mocks.FailingTableDaoService;
+import mocks.RowCreatorMock;
 import mocks.TableDaoMock;
 import providers.FormulaService;
 import providers.IFormulaService;
@@ -36,6 +43,7 @@ import table_relations.Relation;
 import table_skeleton.TableRow;
 import table_skeleton.TableRowList;
 import tse_config.CustomStrings;
+import tse_summarized_information.SummarizedInfo;
 import xlsx_reader.TableSchemaList;
 
 public class ReportImporterTest {
@@ -140,6 +148,44 @@ public class ReportImporterTest {
 		 */
 	}
 
+	@Test
+	public void resultsAreLinkedToTheCaseWithTheirSampleId() throws DetailedSOAPException, XMLStreamException,
+			IOException, FormulaException, NoAttachmentException, ParseException {
+
+		String datasetId = "11920";
+
+		getDataset.addDatasetFile(datasetId,
+				new File("test-files" + System.getProperty("file.separator") + "dataset-first-version.xml"));
+
+		DatasetList datasetVersions = new DatasetList();
+
+		Dataset d = new Dataset();
+		d.setStatus(DcfDatasetStatus.ACCEPTED_DWH);
+		d.setId(datasetId);
+		d.setSenderId("AT1706.00");
+
+		datasetVersions.add(d);
+
+		TseReportImporter imp = new TseReportImporter(reportService, daoService);
+		imp.setDatasetVersions(datasetVersions);
+		imp.importReport();
+
+		TableRowList results = daoService.getAll(TableSchemaList.getByName(CustomStrings.RESULT_SHEET));
+		assertEquals(5, results.size());
+
+		// only the id of the imported cases is kept, the results must point to them
+		for (TableRow result : results) {
+
+			TableRow caseInfo = daoService.getById(TableSchemaList.getByName(CustomStrings.CASE_INFO_SHEET),
+					result.getNumCode(Relation.foreignKeyFromParent(CustomStrings.CASE_INFO_SHEET)));
+
+			assertNotNull(caseInfo);
+			assertEquals(caseInfo.getLabel(CustomStrings.SAMPLE_ID_COL), result.getLabel(CustomStrings.SAMPLE_ID_COL));
+			assertEquals(caseInfo.getCode(Relation.foreignKeyFromParent(CustomStrings.SUMMARIZED_INFO_SHEET)),
+					result.getCode(Relation.foreignKeyFromParent(CustomStrings.SUMMARIZED_INFO_SHEET)));
+		}
+	}
+
 	@Test
 	public void importFirstVersionOfReport2() throws DetailedSOAPException, XMLStreamException, IOException,
 			FormulaException, NoAttachmentException, ParseException {
@@ -411,4 +457,187 @@ public class ReportImporterTest {
 		assertEquals(6, daoService.getAll(TableSchemaList.getByName(CustomStrings.SUMMARIZED_INFO_SHEET)).size());
 		assertEquals(17, daoService.getAll(TableSchemaList.getByName(CustomStrings.RESULT_SHEET)).size());
 	}
+
+	/**
+	 * Write a small GDE2 dataset
+	 * 
+	 * @param dir     folder of the file
+	 * @param name    name of the file
+	 * @param results the result nodes
+	 * @return
+	 * @throws IOException
+	 */
+	private static File writeDataset(File dir, String name, String... results) throws IOException {
+
+		StringBuilder xml = new StringBuilder();
+		xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<message>\n<header/>\n<payload>\n");
+		xml.append("<operation><opType>Insert</opType><senderDatasetId>AT1706.00</senderDatasetId></operation>\n");
+		xml.append("<dataset>\n");
+
+		for (String result : results)
+			xml.append(result).append("\n");
+
+		xml.append("</dataset>\n</payload>\n</message>\n");
+
+		File file = new File(dir, name);
+		Files.write(file.toPath(), xml.toString().getBytes(StandardCharsets.UTF_8));
+
+		return file;
+	}
+
+	/**
+	 * Create a result node of a GDE2 dataset
+	 * 
+	 * @param fields pairs of field name and value
+	 * @return
+	 */
+	private static String result(String... fields) {
+
+		StringBuilder node = new StringBuilder("<result>");
+		for (int i = 0; i < fields.length; i += 2)
+			node.append("<").append(fields[i]).append(">").append(fields[i + 1]).append("</").append(fields[i])
+					.append(">");
+
+		return node.append("</result>").toString();
+	}
+
+	private static String summarizedInfoRow() {
+		return result(CustomStrings.PARAM_TYPE_COL, CustomStrings.SUMMARIZED_INFO_PARAM_TYPE,
+				CustomStrings.PARAM_CODE_COL, "RF-00003233-PAR", CustomStrings.RES_ID_COL, "1706_000001.0",
+				CustomStrings.PROG_ID_COL, "1706_000001", CustomStrings.SAMP_MAT_CODE_COL,
+				"A04MQ#F01.A057A$F21.A07RV$F31.A16NK");
+	}
+
+	private static String caseRow(String origSampId) {
+		return result(CustomStrings.PARAM_TYPE_COL, "P001A", CustomStrings.PARAM_CODE_COL, "RF-00003233-PAR",
+				CustomStrings.RES_ID_COL, "1706_000001.1", CustomStrings.SAMPLE_ID_COL, "S1",
+				CustomStrings.SAMP_INFO_COL, CustomStrings.ORIG_SAMP_ID_COL + "=" + origSampId,
+				CustomStrings.SAMP_MAT_CODE_COL, "A04MQ#F01.A057A$F21.A07RV$F31.A16NK");
+	}
+
+	private static Dataset getListedDataset(String datasetId) {
+
+		// only the information of the datasets list, no operation
+		Dataset d = new Dataset();
+		d.setStatus(DcfDatasetStatus.VALID);
+		d.setId(datasetId);
+		d.setSenderId("AT1706.00");
+
+		return d;
+	}
+
+	private void addGlobalParents() {
+		daoService.add(RowCreatorMock.genRandPreferences());
+		daoService.add(RowCreatorMock.genRandSettings());
+	}
+
+	@Test
+	public void streamedImportWithCaseBeforeItsSummarizedInfo(@TempDir File dir) throws DetailedSOAPException,
+			XMLStreamException, IOException, FormulaException, NoAttachmentException, ParseException {
+
+		addGlobalParents();
+
+		// import the aggregated data alone to get its sample id
+		TseReportImporter first = new TseReportImporter(reportService, daoService);
+		TableRow firstReport = first.importDatasetVersion(getListedDataset("1"),
+				writeDataset(dir, "summ.xml", summarizedInfoRow()));
+
+		TableRow firstSummInfo = daoService.getByParentId(TableSchemaList.getByName(CustomStrings.SUMMARIZED_INFO_SHEET),
+				AppPaths.REPORT_SHEET, firstReport.getDatabaseId(), true).iterator().next();
+
+		String sampId = reportService.getSampId(new SummarizedInfo(firstSummInfo));
+		assertNotNull(sampId);
+
+		// the case comes before its aggregated data, it waits until they are imported
+		String datasetId = "2";
+		getDataset.addDatasetFile(datasetId, writeDataset(dir, "dataset.xml", caseRow(sampId), summarizedInfoRow()));
+
+		DatasetList datasetVersions = new DatasetList();
+		datasetVersions.add(getListedDataset(datasetId));
+
+		TseReportImporter imp = new TseReportImporter(reportService, daoService);
+		imp.setDatasetVersions(datasetVersions);
+		imp.importReport();
+
+		TableRowList reports = daoService.getAll(TableSchemaList.getByName(AppPaths.REPORT_SHEET));
+		assertEquals(2, reports.size());
+
+		int reportId = -1;
+		for (TableRow report : reports) {
+			if (report.getDatabaseId() != firstReport.getDatabaseId())
+				reportId = report.getDatabaseId();
+		}
+
+		TableRowList summInfos = daoService.getByParentId(
+				TableSchemaList.getByName(CustomStrings.SUMMARIZED_INFO_SHEET), AppPaths.REPORT_SHEET, reportId, true);
+		TableRowList cases = daoService.getByParentId(TableSchemaList.getByName(CustomStrings.CASE_INFO_SHEET),
+				AppPaths.REPORT_SHEET, reportId, true);
+		TableRowList results = daoService.getByParentId(TableSchemaList.getByName(CustomStrings.RESULT_SHEET),
+				AppPaths.REPORT_SHEET, reportId, true);
+
+		assertEquals(1, summInfos.size());
+		assertEquals(1, cases.size());
+		assertEquals(1, results.size());
+
+		int summInfoId = summInfos.iterator().next().getDatabaseId();
+		assertEquals(summInfoId, cases.iterator().next().getNumCode(CustomStrings.SI_ID_COL));
+		assertEquals(summInfoId, results.iterator().next().getNumCode(CustomStrings.SI_ID_COL));
+	}
+
+	@Test
+	public void streamedImportRollbackWithRowsPendingAtEndOfFile(@TempDir File dir) throws IOException {
+
+		addGlobalParents();
+
+		File file = writeDataset(dir, "dataset.xml", summarizedInfoRow(), caseRow("notExistingSampId"));
+
+		TseReportImporter imp = new TseReportImporter(reportService, daoService);
+
+		assertThrows(ParseException.class, () -> imp.importDatasetVersion(getListedDataset("3"), file));
+
+		// nothing is left of the dataset version
+		assertEquals(0, daoService.getAll(TableSchemaList.getByName(AppPaths.REPORT_SHEET)).size());
+		assertEquals(0, daoService.getAll(TableSchemaList.getByName(CustomStrings.SUMMARIZED_INFO_SHEET)).size());
+		assertEquals(0, daoService.getAll(TableSchemaList.getByName(CustomStrings.CASE_INFO_SHEET)).size());
+		assertEquals(0, daoService.getAll(TableSchemaList.getByName(CustomStrings.RESULT_SHEET)).size());
+	}
+
+	@Test
+	public void streamedImportRollbackWhenTheDaoFailsAnInsert(@TempDir File dir) throws IOException {
+
+		FailingTableDaoService failingDao = new FailingTableDaoService();
+		failingDao.add(RowCreatorMock.genRandPreferences());
+		failingDao.add(RowCreatorMock.genRandSettings());
+
+		TseReportService service = new TseReportService(getAck, getDatasetsList, sendMessage, getDataset,
+				failingDao, new FormulaService(failingDao));
+
+		// the report and the first aggregated data are inserted, the second fails
+		failingDao.failAfter(2);
+
+		File file = writeDataset(dir, "dataset.xml", summarizedInfoRow(), summarizedInfoRow());
+
+		TseReportImporter imp = new TseReportImporter(service, failingDao);
+
+		assertThrows(IllegalStateException.class, () -> imp.importDatasetVersion(getListedDataset("4"), file));
+
+		assertEquals(0, failingDao.getAll(TableSchemaList.getByName(AppPaths.REPORT_SHEET)).size());
+		assertEquals(0, failingDao.getAll(TableSchemaList.getByName(CustomStrings.SUMMARIZED_INFO_SHEET)).size());
+	}
+
+	@Test
+	public void senderDatasetIdIsReadBeforeTheRows(@TempDir File dir) throws IOException, XMLStreamException {
+
+		File file = writeDataset(dir, "dataset.xml", summarizedInfoRow());
+
+		try (DatasetRowReader reader = new DatasetRowReader(file)) {
+			assertEquals("AT1706.00", reader.readSenderDatasetId());
+		}
+
+		try (DatasetRowReader reader = new DatasetRowReader(file)) {
+			assertEquals(CustomStrings.SUMMARIZED_INFO_PARAM_TYPE,
+					reader.next().getCode(CustomStrings.PARAM_TYPE_COL));
+			assertNull(reader.next());
+		}
+	}
 }
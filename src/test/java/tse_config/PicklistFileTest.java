@@ -0,0 +1,42 @@
+package tse_config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.jupiter.api.Test;
+
+public class PicklistFileTest {
+
+	private static final File FOLDER = new File(CustomStrings.PICKLISTS_FOLDER);
+
+	@Test
+	public void allPicklistsOfTheFolderAreListed() {
+		assertEquals(FOLDER.listFiles().length, PicklistFile.list(FOLDER).size());
+		assertTrue(PicklistFile.list(new File(FOLDER, "missing")).isEmpty());
+	}
+
+	@Test
+	public void mainNodeAndCodesAreRead() throws IOException, XMLStreamException {
+
+		PicklistFile picklist = PicklistFile.read(new File(FOLDER, "tseList.xml"));
+
+		assertEquals(CatalogLists.TSE_LIST, picklist.getKey());
+		assertEquals(Arrays.asList("BSE", "SCRAPIE", "CWD", "RGT", "BSEOS"), new ArrayList<>(picklist.getCodes()));
+	}
+
+	@Test
+	public void codesOfMoreListsAreReadOnce() throws IOException, XMLStreamException {
+
+		PicklistFile picklist = PicklistFile.read(new File(FOLDER, "ageClassLists.xml"));
+
+		assertEquals(CatalogLists.AGE_CLASS_LIST, picklist.getKey());
+		assertTrue(picklist.getCodes().contains("F31.A16NK"));
+	}
+}
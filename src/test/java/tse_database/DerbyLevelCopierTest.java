@@ -0,0 +1,166 @@
+package tse_database;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DerbyLevelCopierTest {
+
+	private static final String URL = "jdbc:derby:memory:levelCopier";
+
+	private Connection con;
+
+	@BeforeEach
+	public void init() throws SQLException {
+
+		con = DriverManager.getConnection(URL + ";create=true");
+
+		execute("create table Report (ReportId integer not null generated always as identity primary key, "
+				+ "name varchar(100))");
+		execute("create table SummInfo (SummInfoId integer not null generated always as identity primary key, "
+				+ "ReportId varchar(100), val varchar(100))");
+		execute("create table Cases (CasesId integer not null generated always as identity primary key, "
+				+ "ReportId varchar(100), SummInfoId varchar(100), val varchar(100))");
+		execute("create table Results (ResultsId integer not null generated always as identity primary key, "
+				+ "ReportId varchar(100), SummInfoId varchar(100), CasesId varchar(100), val varchar(100))");
+
+		execute("insert into Report (name) values ('first'), ('amended'), ('other')");
+
+		// a row of another report shifts the ids
+		execute("insert into SummInfo (ReportId, val) values ('3', 'other')");
+		execute("insert into SummInfo (ReportId, val) values ('1', 's1'), ('1', 's2')");
+		execute("insert into Cases (ReportId, SummInfoId, val) values ('1', '3', 'c2'), ('1', '2', 'c1')");
+		execute("insert into Results (ReportId, SummInfoId, CasesId, val) values ('1', '2', '2', 'r1'), "
+				+ "('1', '3', '1', 'r2'), ('1', '3', '1', 'r3')");
+	}
+
+	@AfterEach
+	public void drop() throws SQLException {
+
+		con.close();
+
+		try {
+			DriverManager.getConnection(URL + ";drop=true");
+		} catch (SQLException e) {
+			// derby signals the removal of the database with an exception
+		}
+	}
+
+	private void execute(String query) throws SQLException {
+		try (Statement stmt = con.createStatement();) {
+			stmt.executeUpdate(query);
+		}
+	}
+
+	/**
+	 * Get the rows of a table of a report as value, parent value
+	 * 
+	 * @param table
+	 * @param parentTable
+	 * @param reportId
+	 * @return
+	 * @throws SQLException
+	 */
+	private HashMap<String, String> getParents(String table, String parentTable, int reportId) throws SQLException {
+
+		HashMap<String, String> values = new HashMap<>();
+
+		String query = "select t.val, p.val from " + table + " t join " + parentTable + " p on t." + parentTable
+				+ "Id = cast(p." + parentTable + "Id as char(10)) where t.ReportId = '" + reportId + "'";
+
+		try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery(query);) {
+			while (rs.next()) {
+				values.put(rs.getString(1), rs.getString(2));
+			}
+		}
+
+		return values;
+	}
+
+	private int count(String table, int reportId) throws SQLException {
+
+		String query = "select count(*) from " + table + " where ReportId = '" + reportId + "'";
+
+		try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery(query);) {
+			rs.next();
+			return rs.getInt(1);
+		}
+	}
+
+	private static List<CopiedLevel> getLevels() {
+
+		List<CopiedLevel> levels = new ArrayList<>();
+		levels.add(new CopiedLevel("SummInfo").addParent("ReportId", "Report"));
+		levels.add(new CopiedLevel("Cases").addParent("ReportId", "Report").addParent("SummInfoId", "SummInfo"));
+		levels.add(new CopiedLevel("Results").addParent("ReportId", "Report").addParent("SummInfoId", "SummInfo")
+				.addParent("CasesId", "Cases"));
+
+		return levels;
+	}
+
+	@Test
+	public void levelsAreCopiedWithTheForeignKeysOfTheCopies() throws SQLException {
+
+		int[] copied = new DerbyLevelCopier(con).copy("Report", 1, 2, getLevels());
+
+		assertArrayEquals(new int[] { 2, 2, 3 }, copied);
+		assertTrue(con.getAutoCommit());
+
+		// the copies refer to the copied parents
+		assertEquals(getParents("Cases", "SummInfo", 1), getParents("Cases", "SummInfo", 2));
+		assertEquals(getParents("Results", "Cases", 1), getParents("Results", "Cases", 2));
+		assertEquals(getParents("Results", "SummInfo", 1), getParents("Results", "SummInfo", 2));
+
+		// the first version and the other report are not changed
+		assertEquals(2, count("SummInfo", 1));
+		assertEquals(3, count("Results", 1));
+		assertEquals(1, count("SummInfo", 3));
+	}
+
+	@Test
+	public void copyCanBeRepeatedOnTheSameConnection() throws SQLException {
+
+		new DerbyLevelCopier(con).copy("Report", 1, 2, getLevels());
+		int[] copied = new DerbyLevelCopier(con).copy("Report", 2, 3, getLevels());
+
+		assertArrayEquals(new int[] { 2, 2, 3 }, copied);
+		assertEquals(getParents("Results", "Cases", 1), getParents("Results", "Cases", 3));
+	}
+
+	@Test
+	public void nothingIsCopiedIfALevelFails() throws SQLException {
+
+		// the copy of the results violates the constraint
+		execute("create unique index RESULTS_VAL on Results (val)");
+
+		assertThrows(SQLException.class, () -> new DerbyLevelCopier(con).copy("Report", 1, 2, getLevels()));
+
+		assertTrue(con.getAutoCommit());
+		assertEquals(0, count("SummInfo", 2));
+		assertEquals(0, count("Cases", 2));
+		assertEquals(0, count("Results", 2));
+	}
+
+	@Test
+	public void levelWithoutCopiedParentIsRefused() {
+
+		List<CopiedLevel> levels = new ArrayList<>();
+		levels.add(new CopiedLevel("Cases").addParent("ReportId", "Report").addParent("SummInfoId", "SummInfo"));
+
+		assertThrows(SQLException.class, () -> new DerbyLevelCopier(con).copy("Report", 1, 2, levels));
+	}
+}
@@ -0,0 +1,91 @@
+package tse_database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Collection;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mocks.DatabaseBuilderMock;
+import mocks.DatabaseMock;
+import mocks.IndexBuilderMock;
+import table_database.DatabaseUpdater;
+import tse_config.CustomStrings;
+import xlsx_reader.TableSchemaList;
+
+public class IndexUpdaterTest {
+
+	private DatabaseBuilderMock dbBuilder;
+	private IndexUpdater indexUpdater;
+	
+	private File oldSchema;
+	private File newSchema;
+	
+	@BeforeEach
+	public void init() throws IOException {
+		
+		oldSchema = new File("test-files" 
+				+ System.getProperty("file.separator") + "tablesSchema-old.xlsx");
+		
+		newSchema = new File("test-files" 
+				+ System.getProperty("file.separator") + "tablesSchema-new.xlsx");
+		
+		this.dbBuilder = new DatabaseBuilderMock(oldSchema);
+		this.dbBuilder.create("");
+		
+		this.indexUpdater = new IndexUpdater(new IndexBuilderMock(dbBuilder.getDb()));
+	}
+	
+	private static TableIndexList getIndexes(File schema) throws IOException {
+		return TableIndexList.getAll(TableSchemaList.getAll(schema.getPath()), CustomStrings.SAMPLE_ID_COL);
+	}
+	
+	@Test
+	public void testCreateIndexes() throws IOException, SQLException {
+		
+		DatabaseMock db = dbBuilder.getDb();
+		
+		int created = indexUpdater.update(getIndexes(oldSchema));
+		
+		Collection<String> indexes = db.getTable(CustomStrings.CASE_INFO_SHEET).getIndexes();
+		
+		assertTrue(created > 0);
+		assertTrue(indexes.contains(new TableIndex(CustomStrings.CASE_INFO_SHEET, "ReportId").getName()));
+		assertTrue(indexes.contains(new TableIndex(CustomStrings.CASE_INFO_SHEET, 
+				CustomStrings.SAMPLE_ID_COL).getName()));
+		
+		// already aligned
+		assertEquals(0, indexUpdater.update(getIndexes(oldSchema)));
+	}
+	
+	@Test
+	public void testMigrateIndexes() throws IOException, SQLException {
+		
+		DatabaseMock db = dbBuilder.getDb();
+		
+		indexUpdater.update(getIndexes(oldSchema));
+		
+		// the index of a column unknown to the application is kept
+		db.getTable(CustomStrings.CASE_INFO_SHEET).addIndex("SQL_CUSTOM_INDEX");
+		
+		new DatabaseUpdater(dbBuilder).update(oldSchema, newSchema);
+		indexUpdater.update(getIndexes(newSchema));
+		
+		Collection<String> indexes = db.getTable(CustomStrings.CASE_INFO_SHEET).getIndexes();
+		
+		// the report id is not a foreign key anymore
+		assertFalse(indexes.contains(new TableIndex(CustomStrings.CASE_INFO_SHEET, "ReportId").getName()));
+		
+		// the new foreign key is indexed
+		assertTrue(indexes.contains(new TableIndex(CustomStrings.CASE_INFO_SHEET, 
+				"SummarizedInformationId").getName()));
+		
+		assertTrue(indexes.contains("SQL_CUSTOM_INDEX"));
+	}
+}
@@ -0,0 +1,105 @@
+package tse_options;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mocks.RowCreatorMock;
+import mocks.TableDaoMock;
+import providers.GlobalParentCache;
+import providers.ITableDaoService;
+import providers.TableDaoService;
+import table_skeleton.TableRow;
+import tse_config.CustomStrings;
+
+public class OptionsDialogTest {
+
+	private ITableDaoService daoService;
+
+	@BeforeEach
+	public void init() {
+		GlobalParentCache.invalidateAll();
+		this.daoService = new TableDaoService(new TableDaoMock());
+	}
+
+	@AfterEach
+	public void clear() {
+		GlobalParentCache.invalidateAll();
+	}
+
+	@Test
+	public void savedOptionsInvalidateTheCachedGlobalParent() throws IOException {
+
+		TableRow prefs = RowCreatorMock.genRandPreferences();
+		int id = daoService.add(prefs);
+		prefs.setId(id);
+
+		assertEquals("AT", GlobalParentCache.get(CustomStrings.PREFERENCES_SHEET, daoService)
+				.getCode(CustomStrings.PREFERENCES_COUNTRY));
+
+		prefs.put(CustomStrings.PREFERENCES_COUNTRY, "IT");
+		daoService.update(prefs);
+
+		// still cached until the options are saved through the dialog
+		assertEquals("AT", GlobalParentCache.get(CustomStrings.PREFERENCES_SHEET, daoService)
+				.getCode(CustomStrings.PREFERENCES_COUNTRY));
+
+		OptionsDialog.optionsSaved(prefs, CustomStrings.PREFERENCES_SHEET);
+
+		assertEquals("IT", GlobalParentCache.get(CustomStrings.PREFERENCES_SHEET, daoService)
+				.getCode(CustomStrings.PREFERENCES_COUNTRY));
+	}
+
+	@Test
+	public void savedSettingsDoNotInvalidateThePreferences() throws IOException {
+
+		TableRow prefs = RowCreatorMock.genRandPreferences();
+		int id = daoService.add(prefs);
+		prefs.setId(id);
+
+		GlobalParentCache.get(CustomStrings.PREFERENCES_SHEET, daoService);
+
+		prefs.put(CustomStrings.PREFERENCES_COUNTRY, "IT");
+		daoService.update(prefs);
+
+		OptionsDialog.optionsSaved(RowCreatorMock.genRandSettings(), CustomStrings.SETTINGS_SHEET);
+
+		assertEquals("AT", GlobalParentCache.get(CustomStrings.PREFERENCES_SHEET, daoService)
+				.getCode(CustomStrings.PREFERENCES_COUNTRY));
+	}
+
+	@Test
+	public void cachedGlobalParentIsNotShared() throws IOException {
+
+		daoService.add(RowCreatorMock.genRandPreferences());
+
+		TableRow first = GlobalParentCache.get(CustomStrings.PREFERENCES_SHEET, daoService);
+		first.put(CustomStrings.PREFERENCES_COUNTRY, "IT");
+
+		TableRow second = GlobalParentCache.get(CustomStrings.PREFERENCES_SHEET, daoService);
+
+		assertNotSame(first, second);
+		assertEquals("AT", second.getCode(CustomStrings.PREFERENCES_COUNTRY));
+	}
+
+	@Test
+	public void globalParentsAreCachedForEachDao() throws IOException {
+
+		daoService.add(RowCreatorMock.genRandPreferences());
+
+		ITableDaoService otherDao = new TableDaoService(new TableDaoMock());
+		TableRow otherPrefs = RowCreatorMock.genRandPreferences();
+		otherPrefs.put(CustomStrings.PREFERENCES_COUNTRY, "IT");
+		otherDao.add(otherPrefs);
+
+		assertEquals("AT", GlobalParentCache.get(CustomStrings.PREFERENCES_SHEET, daoService)
+				.getCode(CustomStrings.PREFERENCES_COUNTRY));
+		assertEquals("IT", GlobalParentCache.get(CustomStrings.PREFERENCES_SHEET, otherDao)
+				.getCode(CustomStrings.PREFERENCES_COUNTRY));
+	}
+}
@@ -0,0 +1,61 @@
+package tse_validator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import tse_validator.AgeClassValidator.Check;
+
+public class AgeClassTableTest {
+
+	// < 24 months
+	private static final String LESS_THAN_24 = "F31.A16NK";
+
+	// 24-35 months
+	private static final String FROM_24_TO_35 = "F31.A16NJ";
+
+	private AgeClassTable table;
+
+	@BeforeEach
+	public void init() throws IOException {
+		table = AgeClassTable.getInstance();
+	}
+
+	@Test
+	public void ageInsideClass() throws IOException {
+		assertEquals(Check.OK, table.check(LESS_THAN_24, 2020, 1, 2019, 1));
+		assertEquals(Check.OK, table.check(FROM_24_TO_35, 2020, 1, 2018, 1));
+		assertEquals(Check.OK, table.check(FROM_24_TO_35, 2020, 12, 2018, 1));
+	}
+
+	@Test
+	public void ageOutsideClass() throws IOException {
+		assertEquals(Check.AGE_CLASS_NOT_RESPECTED, table.check(LESS_THAN_24, 2020, 1, 2018, 1));
+		assertEquals(Check.AGE_CLASS_NOT_RESPECTED, table.check(FROM_24_TO_35, 2020, 1, 2019, 2));
+		assertEquals(Check.AGE_CLASS_NOT_RESPECTED, table.check(FROM_24_TO_35, 2021, 1, 2018, 1));
+	}
+
+	@Test
+	public void birthAfterReportDate() throws IOException {
+		assertEquals(Check.REPORT_DATE_EXCEEDED, table.check(LESS_THAN_24, 2020, 1, 2020, 2));
+	}
+
+	@Test
+	public void unknownAgeClass() {
+		assertThrows(IOException.class, () -> table.check("NOT_AN_AGE_CLASS", 2020, 1, 2019, 1));
+	}
+
+	@Test
+	public void batchCheck() throws IOException {
+
+		Check[] checks = table.check(new String[] { LESS_THAN_24, FROM_24_TO_35 }, new int[] { 2020, 2020 },
+				new int[] { 1, 1 }, new int[] { 2019, 2019 }, new int[] { 1, 1 });
+
+		assertArrayEquals(new Check[] { Check.OK, Check.AGE_CLASS_NOT_RESPECTED }, checks);
+	}
+}
@@ -2,9 +2,16 @@ package tse_validator;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,6 +20,7 @@ import dataset.IDataset;
 import formula.FormulaException;
 import mocks.RowCreatorMock;
 import mocks.TableDaoMock;
+import mocks.ThreadConfinedDaoService;
 import providers.FormulaService;
 import providers.IFormulaService;
 import providers.ITableDaoService;
@@ -23,6 +31,7 @@ import soap_test.GetAckMock;
 import soap_test.GetDatasetMock;
 import soap_test.GetDatasetsListMock;
 import soap_test.SendMessageMock;
+import table_relations.Relation;
 import table_skeleton.TableCell;
 import table_skeleton.TableRow;
 import tse_analytical_result.AnalyticalResult;
@@ -50,6 +59,7 @@ public class ReportValidatorTest {
 	private GetDatasetsListMock<IDataset> getDatasetsList;
 	private SendMessageMock sendMessage;
 	private GetDatasetMock getDataset;
+	private TableDaoMock tableDao;
 	private ITableDaoService daoService;
 	private IFormulaService formulaService;
 	
@@ -60,7 +70,8 @@ public class ReportValidatorTest {
 		this.getDatasetsList = new GetDatasetsListMock<>();
 		this.sendMessage = new SendMessageMock();
 		this.getDataset = new GetDatasetMock();
-		this.daoService = new TableDaoService(new TableDaoMock());
+		this.tableDao = new TableDaoMock();
+		this.daoService = new TableDaoService(tableDao);
 		
 		this.formulaService = new FormulaService(daoService);
 		
@@ -143,6 +154,33 @@ public class ReportValidatorTest {
 		assertFalse(checks.contains(SampleCheck.TOO_MANY_POSITIVES));
 	}
 
+	@Test
+	public void caseStatisticsShouldBeGroupedBySummarizedInformation() {
+		
+		cr.put(CustomStrings.NATIONAL_CASE_ID_COL, "case1");
+		cr.put(CustomStrings.SAMP_EVENT_ASSES_COL, 
+				new TableCell(CustomStrings.DEFAULT_ASSESS_INC_CASE_CODE, ""));
+		
+		SummarizedInfo si2 = new SummarizedInfo();
+		si2.copyValues(si);
+		int si2Id = daoService.add(si2);
+		
+		// positive case in the second summarized information
+		CaseReport cr2 = new CaseReport();
+		cr2.copyValues(cr);
+		cr2.put(Relation.foreignKeyFromParent(CustomStrings.SUMMARIZED_INFO_SHEET), String.valueOf(si2Id));
+		cr2.put(CustomStrings.NATIONAL_CASE_ID_COL, "case2");
+		cr2.put(CustomStrings.SAMP_EVENT_ASSES_COL, 
+				new TableCell(CustomStrings.DEFAULT_ASSESS_CBSE_CASE_CODE, ""));
+		
+		HashMap<Integer, CaseStatistics> stats = CaseStatistics.groupBySummInfo(Arrays.asList(cr, cr2));
+		
+		assertEquals(1, stats.get(si.getDatabaseId()).getInconclusives());
+		assertEquals(0, stats.get(si.getDatabaseId()).getPositives());
+		assertEquals(0, stats.get(si2Id).getInconclusives());
+		assertEquals(1, stats.get(si2Id).getPositives());
+	}
+	
 	@Test
 	public void declaredPositiveLessThanDetailedCheck() {
 		
@@ -581,6 +619,20 @@ public class ReportValidatorTest {
 		assertTrue(checks.contains(Check.NO_TEST_SPECIFIED));
 	}
 	
+	@Test
+	public void cachedCaseChecksShouldBeRecomputedAfterInvalidation() {
+		
+		CaseReportValidator validator = new CaseReportValidator(daoService);
+		assertFalse(validator.getChecks(cr).contains(Check.NO_TEST_SPECIFIED));
+		
+		// children changed, the cached checks are still used
+		daoService.delete(result.getSchema(), result.getDatabaseId());
+		assertFalse(validator.getChecks(cr).contains(Check.NO_TEST_SPECIFIED));
+		
+		validator.invalidate(cr);
+		assertTrue(validator.getChecks(cr).contains(Check.NO_TEST_SPECIFIED));
+	}
+	
 	@Test
 	public void indexCaseForNegativeSampleCheck() {
 
@@ -765,6 +817,169 @@ public class ReportValidatorTest {
 		assertTrue(myError);
 	}
 	
+	@Test
+	public void threeEqualContextsShouldCreateTwoDuplicatedContextErrors() throws FormulaException {
+
+		String contextId = formulaService.solve(si, 
+				si.getSchema().getById(CustomStrings.SAMPLE_ID_COL), 
+				XlsxHeader.LABEL_FORMULA);
+		
+		si.put(CustomStrings.SAMPLE_ID_COL, contextId);
+
+		SummarizedInfo si2 = new SummarizedInfo();
+		si2.copyValues(si);
+		daoService.add(si2);
+		
+		SummarizedInfo si3 = new SummarizedInfo();
+		si3.copyValues(si);
+		daoService.add(si3);
+
+		TseReportValidator validator = new TseReportValidator(report, reportService, daoService);
+		Collection<ReportError> errors = validator.checkDuplicatedSummId(reportService.getAllRecords(report));
+
+		int count = 0;
+		for(ReportError err: errors) {
+			if (err instanceof DuplicatedContextError)
+				count++;
+		}
+		
+		assertEquals(2, count);
+	}
+	
+	@Test
+	public void parallelValidationShouldReturnSameErrorsInSameOrder() {
+
+		// add some rows with errors
+		for (int i = 0; i < 300; i++) {
+			CaseReport cr2 = new CaseReport();
+			cr2.copyValues(cr);
+			cr2.put(CustomStrings.BIRTH_YEAR_COL, String.valueOf(1990 + i % 20));
+			daoService.add(cr2);
+		}
+
+		TseReportValidator validator = new TseReportValidator(report, reportService, daoService);
+		Collection<ReportError> sequential = validator.validate();
+
+		validator.setParallel(() -> new TableDaoService(tableDao));
+		Collection<ReportError> parallel = validator.validate();
+
+		assertSameErrors(sequential, parallel);
+	}
+	
+	@Test
+	public void parallelValidationWithIndexMissesShouldUseOneDaoPerThread() {
+
+		// summarized information of another report, missing in the index of the validated one
+		TseReport otherReport = RowCreatorMock.genRandReport(pref.getDatabaseId());
+		int otherReportId = daoService.add(otherReport);
+
+		SummarizedInfo otherSi = RowCreatorMock.genRandSummInfo(otherReportId, opt.getDatabaseId(),
+				pref.getDatabaseId());
+		int otherSiId = daoService.add(otherSi);
+
+		for (int i = 0; i < 300; i++) {
+			CaseReport cr2 = RowCreatorMock.genRandCase(report.getDatabaseId(), otherSiId, opt.getDatabaseId(),
+					pref.getDatabaseId());
+			cr2.put(CustomStrings.BIRTH_YEAR_COL, String.valueOf(1990 + i % 20));
+			daoService.add(cr2);
+		}
+
+		ThreadConfinedDaoService sharedDao = new ThreadConfinedDaoService(tableDao);
+		TseReportService sharedService = new TseReportService(getAck, getDatasetsList, sendMessage, getDataset,
+				sharedDao, new FormulaService(sharedDao));
+
+		TseReportValidator validator = new TseReportValidator(report, sharedService, sharedDao);
+		Collection<ReportError> sequential = validator.validate();
+
+		List<ThreadConfinedDaoService> workerDaos = Collections.synchronizedList(new ArrayList<>());
+		validator.setParallel(() -> {
+			ThreadConfinedDaoService dao = new ThreadConfinedDaoService(tableDao);
+			workerDaos.add(dao);
+			return dao;
+		});
+
+		Collection<ReportError> parallel = validator.validate();
+
+		// the shared dao is used only by the calling thread
+		assertEquals(0, sharedDao.getViolations());
+
+		int workerReads = 0;
+		for (ThreadConfinedDaoService dao : workerDaos) {
+			assertEquals(0, dao.getViolations());
+			workerReads += dao.getReads();
+		}
+
+		// the parents missing in the index were read by the workers
+		assertTrue(workerReads >= 300);
+
+		assertSameErrors(sequential, parallel);
+	}
+
+	private static void assertSameErrors(Collection<ReportError> expected, Collection<ReportError> actual) {
+
+		assertEquals(expected.size(), actual.size());
+
+		Iterator<ReportError> it = actual.iterator();
+		for (ReportError err : expected) {
+			ReportError other = it.next();
+			assertEquals(err.getClass(), other.getClass());
+			assertEquals(err.getInvolvedRowsIdsMessage(), other.getInvolvedRowsIdsMessage());
+		}
+	}
+	
+	@Test
+	public void copyWithOwnFormulasShouldFindSameMissingFields() throws FormulaException {
+
+		cr.remove(CustomStrings.SAMPLE_ID_COL);
+
+		TseReportService copy = reportService.copyWithOwnFormulas();
+
+		assertNotSame(reportService, copy);
+		assertFalse(copy.getMandatoryFieldNotFilled(cr).isEmpty());
+		assertEquals(reportService.getMandatoryFieldNotFilled(cr).size(),
+				copy.getMandatoryFieldNotFilled(cr).size());
+	}
+	
+	@Test
+	public void incrementalValidationShouldCheckAgainChangedRows() {
+
+		cr.put(CustomStrings.INDEX_CASE_COL, 
+				new TableCell(CustomStrings.INDEX_CASE_NO, ""));
+		cr.put(CustomStrings.SAMP_EVENT_ASSES_COL, 
+				new TableCell(CustomStrings.DEFAULT_ASSESS_NEG_CASE_CODE, ""));
+		daoService.update(cr);
+
+		TseReportValidator validator = new TseReportValidator(report, reportService, daoService);
+		validator.setIncremental(true);
+		
+		Collection<ReportError> first = validator.validate();
+		Collection<ReportError> second = validator.validate();
+
+		assertEquals(first.size(), second.size());
+		
+		boolean myError = false;
+		for(ReportError err: second) {
+			if (err instanceof IndexCaseForNegativeError)
+				myError = true;
+		}
+		
+		assertTrue(myError);
+		
+		// fix the case
+		cr.put(CustomStrings.INDEX_CASE_COL, "");
+		daoService.update(cr);
+		
+		Collection<ReportError> third = validator.validate();
+		
+		myError = false;
+		for(ReportError err: third) {
+			if (err instanceof IndexCaseForNegativeError)
+				myError = true;
+		}
+		
+		assertFalse(myError);
+	}
+	
 	@Test
 	public void duplicatedResultIdForResults() {
 
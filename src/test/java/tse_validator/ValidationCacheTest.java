@@ -0,0 +1,57 @@
+package tse_validator;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import app_config.AppPaths;
+import table_skeleton.TableRow;
+import xlsx_reader.TableSchemaList;
+
+public class ValidationCacheTest {
+
+	@BeforeEach
+	public void init() {
+		ValidationCache.clearAll();
+	}
+
+	@AfterEach
+	public void clear() {
+		ValidationCache.clearAll();
+	}
+
+	private static TableRow report(int id) {
+		TableRow report = new TableRow(TableSchemaList.getByName(AppPaths.REPORT_SHEET));
+		report.setId(id);
+		return report;
+	}
+
+	@Test
+	public void leastRecentlyValidatedReportIsEvicted() {
+
+		ValidationCache first = ValidationCache.getCache(report(1));
+		ValidationCache second = ValidationCache.getCache(report(2));
+
+		// the first report is validated again, the second becomes the eldest
+		ValidationCache.getCache(report(1));
+
+		for (int id = 3; id <= ValidationCache.MAX_REPORTS + 1; id++)
+			ValidationCache.getCache(report(id));
+
+		assertSame(first, ValidationCache.getCache(report(1)));
+		assertNotSame(second, ValidationCache.getCache(report(2)));
+	}
+
+	@Test
+	public void removedReportIsValidatedFromScratch() {
+
+		ValidationCache cache = ValidationCache.getCache(report(1));
+
+		ValidationCache.remove(report(1));
+
+		assertNotSame(cache, ValidationCache.getCache(report(1)));
+	}
+}